@@ -2,6 +2,7 @@ package com.example.backend.controller;
 
 import com.example.backend.dto.LoginRequestDTO;
 import com.example.backend.dto.LoginResponseDTO;
+import com.example.backend.dto.RefreshTokenRequestDTO;
 import com.example.backend.dto.UserCreateDTO;
 import com.example.backend.dto.UserResponseDTO;
 import com.example.backend.service.AuthService;
@@ -34,10 +35,13 @@ public class AuthController {
         UserResponseDTO userResponse = authService.register(userCreateDTO);
         
         // Gerar token JWT para o usuário recém-registrado
-        String token = jwtTokenProvider.generateTokenFromUsername(userResponse.getUsername());
+        String token = jwtTokenProvider.generateTokenForUser(
+                userResponse.getUsername(), userResponse.getId(), userResponse.getRole());
         
         LoginResponseDTO response = new LoginResponseDTO();
         response.setToken(token);
+        response.setRefreshToken(authService.issueRefreshToken(userResponse.getId()));
+        response.setExpiresIn(jwtTokenProvider.getExpirationInMs());
         response.setUsername(userResponse.getUsername());
         response.setEmail(userResponse.getEmail());
         response.setRole(userResponse.getRole());
@@ -45,6 +49,24 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponseDTO> refresh(@Valid @RequestBody RefreshTokenRequestDTO refreshRequest) {
+        LoginResponseDTO response = authService.refresh(refreshRequest.getRefreshToken());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(HttpServletRequest request,
+                                       @RequestBody(required = false) RefreshTokenRequestDTO logoutRequest) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new RuntimeException("Token não encontrado");
+        }
+        authService.logout(authHeader.substring(7),
+                logoutRequest != null ? logoutRequest.getRefreshToken() : null);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/me")
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('AGENT_COMPANY') or hasRole('AGENT_BANK')")
     public ResponseEntity<UserResponseDTO> getCurrentUser(HttpServletRequest request) {
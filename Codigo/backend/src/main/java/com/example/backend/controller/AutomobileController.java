@@ -1,21 +1,31 @@
 package com.example.backend.controller;
 
 import com.example.backend.dto.AutomobileCreateDTO;
+import com.example.backend.dto.AutomobileImportResultDTO;
 import com.example.backend.dto.AutomobileResponseDTO;
+import com.example.backend.dto.ExportFormat;
 import com.example.backend.security.JwtTokenProvider;
+import com.example.backend.service.AutomobileImportService;
 import com.example.backend.service.AutomobileService;
+import com.example.backend.service.FreeWindowService;
+import com.example.backend.service.StreamingExportService;
 import com.example.backend.service.UserService;
 import com.example.backend.dto.UserResponseDTO;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,16 +38,65 @@ public class AutomobileController {
     private final AutomobileService service;
     private final JwtTokenProvider jwtTokenProvider;
     private final UserService userService;
+    private final FreeWindowService freeWindowService;
+    private final StreamingExportService exportService;
+    private final AutomobileImportService importService;
 
-    public AutomobileController(AutomobileService service, UserService userService, JwtTokenProvider jwtTokenProvider) {
+    public AutomobileController(AutomobileService service, UserService userService, JwtTokenProvider jwtTokenProvider,
+                                FreeWindowService freeWindowService, StreamingExportService exportService,
+                                AutomobileImportService importService) {
         this.service = service;
         this.userService = userService;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.freeWindowService = freeWindowService;
+        this.exportService = exportService;
+        this.importService = importService;
     }
 
     @GetMapping
-    public List<AutomobileResponseDTO> all() {
-        return service.findAll();
+    public ResponseEntity<List<AutomobileResponseDTO>> all(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return service.findPage(cursor, size).toResponse();
+    }
+
+    @GetMapping("/available")
+    public ResponseEntity<?> available(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate pickupDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate returnDate,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Integer minYear,
+            @RequestParam(required = false) Integer maxYear,
+            @RequestParam(required = false) Double maxDailyRate,
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            int boundedLimit = Math.max(1, Math.min(limit, 1000));
+            return ResponseEntity.ok(service.findAvailable(
+                    pickupDate, returnDate, brand, minYear, maxYear, maxDailyRate, boundedLimit));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    @GetMapping("/{id}/free-windows")
+    public ResponseEntity<?> freeWindows(
+            @PathVariable String id,
+            @RequestParam int days,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(defaultValue = "3") int count) {
+        if (days < 1) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Quantidade de dias deve ser maior que zero");
+            return ResponseEntity.badRequest().body(error);
+        }
+        if (service.findById(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        int boundedCount = Math.max(1, Math.min(count, 20));
+        return ResponseEntity.ok(freeWindowService.findFreeWindows(
+                id, from != null ? from : LocalDate.now(), days, boundedCount));
     }
 
     @GetMapping("/{id}")
@@ -58,6 +117,19 @@ public class AutomobileController {
         return ResponseEntity.ok(automobiles);
     }
 
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('PERM_AUTOMOBILE_MANAGE')")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) Boolean available,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            Authentication authentication) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        return exportFormat.toResponse("automobiles",
+                exportService.automobiles(authentication.getName(), exportFormat, available, from, to));
+    }
+
     @PostMapping
     @PreAuthorize("hasAuthority('PERM_AUTOMOBILE_MANAGE')")
     public ResponseEntity<?> create(
@@ -104,6 +176,33 @@ public class AutomobileController {
         }
     }
 
+    /**
+     * Importação em lote: CSV com cabeçalho (text/csv) ou um objeto por linha (application/x-ndjson).
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasAuthority('PERM_AUTOMOBILE_MANAGE')")
+    public ResponseEntity<?> importAutomobiles(HttpServletRequest request) throws IOException {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        String token = authHeader.substring(7);
+        String userId = jwtTokenProvider.getUserIdFromToken(token);
+        String username = jwtTokenProvider.getUsernameFromToken(token);
+        if (userId == null || username == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Erro ao processar token de autenticação");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+
+        boolean ndjson = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.APPLICATION_NDJSON);
+        AutomobileImportResultDTO result =
+                importService.importAutomobiles(request.getInputStream(), ndjson, userId, username);
+        return ResponseEntity.ok(result);
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasAuthority('PERM_AUTOMOBILE_MANAGE')")
     public ResponseEntity<AutomobileResponseDTO> update(@PathVariable String id, @Valid @RequestBody AutomobileCreateDTO updateDTO) {
@@ -3,14 +3,19 @@ package com.example.backend.controller;
 import com.example.backend.dto.CreditContractCreateDTO;
 import com.example.backend.dto.CreditContractResponseDTO;
 import com.example.backend.dto.CreditContractUpdateDTO;
+import com.example.backend.dto.ExportFormat;
 import com.example.backend.service.CreditContractService;
+import com.example.backend.service.StreamingExportService;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,9 +25,12 @@ import java.util.Map;
 public class CreditContractController {
 
     private final CreditContractService creditContractService;
+    private final StreamingExportService exportService;
 
-    public CreditContractController(CreditContractService creditContractService) {
+    public CreditContractController(CreditContractService creditContractService,
+                                    StreamingExportService exportService) {
         this.creditContractService = creditContractService;
+        this.exportService = exportService;
     }
 
     @PostMapping
@@ -45,11 +53,25 @@ public class CreditContractController {
     @GetMapping
     @PreAuthorize("hasRole('AGENT_BANK')")
     public ResponseEntity<List<CreditContractResponseDTO>> getAllCreditContracts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             Authentication authentication) {
         String bankAgentUsername = authentication.getName();
-        List<CreditContractResponseDTO> contracts = creditContractService
-                .getAllCreditContractsByBankAgent(bankAgentUsername);
-        return ResponseEntity.ok(contracts);
+        return creditContractService
+                .getCreditContractsPageByBankAgent(bankAgentUsername, cursor, size).toResponse();
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('AGENT_BANK')")
+    public ResponseEntity<StreamingResponseBody> exportCreditContracts(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            Authentication authentication) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        return exportFormat.toResponse("credit-contracts",
+                exportService.creditContracts(authentication.getName(), exportFormat, status, from, to));
     }
 
     @GetMapping("/{id}")
@@ -15,8 +15,10 @@ public class CustomerController {
     public CustomerController(CustomerService service) { this.service = service; }
 
     @GetMapping
-    public List<CustomerResponseDTO> all() {
-        return service.findAllAsDTO();
+    public ResponseEntity<List<CustomerResponseDTO>> all(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return service.findPageAsDTO(cursor, size).toResponse();
     }
 
     @GetMapping("/{id}")
@@ -1,19 +1,25 @@
 package com.example.backend.controller;
 
+import com.example.backend.dto.ExportFormat;
 import com.example.backend.dto.RentalRequestCreateDTO;
 import com.example.backend.dto.RentalRequestResponseDTO;
 import com.example.backend.dto.RentalRequestStatusUpdateDTO;
 import com.example.backend.dto.RentalRequestUpdateDTO;
+import com.example.backend.exception.AutomobileUnavailableException;
 import com.example.backend.security.JwtTokenProvider;
 import com.example.backend.service.RentalRequestService;
+import com.example.backend.service.StreamingExportService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,11 +30,14 @@ public class RentalRequestController {
 
     private final RentalRequestService rentalRequestService;
     private final JwtTokenProvider jwtTokenProvider;
+    private final StreamingExportService exportService;
 
     public RentalRequestController(RentalRequestService rentalRequestService,
-                                   JwtTokenProvider jwtTokenProvider) {
+                                   JwtTokenProvider jwtTokenProvider,
+                                   StreamingExportService exportService) {
         this.rentalRequestService = rentalRequestService;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.exportService = exportService;
     }
 
     // ==================== ENDPOINTS PARA CLIENTES ====================
@@ -43,9 +52,7 @@ public class RentalRequestController {
             RentalRequestResponseDTO response = rentalRequestService.createRequest(username, dto);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (IllegalArgumentException e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
+            return ResponseEntity.badRequest().body(errorBody(e));
         }
     }
 
@@ -71,11 +78,7 @@ public class RentalRequestController {
             }
 
             if (isAgent) {
-                List<RentalRequestResponseDTO> agentRequests =
-                        rentalRequestService.findRequestsForAgentAutomobiles(username);
-
-                boolean isOwner = agentRequests.stream()
-                        .anyMatch(req -> req.getId().equals(id));
+                boolean isOwner = rentalRequestService.isRequestOwnedByAgent(id, username);
 
                 if (!isOwner) {
                     return ResponseEntity.status(HttpStatus.FORBIDDEN).body(
@@ -93,11 +96,11 @@ public class RentalRequestController {
     @GetMapping("/my-requests")
     @PreAuthorize("hasRole('CUSTOMER')")
     public ResponseEntity<List<RentalRequestResponseDTO>> getMyRequests(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             Authentication authentication) {
         String username = authentication.getName();
-        List<RentalRequestResponseDTO> requests =
-                rentalRequestService.findRequestsByCustomer(username);
-        return ResponseEntity.ok(requests);
+        return rentalRequestService.findRequestsByCustomerPage(username, cursor, size).toResponse();
     }
 
     @PutMapping("/{id}")
@@ -112,9 +115,7 @@ public class RentalRequestController {
                     rentalRequestService.updateRequest(id, username, dto);
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
+            return ResponseEntity.badRequest().body(errorBody(e));
         }
     }
 
@@ -157,36 +158,44 @@ public class RentalRequestController {
     @GetMapping("/pending")
     @PreAuthorize("hasRole('AGENT_COMPANY') or hasRole('AGENT_BANK')")
     public ResponseEntity<List<RentalRequestResponseDTO>> getPendingRequests(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             Authentication authentication) {
         String username = authentication.getName();
-        List<RentalRequestResponseDTO> allRequests =
-                rentalRequestService.findRequestsForAgentAutomobiles(username);
-
-        List<RentalRequestResponseDTO> pendingRequests = allRequests.stream()
-                .filter(req -> req.getStatus().name().equals("PENDING"))
-                .toList();
-
-        return ResponseEntity.ok(pendingRequests);
+        return rentalRequestService.findPendingQueueForAgent(username, cursor, size).toResponse();
     }
 
     @GetMapping("/agent/my-automobiles")
     @PreAuthorize("hasRole('AGENT_COMPANY')")
     public ResponseEntity<List<RentalRequestResponseDTO>> getRequestsForMyAutomobiles(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             Authentication authentication) {
         String username = authentication.getName();
-        List<RentalRequestResponseDTO> requests =
-                rentalRequestService.findRequestsForAgentAutomobiles(username);
-        return ResponseEntity.ok(requests);
+        return rentalRequestService.findRequestsForAgentAutomobilesPage(username, cursor, size).toResponse();
     }
 
     @GetMapping("/all")
     @PreAuthorize("hasRole('AGENT_COMPANY') or hasRole('AGENT_BANK')")
     public ResponseEntity<List<RentalRequestResponseDTO>> getAllRequests(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             Authentication authentication) {
         String username = authentication.getName();
-        List<RentalRequestResponseDTO> requests =
-                rentalRequestService.findRequestsForAgentAutomobiles(username);
-        return ResponseEntity.ok(requests);
+        return rentalRequestService.findRequestsForAgentAutomobilesPage(username, cursor, size).toResponse();
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('AGENT_COMPANY') or hasRole('AGENT_BANK')")
+    public ResponseEntity<StreamingResponseBody> exportRequests(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            Authentication authentication) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        return exportFormat.toResponse("rental-requests",
+                exportService.rentalRequests(authentication.getName(), exportFormat, status, from, to));
     }
 
     @PutMapping("/{id}/status")
@@ -205,11 +214,7 @@ public class RentalRequestController {
             String agentUsername = jwtTokenProvider.getUsernameFromToken(token);
             String agentId = jwtTokenProvider.getUserIdFromToken(token);
 
-            List<RentalRequestResponseDTO> agentRequests =
-                    rentalRequestService.findRequestsForAgentAutomobiles(agentUsername);
-
-            boolean isOwner = agentRequests.stream()
-                    .anyMatch(req -> req.getId().equals(id));
+            boolean isOwner = rentalRequestService.isRequestOwnedByAgent(id, agentUsername);
 
             if (!isOwner) {
                 Map<String, String> error = new HashMap<>();
@@ -227,29 +232,25 @@ public class RentalRequestController {
         }
     }
 
+    // Inclui os períodos livres sugeridos quando o carro está ocupado
+    private Map<String, Object> errorBody(IllegalArgumentException e) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        if (e instanceof AutomobileUnavailableException unavailable) {
+            error.put("suggestedWindows", unavailable.getSuggestedWindows());
+        }
+        return error;
+    }
+
     @GetMapping("/statistics")
     @PreAuthorize("hasRole('AGENT_COMPANY') or hasRole('AGENT_BANK')")
     public ResponseEntity<Map<String, Object>> getStatistics(
+            @RequestParam(defaultValue = "fleet") String scope,
+            @RequestParam(required = false) String automobileId,
             Authentication authentication) {
         String username = authentication.getName();
-        List<RentalRequestResponseDTO> allRequests =
-                rentalRequestService.findRequestsForAgentAutomobiles(username);
-
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("total", allRequests.size());
-        stats.put("pending", allRequests.stream()
-                .filter(r -> r.getStatus().name().equals("PENDING")).count());
-        stats.put("approved", allRequests.stream()
-                .filter(r -> r.getStatus().name().equals("APPROVED")).count());
-        stats.put("rejected", allRequests.stream()
-                .filter(r -> r.getStatus().name().equals("REJECTED")).count());
-        stats.put("active", allRequests.stream()
-                .filter(r -> r.getStatus().name().equals("ACTIVE")).count());
-        stats.put("completed", allRequests.stream()
-                .filter(r -> r.getStatus().name().equals("COMPLETED")).count());
-        stats.put("cancelled", allRequests.stream()
-                .filter(r -> r.getStatus().name().equals("CANCELLED")).count());
-
+        Map<String, Object> stats = rentalRequestService.getStatistics(
+                username, !"all".equalsIgnoreCase(scope), automobileId);
         return ResponseEntity.ok(stats);
     }
 }
\ No newline at end of file
@@ -22,8 +22,16 @@ public class UserController {
     }
     
     @GetMapping
-    public List<UserResponseDTO> getAllUsers() {
-        return userService.findAll();
+    public ResponseEntity<List<UserResponseDTO>> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        if (page != null) {
+            // Paginação por offset mantida para clientes antigos
+            int pageSize = size == null ? 50 : Math.max(1, Math.min(size, 500));
+            return ResponseEntity.ok(userService.findPage(page, pageSize));
+        }
+        return userService.findKeysetPage(cursor, size).toResponse();
     }
     
     @GetMapping("/{id}")
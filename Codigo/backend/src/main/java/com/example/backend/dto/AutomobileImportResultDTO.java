@@ -0,0 +1,41 @@
+package com.example.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado da importação em lote de automóveis. Linhas com erro não impedem as demais;
+ * cada erro traz o número do registro no arquivo (a partir de 1, sem contar o cabeçalho do CSV).
+ */
+public class AutomobileImportResultDTO {
+
+    public static class RowError {
+        private final long row;
+        private final String message;
+
+        public RowError(long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public long getRow() { return row; }
+        public String getMessage() { return message; }
+    }
+
+    private long totalRows;
+    private long importedRows;
+    private long failedRows;
+    // Limitada por app.automobile-import.max-reported-errors; failedRows traz o total
+    private final List<RowError> errors = new ArrayList<>();
+
+    public long getTotalRows() { return totalRows; }
+    public void setTotalRows(long totalRows) { this.totalRows = totalRows; }
+
+    public long getImportedRows() { return importedRows; }
+    public void setImportedRows(long importedRows) { this.importedRows = importedRows; }
+
+    public long getFailedRows() { return failedRows; }
+    public void setFailedRows(long failedRows) { this.failedRows = failedRows; }
+
+    public List<RowError> getErrors() { return errors; }
+}
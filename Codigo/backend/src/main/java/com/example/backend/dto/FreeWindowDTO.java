@@ -0,0 +1,21 @@
+package com.example.backend.dto;
+
+import java.time.LocalDate;
+
+public class FreeWindowDTO {
+    private LocalDate pickupDate;
+    private LocalDate returnDate;
+
+    public FreeWindowDTO() {}
+
+    public FreeWindowDTO(LocalDate pickupDate, LocalDate returnDate) {
+        this.pickupDate = pickupDate;
+        this.returnDate = returnDate;
+    }
+
+    public LocalDate getPickupDate() { return pickupDate; }
+    public void setPickupDate(LocalDate pickupDate) { this.pickupDate = pickupDate; }
+
+    public LocalDate getReturnDate() { return returnDate; }
+    public void setReturnDate(LocalDate returnDate) { this.returnDate = returnDate; }
+}
@@ -4,6 +4,7 @@ import com.example.backend.model.enums.UserRole;
 
 public class LoginResponseDTO {
     private String token;
+    private String refreshToken;
     private String type = "Bearer";
     private String username;
     private String email;
@@ -23,6 +24,9 @@ public class LoginResponseDTO {
     public String getToken() { return token; }
     public void setToken(String token) { this.token = token; }
 
+    public String getRefreshToken() { return refreshToken; }
+    public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+
     public String getType() { return type; }
     public void setType(String type) { this.type = type; }
 
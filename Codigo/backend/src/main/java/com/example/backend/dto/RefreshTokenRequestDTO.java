@@ -0,0 +1,17 @@
+package com.example.backend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public class RefreshTokenRequestDTO {
+    @NotBlank(message = "Refresh token é obrigatório")
+    private String refreshToken;
+
+    public RefreshTokenRequestDTO() {}
+
+    public RefreshTokenRequestDTO(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
+    public String getRefreshToken() { return refreshToken; }
+    public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+}
@@ -22,6 +22,39 @@ public class RentalRequestResponseDTO {
 
     public RentalRequestResponseDTO() {}
 
+    // Usado pelas projeções JPQL de RentalRequestRepository
+    public RentalRequestResponseDTO(String id, LocalDate pickupDate, LocalDate returnDate, RequestStatus status,
+                                    LocalDate createdAt, Double totalValue, Integer rentalDays, String observations,
+                                    String processedByAgentId, String processedByAgentUsername, LocalDate processedAt,
+                                    String customerId, String customerUsername, String customerEmail,
+                                    String automobileId, String automobileBrand, String automobileModel,
+                                    int automobileYear, Double automobileDailyRate) {
+        this.id = id;
+        this.pickupDate = pickupDate;
+        this.returnDate = returnDate;
+        this.status = status;
+        this.statusDescription = status.getDescription();
+        this.createdAt = createdAt;
+        this.totalValue = totalValue;
+        this.rentalDays = rentalDays;
+        this.observations = observations;
+        this.processedByAgentId = processedByAgentId;
+        this.processedByAgentUsername = processedByAgentUsername;
+        this.processedAt = processedAt;
+
+        this.customer = new CustomerSummaryDTO();
+        this.customer.setId(customerId);
+        this.customer.setUsername(customerUsername);
+        this.customer.setEmail(customerEmail);
+
+        this.automobile = new AutomobileSummaryDTO();
+        this.automobile.setId(automobileId);
+        this.automobile.setBrand(automobileBrand);
+        this.automobile.setModel(automobileModel);
+        this.automobile.setYear(automobileYear);
+        this.automobile.setDailyRate(automobileDailyRate);
+    }
+
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
 
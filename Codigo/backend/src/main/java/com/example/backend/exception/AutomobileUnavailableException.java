@@ -0,0 +1,22 @@
+package com.example.backend.exception;
+
+import com.example.backend.dto.FreeWindowDTO;
+
+import java.util.List;
+
+/**
+ * Automóvel ocupado no período pedido. Carrega os próximos períodos livres sugeridos ao cliente.
+ */
+public class AutomobileUnavailableException extends IllegalArgumentException {
+
+    private final List<FreeWindowDTO> suggestedWindows;
+
+    public AutomobileUnavailableException(String message, List<FreeWindowDTO> suggestedWindows) {
+        super(message);
+        this.suggestedWindows = suggestedWindows;
+    }
+
+    public List<FreeWindowDTO> getSuggestedWindows() {
+        return suggestedWindows;
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.backend.model;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 
 @Entity
+@Table(name = "agent", indexes = @Index(name = "idx_agent_created", columnList = "created_at, id"))
 public class Agent extends User {
 
     private String corporateReason;
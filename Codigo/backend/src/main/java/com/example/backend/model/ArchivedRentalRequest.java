@@ -0,0 +1,91 @@
+package com.example.backend.model;
+
+import com.example.backend.model.enums.RequestStatus;
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JdbcType;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Pedido encerrado movido de rental_request pelo job de arquivamento. A tabela é particionada
+ * por mês de created_at e só é lida pelo histórico do cliente; as linhas nunca mudam.
+ */
+@Entity
+@Immutable
+@Table(name = "rental_request_archive",
+        indexes = {
+                @Index(name = "idx_rental_request_archive_customer_created", columnList = "customer_id, created_at, id"),
+                @Index(name = "idx_rental_request_archive_automobile", columnList = "automobile_id")
+        })
+public class ArchivedRentalRequest {
+
+    @Id
+    @JdbcType(UuidStringJdbcType.class)
+    private String id;
+
+    @Column(name = "pickup_date", nullable = false)
+    private LocalDate pickupDate;
+
+    @Column(name = "return_date", nullable = false)
+    private LocalDate returnDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RequestStatus status;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDate createdAt;
+
+    @Column(name = "total_value")
+    private Double totalValue;
+
+    @Column(name = "rental_days")
+    private Integer rentalDays;
+
+    @Column(length = 1000)
+    private String observations;
+
+    @Column(name = "processed_by_agent_id")
+    @JdbcType(UuidStringJdbcType.class)
+    private String processedByAgentId;
+
+    @Column(name = "processed_by_agent_username")
+    private String processedByAgentUsername;
+
+    @Column(name = "processed_at")
+    private LocalDate processedAt;
+
+    @Column(name = "rejection_reason", length = 500)
+    private String rejectionReason;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id", nullable = false)
+    private Customer customer;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "automobile_id", nullable = false)
+    private Automobile automobile;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+
+    protected ArchivedRentalRequest() {
+    }
+
+    public String getId() { return id; }
+    public LocalDate getPickupDate() { return pickupDate; }
+    public LocalDate getReturnDate() { return returnDate; }
+    public RequestStatus getStatus() { return status; }
+    public LocalDate getCreatedAt() { return createdAt; }
+    public Double getTotalValue() { return totalValue; }
+    public Integer getRentalDays() { return rentalDays; }
+    public String getObservations() { return observations; }
+    public String getProcessedByAgentId() { return processedByAgentId; }
+    public String getProcessedByAgentUsername() { return processedByAgentUsername; }
+    public LocalDate getProcessedAt() { return processedAt; }
+    public String getRejectionReason() { return rejectionReason; }
+    public Customer getCustomer() { return customer; }
+    public Automobile getAutomobile() { return automobile; }
+    public Instant getArchivedAt() { return archivedAt; }
+}
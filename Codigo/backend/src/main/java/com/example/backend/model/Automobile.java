@@ -1,14 +1,24 @@
 package com.example.backend.model;
 
+import com.example.backend.model.enums.UserRole;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.JdbcType;
 import java.time.LocalDate;
 import java.util.List;
 
 @Entity
+@Table(name = "automobile",
+        indexes = {
+                @Index(name = "idx_automobile_created_by_agent_username", columnList = "created_by_agent_username"),
+                @Index(name = "idx_automobile_created_by_agent_id", columnList = "created_by_agent_id"),
+                @Index(name = "idx_automobile_created", columnList = "created_at, id")
+        })
 public class Automobile {
     @Id
+    @JdbcType(UuidStringJdbcType.class)
     private String id;
 
     private String registration;
@@ -24,29 +34,43 @@ public class Automobile {
 
     private String licensePlate;
 
+    // Indica apenas se o carro está alugado agora (pedido ACTIVE); reservas futuras são checadas por período
     private boolean available;
 
     @Min(0)
     private Double dailyRate;
 
-    @Column(name = "created_at")
+    @Column(name = "created_at", nullable = false)
     private LocalDate createdAt;
 
     // NOVOS CAMPOS PARA RASTREAMENTO
     @Column(name = "created_by_agent_id")
+    @JdbcType(UuidStringJdbcType.class)
     private String createdByAgentId;
 
     @Column(name = "created_by_agent_username")
     private String createdByAgentUsername;
 
+    // Papel do dono gravado na criação, para decidir a checagem de crédito sem buscar o usuário
+    @Enumerated(EnumType.STRING)
+    @Column(name = "created_by_agent_role")
+    private UserRole createdByAgentRole;
+
     @OneToMany(mappedBy = "automobile", cascade = CascadeType.ALL)
     private List<RentalRequest> rentalRequests;
 
+    // Controle de concorrência otimista; linhas antigas recebem 0
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     public Automobile() {}
 
     public boolean checkAvailability(LocalDate start, LocalDate end) {
-        if (!available) return false;
-        return true;
+        if (rentalRequests == null) return true;
+        return rentalRequests.stream()
+                .noneMatch(r -> r.getStatus().holdsBooking() && r.overlaps(start, end));
     }
 
     public double calculatePeriodValue(int days) {
@@ -73,12 +97,30 @@ public class Automobile {
     public void setDailyRate(Double dailyRate) { this.dailyRate = dailyRate; }
     public LocalDate getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDate createdAt) { this.createdAt = createdAt; }
+
+    // Sem data de criação a linha some da paginação por chave (createdAt, id)
+    @PrePersist
+    protected void defaultCreatedAt() {
+        if (createdAt == null) {
+            createdAt = LocalDate.now();
+        }
+    }
+
     public List<RentalRequest> getRentalRequests() { return rentalRequests; }
     public void setRentalRequests(List<RentalRequest> rentalRequests) { this.rentalRequests = rentalRequests; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     // NOVOS GETTERS E SETTERS
     public String getCreatedByAgentId() { return createdByAgentId; }
     public void setCreatedByAgentId(String createdByAgentId) { this.createdByAgentId = createdByAgentId; }
     public String getCreatedByAgentUsername() { return createdByAgentUsername; }
     public void setCreatedByAgentUsername(String createdByAgentUsername) { this.createdByAgentUsername = createdByAgentUsername; }
+    public UserRole getCreatedByAgentRole() { return createdByAgentRole; }
+    public void setCreatedByAgentRole(UserRole createdByAgentRole) { this.createdByAgentRole = createdByAgentRole; }
+
+    public boolean isOwnedByBankAgent() {
+        return createdByAgentId != null && createdByAgentRole == UserRole.AGENT_BANK;
+    }
 }
\ No newline at end of file
@@ -2,8 +2,11 @@ package com.example.backend.model;
 
 import com.example.backend.model.enums.UserRole;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 
 @Entity
+@Table(name = "bank", indexes = @Index(name = "idx_bank_created", columnList = "created_at, id"))
 public class Bank extends User {
     private String bankCode;
 
@@ -0,0 +1,41 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcType;
+import java.time.Instant;
+
+/**
+ * Saldo disponível de um contrato consolidado até o lançamento {@code lastEntryId}.
+ */
+@Entity
+@Table(name = "credit_balance_snapshot")
+public class CreditBalanceSnapshot {
+
+    @Id
+    @Column(name = "contract_id")
+    @JdbcType(UuidStringJdbcType.class)
+    private String contractId;
+
+    @Column(name = "available_limit", nullable = false)
+    private Double availableLimit;
+
+    @Column(name = "last_entry_id", nullable = false)
+    private Long lastEntryId;
+
+    @Column(name = "taken_at", nullable = false)
+    private Instant takenAt;
+
+    public CreditBalanceSnapshot() {}
+
+    public String getContractId() { return contractId; }
+    public void setContractId(String contractId) { this.contractId = contractId; }
+
+    public Double getAvailableLimit() { return availableLimit; }
+    public void setAvailableLimit(Double availableLimit) { this.availableLimit = availableLimit; }
+
+    public Long getLastEntryId() { return lastEntryId; }
+    public void setLastEntryId(Long lastEntryId) { this.lastEntryId = lastEntryId; }
+
+    public Instant getTakenAt() { return takenAt; }
+    public void setTakenAt(Instant takenAt) { this.takenAt = takenAt; }
+}
@@ -1,12 +1,18 @@
 package com.example.backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.JdbcType;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "credit_contract")
+@Table(name = "credit_contract",
+        indexes = {
+                @Index(name = "idx_credit_contract_bank_agent_created", columnList = "bank_agent_id, created_at, id")
+        })
 public class CreditContract {
     @Id
+    @JdbcType(UuidStringJdbcType.class)
     private String id;
 
     @ManyToOne
@@ -20,10 +26,11 @@ public class CreditContract {
     @Column(name = "credit_limit", nullable = false)
     private Double creditLimit;
 
-    @Column(name = "available_limit", nullable = false)
+    // Espelho do saldo do livro de crédito, gravado só na criação e pelo snapshot
+    @Column(name = "available_limit", nullable = false, updatable = false)
     private Double availableLimit;
 
-    @Column(name = "created_at")
+    @Column(name = "created_at", nullable = false)
     private LocalDate createdAt;
 
     @Column(name = "updated_at")
@@ -32,6 +39,12 @@ public class CreditContract {
     @Column(name = "status")
     private String status; // ACTIVE, INACTIVE, SUSPENDED
 
+    // Controle de concorrência otimista; linhas antigas recebem 0
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     public CreditContract() {
         this.status = "ACTIVE";
         this.createdAt = LocalDate.now();
@@ -132,4 +145,12 @@ public class CreditContract {
         this.status = status;
         this.updatedAt = LocalDate.now();
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
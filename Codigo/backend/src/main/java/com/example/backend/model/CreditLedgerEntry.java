@@ -0,0 +1,67 @@
+package com.example.backend.model;
+
+import com.example.backend.model.enums.LedgerEntryType;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcType;
+import java.time.Instant;
+
+/**
+ * Lançamento imutável do livro de crédito. {@code delta} é o efeito com sinal sobre o
+ * limite disponível; o saldo de um contrato é o último snapshot mais os lançamentos seguintes.
+ */
+@Entity
+@Table(name = "credit_ledger_entry",
+        indexes = {
+                @Index(name = "idx_credit_ledger_entry_contract", columnList = "contract_id, id"),
+                @Index(name = "idx_credit_ledger_entry_request", columnList = "rental_request_id, entry_type")
+        })
+public class CreditLedgerEntry {
+
+    // Um nextval por lançamento, tirado sob a trava do contrato: dentro de um contrato a ordem
+    // dos ids é a ordem de commit, que é o que o snapshot (id > last_entry_id) pressupõe
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "credit_ledger_entry_seq")
+    @SequenceGenerator(name = "credit_ledger_entry_seq", sequenceName = "credit_ledger_entry_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "contract_id", nullable = false, updatable = false)
+    @JdbcType(UuidStringJdbcType.class)
+    private String contractId;
+
+    @Column(name = "rental_request_id", updatable = false)
+    @JdbcType(UuidStringJdbcType.class)
+    private String rentalRequestId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, updatable = false, length = 16)
+    private LedgerEntryType type;
+
+    @Column(nullable = false, updatable = false)
+    private Double amount;
+
+    @Column(nullable = false, updatable = false)
+    private Double delta;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    public CreditLedgerEntry() {}
+
+    public CreditLedgerEntry(String contractId, String rentalRequestId, LedgerEntryType type,
+                             Double amount, Double delta) {
+        this.contractId = contractId;
+        this.rentalRequestId = rentalRequestId;
+        this.type = type;
+        this.amount = amount;
+        this.delta = delta;
+        this.createdAt = Instant.now();
+    }
+
+    public Long getId() { return id; }
+    public String getContractId() { return contractId; }
+    public String getRentalRequestId() { return rentalRequestId; }
+    public LedgerEntryType getType() { return type; }
+    public Double getAmount() { return amount; }
+    public Double getDelta() { return delta; }
+    public Instant getCreatedAt() { return createdAt; }
+}
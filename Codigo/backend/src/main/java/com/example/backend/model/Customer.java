@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 import java.util.List;
 
 @Entity
+@Table(name = "customer", indexes = @Index(name = "idx_customer_created", columnList = "created_at, id"))
 public class Customer extends User {
 
     // Removidos: rg, cpf, address, profession, emailContact
@@ -2,11 +2,13 @@ package com.example.backend.model;
 
 import com.example.backend.model.enums.IncomeType;
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcType;
 import java.time.LocalDate;
 
 @Entity
 public class Income {
     @Id
+    @JdbcType(UuidStringJdbcType.class)
     private String id;
 
     @Column(name = "income_value")
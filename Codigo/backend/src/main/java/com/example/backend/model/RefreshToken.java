@@ -0,0 +1,83 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcType;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Registro compacto de refresh token. Apenas o hash SHA-256 do token é armazenado;
+ * tokens emitidos a partir do mesmo login compartilham a mesma família.
+ */
+@Entity
+@Table(name = "refresh_token",
+        indexes = {
+                @Index(name = "idx_refresh_token_family", columnList = "family_id"),
+                @Index(name = "idx_refresh_token_expires", columnList = "expires_at"),
+                @Index(name = "idx_refresh_token_user", columnList = "user_id")
+        })
+public class RefreshToken implements Persistable<String> {
+
+    @Id
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    @Column(name = "user_id", nullable = false)
+    @JdbcType(UuidStringJdbcType.class)
+    private String userId;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    // Marcado quando o token é trocado por um novo ou a família é revogada
+    @Column(nullable = false)
+    private boolean revoked;
+
+    // O id (hash) vem preenchido e não há @Version: sem isto o save() faria merge, com um SELECT antes do INSERT
+    @Transient
+    private boolean newToken = true;
+
+    public RefreshToken() {}
+
+    public RefreshToken(String tokenHash, String familyId, String userId, Instant expiresAt) {
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt.isBefore(now);
+    }
+
+    @Override
+    public String getId() { return tokenHash; }
+
+    @Override
+    public boolean isNew() { return newToken; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newToken = false;
+    }
+
+    public String getTokenHash() { return tokenHash; }
+    public void setTokenHash(String tokenHash) { this.tokenHash = tokenHash; }
+
+    public String getFamilyId() { return familyId; }
+    public void setFamilyId(String familyId) { this.familyId = familyId; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+
+    public boolean isRevoked() { return revoked; }
+    public void setRevoked(boolean revoked) { this.revoked = revoked; }
+}
@@ -1,11 +1,13 @@
 package com.example.backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcType;
 import java.time.LocalDate;
 
 @Entity
 public class RentalContract {
     @Id
+    @JdbcType(UuidStringJdbcType.class)
     private String id;
 
     private LocalDate startDate;
@@ -3,14 +3,23 @@ package com.example.backend.model;
 import com.example.backend.model.enums.RequestStatus;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.JdbcType;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 
 @Entity
-@Table(name = "rental_request")
+@Table(name = "rental_request",
+        indexes = {
+                @Index(name = "idx_rental_request_automobile_period", columnList = "automobile_id, pickup_date, return_date"),
+                @Index(name = "idx_rental_request_customer_created", columnList = "customer_id, created_at, id"),
+                @Index(name = "idx_rental_request_created", columnList = "created_at, id"),
+                @Index(name = "idx_rental_request_status_automobile_created", columnList = "status, automobile_id, created_at, id")
+        })
 public class RentalRequest {
 
     @Id
+    @JdbcType(UuidStringJdbcType.class)
     private String id;
 
     @NotNull
@@ -25,7 +34,7 @@ public class RentalRequest {
     @Column(nullable = false)
     private RequestStatus status;
 
-    @Column(name = "created_at")
+    @Column(name = "created_at", nullable = false)
     private LocalDate createdAt;
 
     @Column(name = "total_value")
@@ -38,6 +47,7 @@ public class RentalRequest {
     private String observations;
 
     @Column(name = "processed_by_agent_id")
+    @JdbcType(UuidStringJdbcType.class)
     private String processedByAgentId;
 
     @Column(name = "processed_by_agent_username")
@@ -57,6 +67,12 @@ public class RentalRequest {
     @JoinColumn(name = "automobile_id", nullable = false)
     private Automobile automobile;
 
+    // Controle de concorrência otimista; linhas antigas recebem 0
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     public RentalRequest() {
         this.status = RequestStatus.PENDING;
         this.createdAt = LocalDate.now();
@@ -90,6 +106,13 @@ public class RentalRequest {
         return true;
     }
 
+    /**
+     * Verifica se o período [pickupDate, returnDate) intersecta [start, end).
+     */
+    public boolean overlaps(LocalDate start, LocalDate end) {
+        return pickupDate.isBefore(end) && returnDate.isAfter(start);
+    }
+
     public boolean canBeModified() {
         return status != null && status.canBeModified();
     }
@@ -99,6 +122,9 @@ public class RentalRequest {
     }
 
     // GETTERS E SETTERS
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
 
@@ -0,0 +1,56 @@
+package com.example.backend.model;
+
+import com.example.backend.model.enums.RevocationType;
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Revogação persistida de access tokens. Para TOKEN, subject é o jti;
+ * para USER, subject é o id do usuário e cutoff é o instante de corte.
+ * A linha deixa de ser necessária após expiresAt.
+ */
+@Entity
+@Table(name = "token_revocation",
+        indexes = @Index(name = "idx_token_revocation_expires", columnList = "expires_at"))
+public class TokenRevocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RevocationType type;
+
+    @Column(nullable = false, length = 64)
+    private String subject;
+
+    private Instant cutoff;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public TokenRevocation() {}
+
+    public TokenRevocation(RevocationType type, String subject, Instant cutoff, Instant expiresAt) {
+        this.type = type;
+        this.subject = subject;
+        this.cutoff = cutoff;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public RevocationType getType() { return type; }
+    public void setType(RevocationType type) { this.type = type; }
+
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+
+    public Instant getCutoff() { return cutoff; }
+    public void setCutoff(Instant cutoff) { this.cutoff = cutoff; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+}
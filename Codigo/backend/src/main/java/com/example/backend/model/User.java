@@ -2,15 +2,18 @@ package com.example.backend.model;
 
 import com.example.backend.model.enums.UserRole;
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcType;
 import java.time.LocalDate;
 
 @MappedSuperclass
 public abstract class User {
     @Id
+    @JdbcType(UuidStringJdbcType.class)
     private String id;
     private String username;
     private String password;
     private String email;
+    @Column(nullable = false)
     private LocalDate createdAt;
 
     @Enumerated(EnumType.STRING)
@@ -32,6 +35,14 @@ public abstract class User {
     public LocalDate getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDate createdAt) { this.createdAt = createdAt; }
 
+    // Sem data de criação a linha some da paginação por chave (createdAt, id)
+    @PrePersist
+    protected void defaultCreatedAt() {
+        if (createdAt == null) {
+            createdAt = LocalDate.now();
+        }
+    }
+
     public UserRole getRole() { return role; }
     public void setRole(UserRole role) { this.role = role; }
 
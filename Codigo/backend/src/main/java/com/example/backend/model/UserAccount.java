@@ -0,0 +1,72 @@
+package com.example.backend.model;
+
+import com.example.backend.model.enums.UserRole;
+import com.example.backend.model.enums.UserType;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcType;
+import java.time.LocalDate;
+
+/**
+ * Visão em tabela única (app_user) de toda a hierarquia de usuários.
+ * A coluna user_type funciona como discriminador e indica a tabela de perfil
+ * (customer, agent ou bank) onde estão os dados específicos do tipo.
+ * É uma tabela espelho para índices e buscas: a senha continua apenas na tabela de perfil,
+ * que segue sendo a fonte da autenticação.
+ */
+@Entity
+@Table(name = "app_user",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_app_user_username", columnNames = "username"),
+                @UniqueConstraint(name = "uk_app_user_email", columnNames = "email")
+        },
+        indexes = {
+                @Index(name = "idx_app_user_type_created", columnList = "user_type, created_at, id"),
+                @Index(name = "idx_app_user_created", columnList = "created_at, id")
+        })
+public class UserAccount {
+
+    @Id
+    @JdbcType(UuidStringJdbcType.class)
+    private String id;
+
+    private String username;
+
+    private String email;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "user_type", nullable = false, length = 31)
+    private UserType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "user_role", nullable = false)
+    private UserRole role;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDate createdAt;
+
+    public UserAccount() {}
+
+    public static UserAccount from(User user, UserType type) {
+        UserAccount account = new UserAccount();
+        account.setId(user.getId());
+        account.setUsername(user.getUsername());
+        account.setEmail(user.getEmail());
+        account.setType(type);
+        account.setRole(user.getRole() != null ? user.getRole() : type.getRole());
+        account.setCreatedAt(user.getCreatedAt());
+        return account;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    public UserType getType() { return type; }
+    public void setType(UserType type) { this.type = type; }
+    public UserRole getRole() { return role; }
+    public void setRole(UserRole role) { this.role = role; }
+    public LocalDate getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDate createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,72 @@
+package com.example.backend.model;
+
+import org.hibernate.type.descriptor.ValueBinder;
+import org.hibernate.type.descriptor.ValueExtractor;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.JavaType;
+import org.hibernate.type.descriptor.jdbc.BasicBinder;
+import org.hibernate.type.descriptor.jdbc.BasicExtractor;
+import org.hibernate.type.descriptor.jdbc.UUIDJdbcType;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Grava atributos String em colunas uuid nativas (16 bytes), mantendo os ids como String no código.
+ * Um valor fora do formato UUID é enviado como o UUID nulo, que não corresponde a nenhuma linha:
+ * buscas por ids inválidos continuam retornando vazio, como acontecia com varchar.
+ */
+public class UuidStringJdbcType extends UUIDJdbcType {
+
+    private static final UUID NO_MATCH = new UUID(0L, 0L);
+
+    @Override
+    public <X> ValueBinder<X> getBinder(JavaType<X> javaType) {
+        return new BasicBinder<>(javaType, this) {
+            @Override
+            protected void doBind(PreparedStatement st, X value, int index, WrapperOptions options) throws SQLException {
+                st.setObject(index, toUuid(javaType.unwrap(value, String.class, options)));
+            }
+
+            @Override
+            protected void doBind(CallableStatement st, X value, String name, WrapperOptions options) throws SQLException {
+                st.setObject(name, toUuid(javaType.unwrap(value, String.class, options)));
+            }
+        };
+    }
+
+    @Override
+    public <X> ValueExtractor<X> getExtractor(JavaType<X> javaType) {
+        return new BasicExtractor<>(javaType, this) {
+            @Override
+            protected X doExtract(ResultSet rs, int paramIndex, WrapperOptions options) throws SQLException {
+                return wrap(rs.getObject(paramIndex, UUID.class), options);
+            }
+
+            @Override
+            protected X doExtract(CallableStatement statement, int index, WrapperOptions options) throws SQLException {
+                return wrap(statement.getObject(index, UUID.class), options);
+            }
+
+            @Override
+            protected X doExtract(CallableStatement statement, String name, WrapperOptions options) throws SQLException {
+                return wrap(statement.getObject(name, UUID.class), options);
+            }
+
+            private X wrap(UUID value, WrapperOptions options) {
+                return javaType.wrap(value == null ? null : value.toString(), options);
+            }
+        };
+    }
+
+    private static UUID toUuid(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return NO_MATCH;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.backend.model.enums;
+
+public enum LedgerEntryType {
+    HOLD,          // reserva de limite na aprovação do pedido
+    CAPTURE,       // pedido concluído: encerra a reserva e devolve o limite
+    RELEASE,       // pedido rejeitado/cancelado: desfaz a reserva
+    LIMIT_CHANGE   // abertura do contrato ou alteração do limite total
+}
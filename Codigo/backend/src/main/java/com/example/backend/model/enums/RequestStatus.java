@@ -1,5 +1,7 @@
 package com.example.backend.model.enums;
 
+import java.util.List;
+
 public enum RequestStatus {
     PENDING("Pendente"),
     UNDER_ANALYSIS("Em Análise"),
@@ -9,6 +11,9 @@ public enum RequestStatus {
     ACTIVE("Ativo"),
     COMPLETED("Concluído");
 
+    // Status que ocupam o automóvel no período do pedido
+    public static final List<RequestStatus> BOOKING_STATUSES = List.of(PENDING, UNDER_ANALYSIS, APPROVED, ACTIVE);
+
     private final String description;
 
     RequestStatus(String description) {
@@ -30,4 +35,8 @@ public enum RequestStatus {
     public boolean canBeCancelled() {
         return this == PENDING || this == UNDER_ANALYSIS || this == APPROVED;
     }
+
+    public boolean holdsBooking() {
+        return BOOKING_STATUSES.contains(this);
+    }
 }
\ No newline at end of file
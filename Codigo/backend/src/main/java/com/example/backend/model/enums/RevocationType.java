@@ -0,0 +1,6 @@
+package com.example.backend.model.enums;
+
+public enum RevocationType {
+    TOKEN,  // um único access token (jti)
+    USER    // todos os tokens do usuário emitidos até o instante de corte
+}
@@ -0,0 +1,21 @@
+package com.example.backend.model.enums;
+
+/**
+ * Tipo concreto de usuário, indicando em qual tabela/repositório ele está persistido.
+ */
+public enum UserType {
+    CUSTOMER(UserRole.CUSTOMER),
+    COMPANY_AGENT(UserRole.AGENT_COMPANY),
+    BANK_AGENT(UserRole.AGENT_BANK),
+    BANK(UserRole.AGENT_BANK);
+
+    private final UserRole role;
+
+    UserType(UserRole role) {
+        this.role = role;
+    }
+
+    public UserRole getRole() {
+        return role;
+    }
+}
@@ -1,6 +1,30 @@
 package com.example.backend.repository;
 
 import com.example.backend.model.Agent;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface AgentRepository extends JpaRepository<Agent, String> {}
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AgentRepository extends JpaRepository<Agent, String> {
+
+    // Paginação por chave (createdAt, id); devolve agentes de empresa e de banco
+    @Query("SELECT u FROM Agent u ORDER BY u.createdAt ASC, u.id ASC")
+    List<Agent> findPage(Pageable pageable);
+
+    @Query("SELECT u FROM Agent u WHERE (u.createdAt > :createdAt OR (u.createdAt = :createdAt AND u.id > :id)) " +
+            "ORDER BY u.createdAt ASC, u.id ASC")
+    List<Agent> findPageAfter(@Param("createdAt") LocalDate createdAt, @Param("id") String id, Pageable pageable);
+
+    // Troca condicional: só grava se o hash ainda for o verificado no login
+    @Modifying
+    @Transactional
+    @Query("UPDATE Agent u SET u.password = :newHash WHERE u.id = :id AND u.password = :expectedHash")
+    int updatePasswordIfUnchanged(@Param("id") String id, @Param("expectedHash") String expectedHash,
+                                  @Param("newHash") String newHash);
+}
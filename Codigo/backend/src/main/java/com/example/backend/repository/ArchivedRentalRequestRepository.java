@@ -0,0 +1,97 @@
+package com.example.backend.repository;
+
+import com.example.backend.dto.RentalRequestResponseDTO;
+import com.example.backend.model.ArchivedRentalRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ArchivedRentalRequestRepository extends JpaRepository<ArchivedRentalRequest, String> {
+
+    // Mesma projeção de RentalRequestRepository.RESPONSE_VIEW, sobre o arquivo
+    String RESPONSE_VIEW = "SELECT new com.example.backend.dto.RentalRequestResponseDTO(" +
+            "r.id, r.pickupDate, r.returnDate, r.status, r.createdAt, r.totalValue, r.rentalDays, r.observations, " +
+            "r.processedByAgentId, r.processedByAgentUsername, r.processedAt, " +
+            "c.id, c.username, c.email, a.id, a.brand, a.model, a.year, a.dailyRate) " +
+            "FROM ArchivedRentalRequest r JOIN r.customer c JOIN r.automobile a ";
+
+    @Query(RESPONSE_VIEW + "WHERE r.id = :id")
+    Optional<RentalRequestResponseDTO> findViewById(@Param("id") String id);
+
+    @Query(RESPONSE_VIEW + "WHERE c.username = :username ORDER BY r.createdAt DESC, r.id DESC")
+    List<RentalRequestResponseDTO> findViewsByCustomerUsername(@Param("username") String username);
+
+    @Query(RESPONSE_VIEW + "WHERE c.username = :username ORDER BY r.createdAt DESC, r.id DESC")
+    List<RentalRequestResponseDTO> findPageByCustomerUsername(@Param("username") String username, Pageable pageable);
+
+    @Query(RESPONSE_VIEW + "WHERE c.username = :username " +
+            "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<RentalRequestResponseDTO> findPageByCustomerUsernameAfter(@Param("username") String username,
+                                                                   @Param("createdAt") LocalDate createdAt,
+                                                                   @Param("id") String id,
+                                                                   Pageable pageable);
+
+    @Query(RESPONSE_VIEW + "WHERE a.createdByAgentUsername = :agentUsername ORDER BY r.createdAt DESC, r.id DESC")
+    List<RentalRequestResponseDTO> findViewsForAgentAutomobiles(@Param("agentUsername") String agentUsername);
+
+    @Query(RESPONSE_VIEW + "WHERE a.createdByAgentUsername = :agentUsername ORDER BY r.createdAt DESC, r.id DESC")
+    List<RentalRequestResponseDTO> findPageForAgentAutomobiles(@Param("agentUsername") String agentUsername,
+                                                               Pageable pageable);
+
+    @Query(RESPONSE_VIEW + "WHERE a.createdByAgentUsername = :agentUsername " +
+            "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<RentalRequestResponseDTO> findPageForAgentAutomobilesAfter(@Param("agentUsername") String agentUsername,
+                                                                    @Param("createdAt") LocalDate createdAt,
+                                                                    @Param("id") String id,
+                                                                    Pageable pageable);
+
+    @Query("SELECT COUNT(r) > 0 FROM ArchivedRentalRequest r WHERE r.id = :requestId AND r.automobile.createdByAgentUsername = :agentUsername")
+    boolean existsByIdAndAutomobileOwner(@Param("requestId") String requestId,
+                                         @Param("agentUsername") String agentUsername);
+
+    @Query("SELECT a.id, a.createdByAgentUsername, r.status, COUNT(r) FROM ArchivedRentalRequest r JOIN r.automobile a " +
+            "GROUP BY a.id, a.createdByAgentUsername, r.status")
+    List<Object[]> countByAutomobileAndStatus();
+
+    @Query("SELECT a.id, a.createdByAgentUsername, r.status, COUNT(r) FROM ArchivedRentalRequest r JOIN r.automobile a " +
+            "WHERE r.customer.id = :customerId GROUP BY a.id, a.createdByAgentUsername, r.status")
+    List<Object[]> countByAutomobileAndStatusForCustomer(@Param("customerId") String customerId);
+
+    // O arquivo não tem chaves estrangeiras; as exclusões de cliente e automóvel limpam o histórico aqui
+    @Modifying
+    @Query("DELETE FROM ArchivedRentalRequest r WHERE r.automobile.id = :automobileId")
+    int deleteByAutomobileId(@Param("automobileId") String automobileId);
+
+    @Modifying
+    @Query("DELETE FROM ArchivedRentalRequest r WHERE r.customer.id = :customerId")
+    int deleteByCustomerId(@Param("customerId") String customerId);
+
+    /**
+     * Move para o arquivo os pedidos informados, já travados pela transação corrente
+     * (ver {@code RentalRequestArchiveService}).
+     */
+    @Modifying
+    @Query(value = "WITH moved AS (" +
+            "DELETE FROM rental_request r WHERE r.id IN (:ids) " +
+            "RETURNING r.*) " +
+            "INSERT INTO rental_request_archive (id, customer_id, automobile_id, pickup_date, return_date, status, " +
+            "created_at, total_value, rental_days, observations, processed_by_agent_id, processed_by_agent_username, " +
+            "processed_at, rejection_reason, archived_at) " +
+            "SELECT id, customer_id, automobile_id, pickup_date, return_date, status, created_at, total_value, " +
+            "rental_days, observations, processed_by_agent_id, processed_by_agent_username, processed_at, " +
+            "rejection_reason, now() FROM moved",
+            nativeQuery = true)
+    int moveBatch(@Param("ids") Collection<UUID> ids);
+}
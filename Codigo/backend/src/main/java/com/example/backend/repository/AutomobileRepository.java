@@ -1,10 +1,41 @@
 package com.example.backend.repository;
 
 import com.example.backend.model.Automobile;
+import com.example.backend.model.enums.RequestStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface AutomobileRepository extends JpaRepository<Automobile, String> {
     List<Automobile> findByCreatedByAgentUsername(String username);
+
+    // Paginação por chave (createdAt, id)
+    @Query("SELECT a FROM Automobile a ORDER BY a.createdAt ASC, a.id ASC")
+    List<Automobile> findPage(Pageable pageable);
+
+    @Query("SELECT a FROM Automobile a WHERE (a.createdAt > :createdAt OR (a.createdAt = :createdAt AND a.id > :id)) ORDER BY a.createdAt ASC, a.id ASC")
+    List<Automobile> findPageAfter(@Param("createdAt") LocalDate createdAt, @Param("id") String id, Pageable pageable);
+
+    // Fallback da busca por período quando ele sai do horizonte do índice em memória
+    @Query("SELECT a FROM Automobile a WHERE NOT EXISTS (SELECT 1 FROM RentalRequest r WHERE r.automobile = a " +
+            "AND r.status IN :statuses AND r.pickupDate < :returnDate AND r.returnDate > :pickupDate)")
+    List<Automobile> findFreeBetween(@Param("pickupDate") LocalDate pickupDate,
+                                     @Param("returnDate") LocalDate returnDate,
+                                     @Param("statuses") Collection<RequestStatus> statuses);
+
+    // Incrementa a versão do automóvel no commit: duas reservas simultâneas do mesmo carro
+    // não podem ambas confirmar, sem bloquear a linha durante a transação
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT a FROM Automobile a WHERE a.id = :id")
+    Optional<Automobile> findByIdForBooking(@Param("id") String id);
+
+    boolean existsByIdAndCreatedByAgentUsername(String id, String createdByAgentUsername);
 }
\ No newline at end of file
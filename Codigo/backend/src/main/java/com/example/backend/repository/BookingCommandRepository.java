@@ -0,0 +1,156 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.enums.RequestStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Criação de pedido em um único comando (CTE do Postgres): busca o cliente, trava o automóvel,
+ * checa sobreposição de período e saldo de crédito no livro, insere o pedido e só então
+ * incrementa a versão do automóvel. O resultado traz o motivo quando nada foi inserido. Sob concorrência, quem garante que duas
+ * reservas do mesmo período não entrem juntas é a exclusion constraint de rental_request.
+ *
+ * <p>O CTE {@code credit} é só uma checagem prévia e não lança HOLD: como no fluxo JPA, o crédito
+ * é reservado na aprovação ({@code CreditContractService.reserveCredit}). Reservar aqui exigiria a
+ * trava do contrato em um comando anterior, porque em READ COMMITTED o saldo lido no mesmo comando
+ * seria o de antes da espera pela trava.
+ */
+@Repository
+public class BookingCommandRepository {
+
+    private static final String BOOKING_STATUSES = RequestStatus.BOOKING_STATUSES.stream()
+            .map(status -> "'" + status.name() + "'")
+            .collect(Collectors.joining(", "));
+
+    private static final String CREATE_BOOKING =
+            "WITH cust AS ("
+                    + " SELECT id, email FROM customer WHERE username = :customerUsername"
+                    + "), auto AS ("
+                    + " SELECT id, brand, model, car_year, daily_rate,"
+                    + " created_by_agent_id, created_by_agent_username, created_by_agent_role"
+                    + " FROM automobile WHERE id = :automobileId FOR NO KEY UPDATE"
+                    + "), calc AS ("
+                    + " SELECT auto.*, COALESCE(auto.daily_rate, 0) * CAST(:days AS integer) AS total_value FROM auto"
+                    + "), overlap AS ("
+                    + " SELECT EXISTS (SELECT 1 FROM rental_request r WHERE r.automobile_id = :automobileId"
+                    + " AND r.status IN (" + BOOKING_STATUSES + ")"
+                    + " AND r.pickup_date < :returnDate AND r.return_date > :pickupDate) AS taken"
+                    + "), credit AS ("
+                    + " SELECT (calc.created_by_agent_id IS NULL OR calc.created_by_agent_role IS DISTINCT FROM 'AGENT_BANK'"
+                    + " OR EXISTS (SELECT 1 FROM credit_contract c"
+                    + " LEFT JOIN credit_balance_snapshot s ON s.contract_id = c.id"
+                    + " WHERE c.customer_id = (SELECT id FROM cust) AND c.bank_agent_id = calc.created_by_agent_id"
+                    + " AND c.status = 'ACTIVE'"
+                    + " AND COALESCE(s.available_limit, 0) + COALESCE((SELECT SUM(e.delta) FROM credit_ledger_entry e"
+                    + " WHERE e.contract_id = c.id AND e.id > COALESCE(s.last_entry_id, 0)), 0) >= calc.total_value"
+                    + ")) AS ok FROM calc"
+                    + "), ins AS ("
+                    + " INSERT INTO rental_request (id, customer_id, automobile_id, pickup_date, return_date, status,"
+                    + " created_at, total_value, rental_days, observations, version)"
+                    + " SELECT :id, cust.id, calc.id, :pickupDate, :returnDate, 'PENDING', :createdAt,"
+                    + " calc.total_value, :days, :observations, 0"
+                    + " FROM cust, calc, overlap, credit WHERE NOT overlap.taken AND credit.ok"
+                    + " RETURNING id, created_at"
+                    + "), bump AS ("
+                    + " UPDATE automobile SET version = version + 1"
+                    + " WHERE id = :automobileId AND EXISTS (SELECT 1 FROM ins)"
+                    + ")"
+                    + " SELECT cust.id AS customer_id, cust.email AS customer_email,"
+                    + " calc.id AS automobile_id, calc.brand, calc.model, calc.car_year, calc.daily_rate,"
+                    + " calc.created_by_agent_id, calc.created_by_agent_username, calc.created_by_agent_role,"
+                    + " calc.total_value, overlap.taken, credit.ok AS credit_ok, (SELECT id FROM ins) AS inserted_id,"
+                    + " (SELECT created_at FROM ins) AS inserted_created_at"
+                    + " FROM overlap LEFT JOIN cust ON TRUE LEFT JOIN calc ON TRUE LEFT JOIN credit ON TRUE";
+
+    public static final class Result {
+        private String customerId;
+        private String customerEmail;
+        private String automobileId;
+        private String brand;
+        private String model;
+        private int year;
+        private Double dailyRate;
+        private String ownerId;
+        private String ownerUsername;
+        private String ownerRole;
+        private Double totalValue;
+        private boolean overlapping;
+        private boolean creditOk;
+        private String insertedId;
+        private LocalDate createdAt;
+
+        public boolean isInserted() { return insertedId != null; }
+        public String getCustomerId() { return customerId; }
+        public String getCustomerEmail() { return customerEmail; }
+        public String getAutomobileId() { return automobileId; }
+        public String getBrand() { return brand; }
+        public String getModel() { return model; }
+        public int getYear() { return year; }
+        public Double getDailyRate() { return dailyRate; }
+        public String getOwnerId() { return ownerId; }
+        public String getOwnerUsername() { return ownerUsername; }
+        public String getOwnerRole() { return ownerRole; }
+        public Double getTotalValue() { return totalValue; }
+        public boolean isOverlapping() { return overlapping; }
+        public boolean isCreditOk() { return creditOk; }
+        public String getInsertedId() { return insertedId; }
+        public LocalDate getCreatedAt() { return createdAt; }
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public BookingCommandRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Result createBooking(String id, String customerUsername, String automobileId,
+                                LocalDate pickupDate, LocalDate returnDate, String observations) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", uuid(id))
+                .addValue("customerUsername", customerUsername)
+                .addValue("automobileId", uuid(automobileId))
+                .addValue("pickupDate", pickupDate)
+                .addValue("returnDate", returnDate)
+                .addValue("days", Math.max(0, (int) ChronoUnit.DAYS.between(pickupDate, returnDate)))
+                .addValue("createdAt", LocalDate.now())
+                .addValue("observations", observations);
+        return jdbcTemplate.queryForObject(CREATE_BOOKING, params, (rs, rowNum) -> map(rs));
+    }
+
+    // Ids são uuid no banco; um valor fora do formato vira o UUID nulo e não encontra nada
+    private static UUID uuid(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return new UUID(0L, 0L);
+        }
+    }
+
+    private static Result map(ResultSet rs) throws SQLException {
+        Result result = new Result();
+        result.customerId = rs.getString("customer_id");
+        result.customerEmail = rs.getString("customer_email");
+        result.automobileId = rs.getString("automobile_id");
+        result.brand = rs.getString("brand");
+        result.model = rs.getString("model");
+        result.year = rs.getInt("car_year");
+        result.dailyRate = rs.getObject("daily_rate", Double.class);
+        result.ownerId = rs.getString("created_by_agent_id");
+        result.ownerUsername = rs.getString("created_by_agent_username");
+        result.ownerRole = rs.getString("created_by_agent_role");
+        result.totalValue = rs.getObject("total_value", Double.class);
+        result.overlapping = rs.getBoolean("taken");
+        result.creditOk = rs.getBoolean("credit_ok");
+        result.insertedId = rs.getString("inserted_id");
+        result.createdAt = rs.getObject("inserted_created_at", LocalDate.class);
+        return result;
+    }
+}
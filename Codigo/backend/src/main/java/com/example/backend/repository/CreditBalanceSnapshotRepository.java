@@ -0,0 +1,47 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.CreditBalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CreditBalanceSnapshotRepository extends JpaRepository<CreditBalanceSnapshot, String> {
+
+    // Consolida a cauda de todos os contratos até :upTo em um único INSERT ... SELECT
+    @Modifying
+    @Query(value = "INSERT INTO credit_balance_snapshot (contract_id, available_limit, last_entry_id, taken_at) " +
+            "SELECT e.contract_id, COALESCE(MAX(s.available_limit), 0) + SUM(e.delta), MAX(e.id), :now " +
+            "FROM credit_ledger_entry e LEFT JOIN credit_balance_snapshot s ON s.contract_id = e.contract_id " +
+            "WHERE e.id > COALESCE(s.last_entry_id, 0) AND e.id <= :upTo " +
+            "GROUP BY e.contract_id " +
+            "ON CONFLICT (contract_id) DO UPDATE SET available_limit = EXCLUDED.available_limit, " +
+            "last_entry_id = EXCLUDED.last_entry_id, taken_at = EXCLUDED.taken_at",
+            nativeQuery = true)
+    int rollForward(@Param("upTo") Long upTo, @Param("now") Instant now);
+
+    // Espelha os snapshots recém-gerados na coluna available_limit do contrato (apenas leitura/relatórios).
+    // Não mexe em version: o espelho não deve derrubar edições concorrentes do contrato
+    @Modifying
+    @Query(value = "UPDATE credit_contract c SET available_limit = s.available_limit " +
+            "FROM credit_balance_snapshot s WHERE s.contract_id = c.id AND s.taken_at = :now " +
+            "AND c.available_limit <> s.available_limit",
+            nativeQuery = true)
+    int mirrorToContracts(@Param("now") Instant now);
+
+    @Query("SELECT s.contractId FROM CreditBalanceSnapshot s ORDER BY s.contractId")
+    List<String> findAllContractIds();
+
+    // Para cada snapshot: saldo gravado e soma do livro até o mesmo lançamento
+    @Query("SELECT s.contractId, s.availableLimit, s.lastEntryId, " +
+            "(SELECT COALESCE(SUM(e.delta), 0) FROM CreditLedgerEntry e " +
+            "WHERE e.contractId = s.contractId AND e.id <= s.lastEntryId) " +
+            "FROM CreditBalanceSnapshot s WHERE s.contractId IN :contractIds")
+    List<Object[]> findWithLedgerSums(@Param("contractIds") Collection<String> contractIds);
+}
@@ -1,11 +1,13 @@
 package com.example.backend.repository;
 
 import com.example.backend.model.CreditContract;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +24,12 @@ public interface CreditContractRepository extends JpaRepository<CreditContract,
     Optional<CreditContract> findByCustomerUsernameAndBankAgentUsername(@Param("customerUsername") String customerUsername,
                                                                         @Param("bankAgentUsername") String bankAgentUsername);
 
+    // Apenas o id do contrato ativo; o saldo vem do livro de crédito
+    @Query("SELECT c.id FROM CreditContract c WHERE c.customer.id = :customerId AND c.bankAgent.id = :bankAgentId " +
+            "AND c.status = 'ACTIVE'")
+    Optional<String> findActiveContractId(@Param("customerId") String customerId,
+                                          @Param("bankAgentId") String bankAgentId);
+
     // Lista todos os contratos de crédito gerenciados por um banco
     @Query("SELECT c FROM CreditContract c WHERE c.bankAgent.id = :bankAgentId ORDER BY c.updatedAt DESC")
     List<CreditContract> findAllByBankAgentId(@Param("bankAgentId") String bankAgentId);
@@ -30,6 +38,19 @@ public interface CreditContractRepository extends JpaRepository<CreditContract,
     @Query("SELECT c FROM CreditContract c WHERE c.bankAgent.username = :bankAgentUsername ORDER BY c.updatedAt DESC")
     List<CreditContract> findAllByBankAgentUsername(@Param("bankAgentUsername") String bankAgentUsername);
 
+    // Paginação por chave (createdAt, id), mais recentes primeiro
+    @Query("SELECT c FROM CreditContract c WHERE c.bankAgent.username = :bankAgentUsername " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<CreditContract> findPageByBankAgentUsername(@Param("bankAgentUsername") String bankAgentUsername,
+                                                     Pageable pageable);
+
+    @Query("SELECT c FROM CreditContract c WHERE c.bankAgent.username = :bankAgentUsername " +
+            "AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id)) ORDER BY c.createdAt DESC, c.id DESC")
+    List<CreditContract> findPageByBankAgentUsernameAfter(@Param("bankAgentUsername") String bankAgentUsername,
+                                                          @Param("createdAt") LocalDate createdAt,
+                                                          @Param("id") String id,
+                                                          Pageable pageable);
+
     // Lista todos os contratos de crédito de um cliente
     @Query("SELECT c FROM CreditContract c WHERE c.customer.id = :customerId ORDER BY c.updatedAt DESC")
     List<CreditContract> findAllByCustomerId(@Param("customerId") String customerId);
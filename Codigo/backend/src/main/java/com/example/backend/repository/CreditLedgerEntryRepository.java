@@ -0,0 +1,44 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.CreditLedgerEntry;
+import com.example.backend.model.enums.LedgerEntryType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CreditLedgerEntryRepository extends JpaRepository<CreditLedgerEntry, Long> {
+
+    // Última reserva do pedido; um pedido pode ter várias ao longo do tempo (ex.: aprovado, rejeitado, reaprovado)
+    Optional<CreditLedgerEntry> findFirstByRentalRequestIdAndTypeOrderByIdDesc(String rentalRequestId, LedgerEntryType type);
+
+    // Reservas ainda abertas do pedido: HOLDs menos encerramentos (CAPTURE/RELEASE)
+    @Query("SELECT COALESCE(SUM(CASE WHEN e.type = com.example.backend.model.enums.LedgerEntryType.HOLD THEN 1 ELSE -1 END), 0) " +
+            "FROM CreditLedgerEntry e WHERE e.rentalRequestId = :rentalRequestId " +
+            "AND e.type <> com.example.backend.model.enums.LedgerEntryType.LIMIT_CHANGE")
+    long countOpenHolds(@Param("rentalRequestId") String rentalRequestId);
+
+    // Cauda do livro após o snapshot (faixa do índice contract_id, id)
+    @Query("SELECT COALESCE(SUM(e.delta), 0) FROM CreditLedgerEntry e WHERE e.contractId = :contractId AND e.id > :afterId")
+    Double sumAfter(@Param("contractId") String contractId, @Param("afterId") Long afterId);
+
+    @Query("SELECT e.contractId, SUM(e.delta) FROM CreditLedgerEntry e " +
+            "LEFT JOIN CreditBalanceSnapshot s ON s.contractId = e.contractId " +
+            "WHERE e.contractId IN :contractIds AND e.id > COALESCE(s.lastEntryId, 0) GROUP BY e.contractId")
+    List<Object[]> sumTails(@Param("contractIds") Collection<String> contractIds);
+
+    // Maior lançamento já seguramente confirmado (criado antes do corte)
+    @Query("SELECT MAX(e.id) FROM CreditLedgerEntry e WHERE e.createdAt < :cutoff")
+    Long findMaxIdCreatedBefore(@Param("cutoff") Instant cutoff);
+
+    // Contratos anteriores ao livro, ainda sem lançamento de abertura
+    @Query("SELECT c.id, c.availableLimit FROM CreditContract c " +
+            "WHERE NOT EXISTS (SELECT 1 FROM CreditLedgerEntry e WHERE e.contractId = c.id)")
+    List<Object[]> findContractsWithoutEntries();
+}
@@ -1,8 +1,15 @@
 package com.example.backend.repository;
 
 import com.example.backend.model.Customer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 public interface CustomerRepository extends JpaRepository<Customer, String> {
@@ -10,4 +17,19 @@ public interface CustomerRepository extends JpaRepository<Customer, String> {
     Optional<Customer> findByUsername(String username);
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
+
+    // Paginação por chave (createdAt, id)
+    @Query("SELECT u FROM Customer u ORDER BY u.createdAt ASC, u.id ASC")
+    List<Customer> findPage(Pageable pageable);
+
+    @Query("SELECT u FROM Customer u WHERE (u.createdAt > :createdAt OR (u.createdAt = :createdAt AND u.id > :id)) " +
+            "ORDER BY u.createdAt ASC, u.id ASC")
+    List<Customer> findPageAfter(@Param("createdAt") LocalDate createdAt, @Param("id") String id, Pageable pageable);
+
+    // Troca condicional: só grava se o hash ainda for o verificado no login
+    @Modifying
+    @Transactional
+    @Query("UPDATE Customer u SET u.password = :newHash WHERE u.id = :id AND u.password = :expectedHash")
+    int updatePasswordIfUnchanged(@Param("id") String id, @Param("expectedHash") String expectedHash,
+                                  @Param("newHash") String newHash);
 }
@@ -1,12 +1,16 @@
 package com.example.backend.repository;
 
+import com.example.backend.dto.RentalRequestResponseDTO;
 import com.example.backend.model.RentalRequest;
 import com.example.backend.model.enums.RequestStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -23,6 +27,65 @@ public interface RentalRequestRepository extends JpaRepository<RentalRequest, St
     @Query("SELECT r FROM RentalRequest r WHERE r.customer.username = :username ORDER BY r.createdAt DESC")
     List<RentalRequest> findByCustomerUsername(@Param("username") String username);
 
+    // Projeção direta para RentalRequestResponseDTO: uma consulta, sem entidades gerenciadas
+    String RESPONSE_VIEW = "SELECT new com.example.backend.dto.RentalRequestResponseDTO(" +
+            "r.id, r.pickupDate, r.returnDate, r.status, r.createdAt, r.totalValue, r.rentalDays, r.observations, " +
+            "r.processedByAgentId, r.processedByAgentUsername, r.processedAt, " +
+            "c.id, c.username, c.email, a.id, a.brand, a.model, a.year, a.dailyRate) " +
+            "FROM RentalRequest r JOIN r.customer c JOIN r.automobile a ";
+
+    @Query(RESPONSE_VIEW + "ORDER BY r.createdAt DESC, r.id DESC")
+    List<RentalRequestResponseDTO> findAllViews();
+
+    @Query(RESPONSE_VIEW + "WHERE r.status = :status ORDER BY r.createdAt DESC, r.id DESC")
+    List<RentalRequestResponseDTO> findViewsByStatus(@Param("status") RequestStatus status);
+
+    @Query(RESPONSE_VIEW + "WHERE c.username = :username ORDER BY r.createdAt DESC, r.id DESC")
+    List<RentalRequestResponseDTO> findViewsByCustomerUsername(@Param("username") String username);
+
+    @Query(RESPONSE_VIEW + "WHERE a.createdByAgentUsername = :agentUsername ORDER BY r.createdAt DESC, r.id DESC")
+    List<RentalRequestResponseDTO> findViewsForAgentAutomobiles(@Param("agentUsername") String agentUsername);
+
+    // Paginação por chave (createdAt, id), mais recentes primeiro
+    @Query(RESPONSE_VIEW + "WHERE c.username = :username ORDER BY r.createdAt DESC, r.id DESC")
+    List<RentalRequestResponseDTO> findPageByCustomerUsername(@Param("username") String username, Pageable pageable);
+
+    @Query(RESPONSE_VIEW + "WHERE c.username = :username " +
+            "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<RentalRequestResponseDTO> findPageByCustomerUsernameAfter(@Param("username") String username,
+                                                                   @Param("createdAt") LocalDate createdAt,
+                                                                   @Param("id") String id,
+                                                                   Pageable pageable);
+
+    @Query(RESPONSE_VIEW + "WHERE a.createdByAgentUsername = :agentUsername ORDER BY r.createdAt DESC, r.id DESC")
+    List<RentalRequestResponseDTO> findPageForAgentAutomobiles(@Param("agentUsername") String agentUsername,
+                                                               Pageable pageable);
+
+    @Query(RESPONSE_VIEW + "WHERE a.createdByAgentUsername = :agentUsername " +
+            "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<RentalRequestResponseDTO> findPageForAgentAutomobilesAfter(@Param("agentUsername") String agentUsername,
+                                                                    @Param("createdAt") LocalDate createdAt,
+                                                                    @Param("id") String id,
+                                                                    Pageable pageable);
+
+    // Fila de atendimento do agente por status, mais antigos primeiro
+    @Query(RESPONSE_VIEW + "WHERE a.createdByAgentUsername = :agentUsername AND r.status = :status " +
+            "ORDER BY r.createdAt ASC, r.id ASC")
+    List<RentalRequestResponseDTO> findQueueForAgent(@Param("agentUsername") String agentUsername,
+                                                     @Param("status") RequestStatus status,
+                                                     Pageable pageable);
+
+    @Query(RESPONSE_VIEW + "WHERE a.createdByAgentUsername = :agentUsername AND r.status = :status " +
+            "AND (r.createdAt > :createdAt OR (r.createdAt = :createdAt AND r.id > :id)) " +
+            "ORDER BY r.createdAt ASC, r.id ASC")
+    List<RentalRequestResponseDTO> findQueueForAgentAfter(@Param("agentUsername") String agentUsername,
+                                                          @Param("status") RequestStatus status,
+                                                          @Param("createdAt") LocalDate createdAt,
+                                                          @Param("id") String id,
+                                                          Pageable pageable);
+
     @Query("SELECT r FROM RentalRequest r WHERE r.processedByAgentId = :agentId ORDER BY r.processedAt DESC")
     List<RentalRequest> findByProcessedByAgentId(@Param("agentId") String agentId);
 
@@ -35,6 +98,54 @@ public interface RentalRequestRepository extends JpaRepository<RentalRequest, St
     @Query("SELECT r FROM RentalRequest r WHERE r.automobile.createdByAgentUsername = :agentUsername ORDER BY r.createdAt DESC")
     List<RentalRequest> findRequestsForAgentAutomobiles(@Param("agentUsername") String agentUsername);
 
+    @Query("SELECT COUNT(r) > 0 FROM RentalRequest r WHERE r.id = :requestId AND r.automobile.createdByAgentUsername = :agentUsername")
+    boolean existsByIdAndAutomobileOwner(@Param("requestId") String requestId,
+                                         @Param("agentUsername") String agentUsername);
+
     @Query("SELECT COUNT(r) > 0 FROM RentalRequest r WHERE r.automobile.id = :automobileId AND r.status IN ('APPROVED', 'ACTIVE')")
     boolean existsActiveRequestForAutomobile(@Param("automobileId") String automobileId);
+
+    boolean existsByAutomobileIdAndStatus(String automobileId, RequestStatus status);
+
+    // Intervalos semiabertos [pickupDate, returnDate): devolução e nova retirada no mesmo dia não conflitam
+    @Query("SELECT COUNT(r) > 0 FROM RentalRequest r WHERE r.automobile.id = :automobileId " +
+            "AND r.id <> :excludeId AND r.status IN :statuses " +
+            "AND r.pickupDate < :returnDate AND r.returnDate > :pickupDate")
+    boolean existsOverlappingBooking(@Param("automobileId") String automobileId,
+                                     @Param("pickupDate") LocalDate pickupDate,
+                                     @Param("returnDate") LocalDate returnDate,
+                                     @Param("excludeId") String excludeId,
+                                     @Param("statuses") Collection<RequestStatus> statuses);
+
+    @Query("SELECT r.automobile.id, r.pickupDate, r.returnDate FROM RentalRequest r " +
+            "WHERE r.status IN :statuses AND r.pickupDate < :to AND r.returnDate > :from")
+    List<Object[]> findBookingPeriods(@Param("from") LocalDate from,
+                                      @Param("to") LocalDate to,
+                                      @Param("statuses") Collection<RequestStatus> statuses);
+
+    // Reservas do cliente, para liberar o índice de disponibilidade quando ele é excluído
+    @Query("SELECT r.automobile.id, r.pickupDate, r.returnDate FROM RentalRequest r " +
+            "WHERE r.customer.id = :customerId AND r.status IN :statuses")
+    List<Object[]> findBookingPeriodsForCustomer(@Param("customerId") String customerId,
+                                                 @Param("statuses") Collection<RequestStatus> statuses);
+
+    @Query("SELECT r.pickupDate, r.returnDate FROM RentalRequest r WHERE r.automobile.id = :automobileId " +
+            "AND r.status IN :statuses AND r.returnDate > :from ORDER BY r.pickupDate")
+    List<Object[]> findBookingPeriodsForAutomobile(@Param("automobileId") String automobileId,
+                                                   @Param("from") LocalDate from,
+                                                   @Param("statuses") Collection<RequestStatus> statuses);
+
+    @Query("SELECT a.id, a.createdByAgentUsername, r.status, COUNT(r) FROM RentalRequest r JOIN r.automobile a " +
+            "GROUP BY a.id, a.createdByAgentUsername, r.status")
+    List<Object[]> countByAutomobileAndStatus();
+
+    @Query("SELECT a.id, a.createdByAgentUsername, r.status, COUNT(r) FROM RentalRequest r JOIN r.automobile a " +
+            "WHERE r.customer.id = :customerId GROUP BY a.id, a.createdByAgentUsername, r.status")
+    List<Object[]> countByAutomobileAndStatusForCustomer(@Param("customerId") String customerId);
+
+    default boolean existsOverlappingBooking(String automobileId, LocalDate pickupDate,
+                                             LocalDate returnDate, String excludeId) {
+        return existsOverlappingBooking(automobileId, pickupDate, returnDate,
+                excludeId != null ? excludeId : "", RequestStatus.BOOKING_STATUSES);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.UserAccount;
+import com.example.backend.model.enums.UserRole;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserAccountRepository extends JpaRepository<UserAccount, String> {
+    Optional<UserAccount> findByUsername(String username);
+    Optional<UserAccount> findByEmail(String email);
+    boolean existsByUsername(String username);
+    boolean existsByEmail(String email);
+    List<UserAccount> findByRole(UserRole role, Sort sort);
+    Slice<UserAccount> findAllBy(Pageable pageable);
+
+    // Paginação por chave (createdAt, id)
+    @Query("SELECT u FROM UserAccount u ORDER BY u.createdAt ASC, u.id ASC")
+    List<UserAccount> findPage(Pageable pageable);
+
+    @Query("SELECT u FROM UserAccount u WHERE (u.createdAt > :createdAt OR (u.createdAt = :createdAt AND u.id > :id)) " +
+            "ORDER BY u.createdAt ASC, u.id ASC")
+    List<UserAccount> findPageAfter(@Param("createdAt") LocalDate createdAt, @Param("id") String id, Pageable pageable);
+}
@@ -1,11 +1,15 @@
 package com.example.backend.security;
 
+import com.example.backend.model.enums.UserRole;
+import com.example.backend.service.TokenRevocationService;
 import com.example.backend.service.UserService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -24,6 +28,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // Quando ativo, o principal é montado a partir das claims (role, userId) sem acessar o banco
+    @Value("${app.jwt.stateless-auth:true}")
+    private boolean statelessAuth;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                     FilterChain filterChain) throws ServletException, IOException {
@@ -31,17 +42,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String requestPath = request.getRequestURI();
         
         // Pular filtro JWT para endpoints de autenticação
-        if (requestPath.startsWith("/api/auth/login") || requestPath.startsWith("/api/auth/register")) {
+        if (requestPath.startsWith("/api/auth/login") || requestPath.startsWith("/api/auth/register")
+                || requestPath.startsWith("/api/auth/refresh")) {
             filterChain.doFilter(request, response);
             return;
         }
         
         try {
             String jwt = getJwtFromRequest(request);
-            
-            if (jwt != null && jwtTokenProvider.validateToken(jwt)) {
-                String username = jwtTokenProvider.getUsernameFromToken(jwt);
-                UserDetails userDetails = userService.loadUserByUsername(username);
+            Claims claims = jwt != null ? jwtTokenProvider.parseValidClaims(jwt) : null;
+
+            if (claims != null && !tokenRevocationService.isRevoked(claims)) {
+                UserDetails userDetails = resolveUserDetails(claims);
                 
                 if (userDetails != null) {
                     UsernamePasswordAuthenticationToken authentication = 
@@ -57,6 +69,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails resolveUserDetails(Claims claims) {
+        String username = claims.getSubject();
+        String role = claims.get("role", String.class);
+        String userId = claims.get("userId", String.class);
+
+        if (statelessAuth && role != null && userId != null) {
+            return new UserPrincipal(userId, username, UserRole.valueOf(role));
+        }
+
+        // Tokens antigos (sem role/userId) ou modo stateless desligado: busca o usuário no banco
+        return userService.loadUserByUsername(username);
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
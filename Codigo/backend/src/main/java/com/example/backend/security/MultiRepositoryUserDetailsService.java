@@ -5,10 +5,7 @@ import com.example.backend.model.CompanyAgent;
 import com.example.backend.model.BankAgent;
 import com.example.backend.model.Bank;
 import com.example.backend.model.enums.UserRole;
-import com.example.backend.repository.CustomerRepository;
-import com.example.backend.repository.CompanyAgentRepository;
-import com.example.backend.repository.BankAgentRepository;
-import com.example.backend.repository.BankRepository;
+import com.example.backend.service.UserDirectory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -25,16 +22,7 @@ import java.util.List;
 public class MultiRepositoryUserDetailsService implements UserDetailsService {
 
     @Autowired
-    private CustomerRepository customerRepository;
-
-    @Autowired
-    private CompanyAgentRepository companyAgentRepository;
-
-    @Autowired
-    private BankAgentRepository bankAgentRepository;
-
-    @Autowired
-    private BankRepository bankRepository;
+    private UserDirectory userDirectory;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -52,20 +40,8 @@ public class MultiRepositoryUserDetailsService implements UserDetailsService {
     }
 
     private Object findUserByUsername(String username) {
-        // Tentar encontrar em cada repositório
-        var customer = customerRepository.findByUsername(username);
-        if (customer.isPresent()) return customer.get();
-
-        var companyAgent = companyAgentRepository.findByUsername(username);
-        if (companyAgent.isPresent()) return companyAgent.get();
-
-        var bankAgent = bankAgentRepository.findByUsername(username);
-        if (bankAgent.isPresent()) return bankAgent.get();
-
-        var bank = bankRepository.findByUsername(username);
-        if (bank.isPresent()) return bank.get();
-
-        throw new UsernameNotFoundException("Usuário não encontrado: " + username);
+        return userDirectory.loadByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado: " + username));
     }
 
     private String getUsername(Object user) {
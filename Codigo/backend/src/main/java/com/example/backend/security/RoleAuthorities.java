@@ -0,0 +1,52 @@
+package com.example.backend.security;
+
+import com.example.backend.model.enums.UserRole;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mapeamento fixo entre role e autoridades concedidas.
+ * As listas são montadas uma única vez e compartilhadas entre requisições.
+ */
+public final class RoleAuthorities {
+
+    private static final Map<UserRole, List<GrantedAuthority>> AUTHORITIES = new EnumMap<>(UserRole.class);
+
+    static {
+        AUTHORITIES.put(UserRole.CUSTOMER, List.of(
+                new SimpleGrantedAuthority("ROLE_CUSTOMER"),
+                new SimpleGrantedAuthority("PERM_CUSTOMER_READ"),
+                new SimpleGrantedAuthority("PERM_CUSTOMER_WRITE"),
+                new SimpleGrantedAuthority("PERM_RENTAL_REQUEST_CREATE"),
+                new SimpleGrantedAuthority("PERM_RENTAL_REQUEST_READ_OWN")
+        ));
+        AUTHORITIES.put(UserRole.AGENT_COMPANY, List.of(
+                new SimpleGrantedAuthority("ROLE_AGENT_COMPANY"),
+                new SimpleGrantedAuthority("PERM_AGENT_READ"),
+                new SimpleGrantedAuthority("PERM_AGENT_WRITE"),
+                new SimpleGrantedAuthority("PERM_RENTAL_REQUEST_READ_ALL"),
+                new SimpleGrantedAuthority("PERM_RENTAL_REQUEST_UPDATE"),
+                new SimpleGrantedAuthority("PERM_AUTOMOBILE_MANAGE")
+        ));
+        AUTHORITIES.put(UserRole.AGENT_BANK, List.of(
+                new SimpleGrantedAuthority("ROLE_AGENT_BANK"),
+                new SimpleGrantedAuthority("PERM_AGENT_READ"),
+                new SimpleGrantedAuthority("PERM_AGENT_WRITE"),
+                new SimpleGrantedAuthority("PERM_RENTAL_REQUEST_READ_ALL"),
+                new SimpleGrantedAuthority("PERM_RENTAL_REQUEST_UPDATE"),
+                new SimpleGrantedAuthority("PERM_CREDIT_CONTRACT_MANAGE"),
+                new SimpleGrantedAuthority("PERM_FINANCIAL_ANALYSIS"),
+                new SimpleGrantedAuthority("PERM_AUTOMOBILE_MANAGE")
+        ));
+    }
+
+    private RoleAuthorities() {}
+
+    public static List<GrantedAuthority> forRole(UserRole role) {
+        return AUTHORITIES.get(role);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.backend.security;
+
+import com.example.backend.model.enums.UserRole;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+
+/**
+ * Principal montado diretamente a partir das claims do JWT,
+ * sem consulta ao banco de dados.
+ */
+public class UserPrincipal implements UserDetails {
+
+    private final String id;
+    private final String username;
+    private final UserRole role;
+
+    public UserPrincipal(String id, String username, UserRole role) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+    }
+
+    public String getId() { return id; }
+
+    public UserRole getRole() { return role; }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return RoleAuthorities.forRole(role);
+    }
+
+    @Override
+    public String getPassword() { return null; }
+
+    @Override
+    public String getUsername() { return username; }
+
+    @Override
+    public boolean isAccountNonExpired() { return true; }
+
+    @Override
+    public boolean isAccountNonLocked() { return true; }
+
+    @Override
+    public boolean isCredentialsNonExpired() { return true; }
+
+    @Override
+    public boolean isEnabled() { return true; }
+}
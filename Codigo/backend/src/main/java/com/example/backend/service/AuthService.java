@@ -2,6 +2,7 @@ package com.example.backend.service;
 
 import com.example.backend.dto.LoginRequestDTO;
 import com.example.backend.dto.LoginResponseDTO;
+import com.example.backend.exception.InvalidRefreshTokenException;
 import com.example.backend.dto.UserCreateDTO;
 import com.example.backend.dto.UserResponseDTO;
 import com.example.backend.exception.UserAlreadyExistsException;
@@ -11,20 +12,23 @@ import com.example.backend.model.Customer;
 import com.example.backend.model.CompanyAgent;
 import com.example.backend.model.BankAgent;
 import com.example.backend.model.Bank;
+import com.example.backend.model.User;
 import com.example.backend.model.enums.UserRole;
+import com.example.backend.model.enums.UserType;
 import com.example.backend.repository.CustomerRepository;
 import com.example.backend.repository.CompanyAgentRepository;
 import com.example.backend.repository.BankAgentRepository;
 import com.example.backend.repository.BankRepository;
+import com.example.backend.repository.AgentRepository;
 import com.example.backend.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.UUID;
 
 @Service
 public class AuthService {
@@ -44,22 +48,38 @@ public class AuthService {
     private BankRepository bankRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private AgentRepository agentRepository;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
 
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     public LoginResponseDTO login(LoginRequestDTO loginRequest) {
         logger.info("Login attempt for username: {}", loginRequest.getUsername());
 
         Object user = findUserByUsernameOrEmail(loginRequest.getUsername());
 
         String storedPassword = getPassword(user);
-        if (!passwordEncoder.matches(loginRequest.getPassword(), storedPassword)) {
+        if (!passwordHashingService.matches(getUsername(user), loginRequest.getPassword(), storedPassword)) {
             logger.warn("Invalid password for user: {}", loginRequest.getUsername());
             throw new RuntimeException("Credenciais inválidas");
         }
 
+        if (passwordHashingService.needsRehash(storedPassword)) {
+            rehashPassword((User) user, loginRequest.getPassword(), storedPassword);
+        }
+
         String username = getUsername(user);
         String userId = getUserId(user);
         UserRole role = getRole(user);
@@ -69,15 +89,63 @@ public class AuthService {
         // CORREÇÃO: Garantir que o userId seja salvo no token
         String jwt = jwtTokenProvider.generateTokenForUser(username, userId, role);
 
-        return new LoginResponseDTO(
+        LoginResponseDTO response = new LoginResponseDTO(
                 jwt,
                 username,
                 getEmail(user),
                 role,
-                86400000L
+                jwtTokenProvider.getExpirationInMs()
+        );
+        response.setRefreshToken(refreshTokenService.issue(userId));
+        return response;
+    }
+
+    /**
+     * Emite um novo access token a partir de um refresh token, sem verificar a senha.
+     */
+    public LoginResponseDTO refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+
+        UserDirectory.Entry entry = userDirectory.findById(rotation.getUserId())
+                .orElseThrow(() -> {
+                    logger.warn("Refresh token for missing user: {}", rotation.getUserId());
+                    return new InvalidRefreshTokenException("Refresh token inválido");
+                });
+        UserRole role = entry.getType().getRole();
+
+        String jwt = jwtTokenProvider.generateTokenForUser(entry.getUsername(), entry.getId(), role);
+
+        LoginResponseDTO response = new LoginResponseDTO(
+                jwt,
+                entry.getUsername(),
+                entry.getEmail(),
+                role,
+                jwtTokenProvider.getExpirationInMs()
         );
+        response.setRefreshToken(rotation.getRefreshToken());
+        return response;
+    }
+
+    /**
+     * Encerra a sessão: revoga o access token atual e, se informado, a família do refresh token.
+     */
+    @Transactional
+    public void logout(String accessToken, String refreshToken) {
+        Claims claims = jwtTokenProvider.parseValidClaims(accessToken);
+        if (claims != null) {
+            tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration());
+            logger.info("Logout - Username: {}", claims.getSubject());
+        }
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            refreshTokenService.revokeFamilyOf(refreshToken);
+        }
     }
 
+    public String issueRefreshToken(String userId) {
+        return refreshTokenService.issue(userId);
+    }
+
+    @Transactional
     public UserResponseDTO register(UserCreateDTO userCreateDTO) {
         logger.info("Starting user registration for username: {}, email: {}, role: {}",
                 userCreateDTO.getUsername(), userCreateDTO.getEmail(), userCreateDTO.getRole());
@@ -119,17 +187,18 @@ public class AuthService {
 
         // Criar usuário
         Object user = createUserByRole(userCreateDTO);
-        String userId = UUID.randomUUID().toString();
+        String userId = IdGenerator.newId();
         setUserId(user, userId);
         setUsername(user, userCreateDTO.getUsername());
         setEmail(user, userCreateDTO.getEmail());
-        setPassword(user, passwordEncoder.encode(userCreateDTO.getPassword()));
+        setPassword(user, passwordHashingService.encode(userCreateDTO.getPassword()));
         setCreatedAt(user, LocalDate.now());
 
         logger.info("About to save user - ID: {}, Username: {}, Role: {}",
                 userId, userCreateDTO.getUsername(), userCreateDTO.getRole());
 
         Object savedUser = saveUser(user);
+        userDirectory.put((User) savedUser);
         logger.info("User saved successfully: {}", savedUser.getClass().getSimpleName());
 
         String savedUserId = getUserId(savedUser);
@@ -159,33 +228,11 @@ public class AuthService {
     private Object findUserByUsername(String username) {
         logger.debug("Searching for user by username: {}", username);
 
-        // Tentar encontrar em cada repositório
-        var customer = customerRepository.findByUsername(username);
-        if (customer.isPresent()) {
-            logger.debug("Found Customer with ID: {}", customer.get().getId());
-            return customer.get();
-        }
-
-        var companyAgent = companyAgentRepository.findByUsername(username);
-        if (companyAgent.isPresent()) {
-            logger.debug("Found CompanyAgent with ID: {}", companyAgent.get().getId());
-            return companyAgent.get();
-        }
-
-        var bankAgent = bankAgentRepository.findByUsername(username);
-        if (bankAgent.isPresent()) {
-            logger.debug("Found BankAgent with ID: {}", bankAgent.get().getId());
-            return bankAgent.get();
-        }
-
-        var bank = bankRepository.findByUsername(username);
-        if (bank.isPresent()) {
-            logger.debug("Found Bank with ID: {}", bank.get().getId());
-            return bank.get();
-        }
-
-        logger.error("User not found: {}", username);
-        throw new UserNotFoundException("Usuário não encontrado");
+        return userDirectory.loadByUsername(username)
+                .orElseThrow(() -> {
+                    logger.error("User not found: {}", username);
+                    return new UserNotFoundException("Usuário não encontrado");
+                });
     }
 
     private Object findUserByUsernameOrEmail(String identifier) {
@@ -208,32 +255,11 @@ public class AuthService {
     private Object findUserByEmail(String email) {
         logger.debug("Searching for user by email: {}", email);
 
-        var customer = customerRepository.findByEmail(email);
-        if (customer.isPresent()) {
-            logger.debug("Found Customer by email, ID: {}", customer.get().getId());
-            return customer.get();
-        }
-
-        var companyAgent = companyAgentRepository.findByEmail(email);
-        if (companyAgent.isPresent()) {
-            logger.debug("Found CompanyAgent by email, ID: {}", companyAgent.get().getId());
-            return companyAgent.get();
-        }
-
-        var bankAgent = bankAgentRepository.findByEmail(email);
-        if (bankAgent.isPresent()) {
-            logger.debug("Found BankAgent by email, ID: {}", bankAgent.get().getId());
-            return bankAgent.get();
-        }
-
-        var bank = bankRepository.findByEmail(email);
-        if (bank.isPresent()) {
-            logger.debug("Found Bank by email, ID: {}", bank.get().getId());
-            return bank.get();
-        }
-
-        logger.error("No user found with email: {}", email);
-        throw new UserNotFoundException("Usuário não encontrado com email: " + email);
+        return userDirectory.loadByEmail(email)
+                .orElseThrow(() -> {
+                    logger.error("No user found with email: {}", email);
+                    return new UserNotFoundException("Usuário não encontrado com email: " + email);
+                });
     }
 
     private Object createUserByRole(UserCreateDTO dto) {
@@ -293,18 +319,31 @@ public class AuthService {
         }
     }
 
+    // Atualiza o hash para o custo BCrypt configurado, sem atrasar a resposta do login.
+    // A gravação é condicional: uma troca de senha feita nesse meio tempo não é sobrescrita.
+    private void rehashPassword(User user, String rawPassword, String verifiedHash) {
+        String userId = user.getId();
+        UserType type = UserDirectory.typeOf(user);
+        passwordHashingService.rehashAsync(rawPassword, newHash -> {
+            int updated = switch (type) {
+                case CUSTOMER -> customerRepository.updatePasswordIfUnchanged(userId, verifiedHash, newHash);
+                case COMPANY_AGENT, BANK_AGENT -> agentRepository.updatePasswordIfUnchanged(userId, verifiedHash, newHash);
+                case BANK -> bankRepository.updatePasswordIfUnchanged(userId, verifiedHash, newHash);
+            };
+            if (updated > 0) {
+                logger.info("Password hash upgraded for user: {}", user.getUsername());
+            } else {
+                logger.info("Password hash upgrade skipped, password changed meanwhile: {}", user.getUsername());
+            }
+        });
+    }
+
     private boolean existsByUsername(String username) {
-        return customerRepository.existsByUsername(username) ||
-                companyAgentRepository.existsByUsername(username) ||
-                bankAgentRepository.existsByUsername(username) ||
-                bankRepository.existsByUsername(username);
+        return userDirectory.existsByUsername(username);
     }
 
     private boolean existsByEmail(String email) {
-        return customerRepository.existsByEmail(email) ||
-                companyAgentRepository.existsByEmail(email) ||
-                bankAgentRepository.existsByEmail(email) ||
-                bankRepository.existsByEmail(email);
+        return userDirectory.existsByEmail(email);
     }
 
     // Métodos auxiliares para acessar propriedades
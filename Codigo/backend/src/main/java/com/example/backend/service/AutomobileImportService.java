@@ -0,0 +1,448 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.AutomobileCreateDTO;
+import com.example.backend.dto.AutomobileImportResultDTO;
+import com.example.backend.model.Automobile;
+import com.example.backend.model.enums.UserRole;
+import com.example.backend.repository.AutomobileRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Importação em lote de automóveis a partir de CSV ou NDJSON, lida em streaming. Os registros
+ * são agrupados em lotes: cada lote é validado em paralelo e gravado numa transação com inserts
+ * em lote do Hibernate. Registros inválidos viram erros por linha sem interromper a importação;
+ * se a gravação de um lote falhar, ele é regravado registro a registro para isolar o culpado.
+ */
+@Service
+public class AutomobileImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutomobileImportService.class);
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("licenseplate", "brand", "model", "year", "dailyrate");
+
+    private static final class ImportRow {
+        final long row;
+        AutomobileCreateDTO dto;
+        String error;
+
+        ImportRow(long row) {
+            this.row = row;
+        }
+    }
+
+    // Registro acima do limite de tamanho; o restante dele já foi lido e descartado
+    static final class RecordTooLongException extends IOException {
+        RecordTooLongException(int maxLength) {
+            super("Registro maior que o limite de " + maxLength + " caracteres");
+        }
+    }
+
+    private interface RowSource {
+        /**
+         * Próximo registro do arquivo, ou null no fim.
+         */
+        ImportRow next() throws IOException;
+    }
+
+    private final AutomobileRepository repo;
+    private final AvailabilityIndex availabilityIndex;
+    private final UserDirectory userDirectory;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+    private final int maxRecordLength;
+    private final ExecutorService validationExecutor;
+    private final Counter importedCounter;
+    private final Counter failedCounter;
+
+    public AutomobileImportService(AutomobileRepository repo,
+                                   AvailabilityIndex availabilityIndex,
+                                   UserDirectory userDirectory,
+                                   Validator validator,
+                                   ObjectMapper objectMapper,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.automobile-import.chunk-size:500}") int chunkSize,
+                                   @Value("${app.automobile-import.validation-parallelism:0}") int validationParallelism,
+                                   @Value("${app.automobile-import.max-reported-errors:1000}") int maxReportedErrors,
+                                   @Value("${app.automobile-import.max-record-length:8192}") int maxRecordLength) {
+        this.repo = repo;
+        this.availabilityIndex = availabilityIndex;
+        this.userDirectory = userDirectory;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxReportedErrors = Math.max(0, maxReportedErrors);
+        this.maxRecordLength = Math.max(1, maxRecordLength);
+
+        int threads = validationParallelism > 0 ? validationParallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.validationExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "automobile-import-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.importedCounter = Counter.builder("automobile.import.rows").tag("result", "imported").register(meterRegistry);
+        this.failedCounter = Counter.builder("automobile.import.rows").tag("result", "failed").register(meterRegistry);
+    }
+
+    /**
+     * Importa os automóveis do corpo da requisição em nome do agente informado.
+     *
+     * @param ndjson true para um objeto JSON por linha; false para CSV com cabeçalho
+     */
+    public AutomobileImportResultDTO importAutomobiles(InputStream body, boolean ndjson,
+                                                      String agentId, String agentUsername) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        UserRole agentRole = userDirectory.findById(agentId).map(owner -> owner.getType().getRole()).orElse(null);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        RowSource source = ndjson ? ndjsonSource(reader) : csvSource(reader);
+
+        AutomobileImportResultDTO result = new AutomobileImportResultDTO();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        ImportRow row;
+        while ((row = source.next()) != null) {
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, agentId, agentUsername, agentRole, result);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, agentId, agentUsername, agentRole, result);
+        }
+
+        logger.info("Importação de automóveis do agente {}: {} registros, {} importados, {} com erro, em {} ms",
+                agentUsername, result.getTotalRows(), result.getImportedRows(), result.getFailedRows(),
+                System.currentTimeMillis() - startedAt);
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        validationExecutor.shutdownNow();
+    }
+
+    private void importChunk(List<ImportRow> chunk, String agentId, String agentUsername, UserRole agentRole,
+                             AutomobileImportResultDTO result) {
+        validate(chunk);
+
+        List<ImportRow> valid = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (row.error == null) {
+                valid.add(row);
+            } else {
+                fail(result, row.row, row.error);
+            }
+        }
+
+        List<Automobile> automobiles = valid.stream()
+                .map(row -> AutomobileService.newAutomobile(row.dto, agentId, agentUsername, agentRole))
+                .collect(Collectors.toList());
+        try {
+            save(automobiles);
+            imported(result, automobiles.size());
+        } catch (DataAccessException | TransactionException e) {
+            logger.warn("Falha ao gravar lote de {} automóveis; regravando um a um: {}",
+                    automobiles.size(), e.getMostSpecificCause().getMessage());
+            for (int i = 0; i < automobiles.size(); i++) {
+                // O persist que falhou já inicializou a versão; sem ela o registro volta a ser novo
+                automobiles.get(i).setVersion(null);
+                try {
+                    save(List.of(automobiles.get(i)));
+                    imported(result, 1);
+                } catch (DataAccessException | TransactionException rowFailure) {
+                    fail(result, valid.get(i).row, "Erro ao gravar: " + firstLine(rowFailure.getMostSpecificCause()));
+                }
+            }
+        }
+        result.setTotalRows(result.getTotalRows() + chunk.size());
+    }
+
+    // Validação de Bean Validation do lote, dividida entre as threads do pool
+    private void validate(List<ImportRow> chunk) {
+        List<Callable<Void>> tasks = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (row.error != null) {
+                continue;
+            }
+            tasks.add(() -> {
+                String violations = validator.validate(row.dto).stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+                if (!violations.isEmpty()) {
+                    row.error = violations;
+                }
+                return null;
+            });
+        }
+        try {
+            validationExecutor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Importação interrompida", e);
+        }
+    }
+
+    private void save(List<Automobile> automobiles) {
+        if (automobiles.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Automobile> saved = repo.saveAll(automobiles);
+            TransactionHooks.afterCommit(() -> saved.forEach(availabilityIndex::putAutomobile));
+        });
+    }
+
+    private void imported(AutomobileImportResultDTO result, int count) {
+        result.setImportedRows(result.getImportedRows() + count);
+        importedCounter.increment(count);
+    }
+
+    private void fail(AutomobileImportResultDTO result, long row, String message) {
+        result.setFailedRows(result.getFailedRows() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new AutomobileImportResultDTO.RowError(row, message));
+        }
+        failedCounter.increment();
+    }
+
+    private RowSource ndjsonSource(BufferedReader reader) {
+        long[] rowNumber = {0};
+        return () -> {
+            String line;
+            try {
+                do {
+                    line = readLine(reader, maxRecordLength);
+                } while (line != null && line.isBlank());
+            } catch (RecordTooLongException e) {
+                ImportRow row = new ImportRow(++rowNumber[0]);
+                row.error = e.getMessage();
+                return row;
+            }
+            if (line == null) {
+                return null;
+            }
+            ImportRow row = new ImportRow(++rowNumber[0]);
+            try {
+                row.dto = objectMapper.readValue(line, AutomobileCreateDTO.class);
+                if (row.dto == null) {
+                    row.error = "Registro vazio";
+                }
+            } catch (JsonProcessingException e) {
+                row.error = "JSON inválido: " + e.getOriginalMessage();
+            }
+            return row;
+        };
+    }
+
+    private RowSource csvSource(BufferedReader reader) throws IOException {
+        List<String> header;
+        try {
+            header = readCsvRecord(reader, maxRecordLength);
+        } catch (RecordTooLongException e) {
+            throw new IllegalArgumentException("Cabeçalho do CSV: " + e.getMessage());
+        }
+        if (header == null) {
+            return () -> null;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // Planilhas costumam gravar o BOM do UTF-8 no início do arquivo
+            String name = i == 0 ? header.get(i).replace("\uFEFF", "") : header.get(i);
+            columns.put(name.trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Cabeçalho do CSV sem a coluna obrigatória: " + required);
+            }
+        }
+
+        long[] rowNumber = {0};
+        return () -> {
+            List<String> fields;
+            try {
+                do {
+                    fields = readCsvRecord(reader, maxRecordLength);
+                } while (fields != null && fields.size() == 1 && fields.get(0).isBlank());
+            } catch (RecordTooLongException e) {
+                ImportRow row = new ImportRow(++rowNumber[0]);
+                row.error = e.getMessage();
+                return row;
+            }
+            if (fields == null) {
+                return null;
+            }
+            ImportRow row = new ImportRow(++rowNumber[0]);
+            AutomobileCreateDTO dto = new AutomobileCreateDTO();
+            dto.setLicensePlate(field(fields, columns, "licenseplate"));
+            dto.setBrand(field(fields, columns, "brand"));
+            dto.setModel(field(fields, columns, "model"));
+            dto.setRegistration(field(fields, columns, "registration"));
+            try {
+                String year = field(fields, columns, "year");
+                dto.setYear(year == null ? null : Integer.valueOf(year));
+                String dailyRate = field(fields, columns, "dailyrate");
+                dto.setDailyRate(dailyRate == null ? null : Double.valueOf(dailyRate));
+            } catch (NumberFormatException e) {
+                row.error = "Valor numérico inválido em year ou dailyRate";
+            }
+            row.dto = dto;
+            return row;
+        };
+    }
+
+    private static String firstLine(Throwable cause) {
+        String message = String.valueOf(cause.getMessage());
+        int newline = message.indexOf('\n');
+        return newline < 0 ? message : message.substring(0, newline);
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Lê uma linha NDJSON sem guardar mais que {@code maxLength} caracteres. Retorna null no fim do arquivo.
+     *
+     * @throws RecordTooLongException se a linha passar do limite (o restante dela é descartado)
+     */
+    static String readLine(BufferedReader reader, int maxLength) throws IOException {
+        StringBuilder line = new StringBuilder();
+        boolean tooLong = false;
+        boolean read = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (c == '\n') {
+                break;
+            }
+            if (tooLong) {
+                continue;
+            }
+            if (line.length() == maxLength) {
+                tooLong = true;
+                line.setLength(0);
+                continue;
+            }
+            line.append((char) c);
+        }
+        if (!read) {
+            return null;
+        }
+        if (tooLong) {
+            throw new RecordTooLongException(maxLength);
+        }
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            line.setLength(end - 1);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Lê um registro CSV (RFC 4180): campos entre aspas podem conter vírgulas, aspas duplicadas
+     * e quebras de linha. Retorna null no fim do arquivo.
+     *
+     * @throws RecordTooLongException se o registro passar de {@code maxLength} caracteres
+     *                                (o restante dele é lido e descartado)
+     */
+    static List<String> readCsvRecord(BufferedReader reader, int maxLength) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+        boolean tooLong = false;
+        int length = 0;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            char ch = (char) c;
+            if (!tooLong && ++length > maxLength) {
+                tooLong = true;
+                fields.clear();
+            }
+            if (tooLong) {
+                // Segue lendo só para achar o fim do registro, sem acumular
+                field.setLength(0);
+            }
+            if (quoted) {
+                if (ch != '"') {
+                    field.append(ch);
+                    continue;
+                }
+                reader.mark(1);
+                int next = reader.read();
+                if (next == '"') {
+                    field.append('"');
+                } else {
+                    quoted = false;
+                    if (next != -1) {
+                        reader.reset();
+                    }
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                if (!tooLong) {
+                    fields.add(field.toString());
+                }
+                field.setLength(0);
+            } else if (ch == '\n') {
+                if (tooLong) {
+                    throw new RecordTooLongException(maxLength);
+                }
+                fields.add(field.toString());
+                return fields;
+            } else if (ch != '\r') {
+                field.append(ch);
+            }
+        }
+        if (!read) {
+            return null;
+        }
+        if (tooLong) {
+            throw new RecordTooLongException(maxLength);
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
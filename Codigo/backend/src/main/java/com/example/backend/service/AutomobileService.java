@@ -2,15 +2,23 @@ package com.example.backend.service;
 
 import com.example.backend.dto.AutomobileCreateDTO;
 import com.example.backend.dto.AutomobileResponseDTO;
+import com.example.backend.dto.KeysetCursor;
+import com.example.backend.dto.KeysetPage;
 import com.example.backend.model.Automobile;
+import com.example.backend.model.enums.RequestStatus;
+import com.example.backend.model.enums.UserRole;
+import com.example.backend.repository.ArchivedRentalRequestRepository;
 import com.example.backend.repository.AutomobileRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,8 +26,22 @@ public class AutomobileService {
     private static final Logger logger = LoggerFactory.getLogger(AutomobileService.class);
 
     private final AutomobileRepository repo;
-
-    public AutomobileService(AutomobileRepository repo) { this.repo = repo; }
+    private final AvailabilityIndex availabilityIndex;
+    private final PageSizePolicy pageSizePolicy;
+    private final RentalStatisticsService rentalStatisticsService;
+    private final UserDirectory userDirectory;
+    private final ArchivedRentalRequestRepository archivedRequestRepository;
+
+    public AutomobileService(AutomobileRepository repo, AvailabilityIndex availabilityIndex,
+                             PageSizePolicy pageSizePolicy, RentalStatisticsService rentalStatisticsService,
+                             UserDirectory userDirectory, ArchivedRentalRequestRepository archivedRequestRepository) {
+        this.repo = repo;
+        this.availabilityIndex = availabilityIndex;
+        this.pageSizePolicy = pageSizePolicy;
+        this.rentalStatisticsService = rentalStatisticsService;
+        this.userDirectory = userDirectory;
+        this.archivedRequestRepository = archivedRequestRepository;
+    }
 
     public List<AutomobileResponseDTO> findAll() {
         return repo.findAll().stream()
@@ -27,6 +49,52 @@ public class AutomobileService {
                 .collect(Collectors.toList());
     }
 
+    public KeysetPage<AutomobileResponseDTO> findPage(String cursor, Integer size) {
+        int pageSize = pageSizePolicy.resolve(size);
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<Automobile> rows = position == null
+                ? repo.findPage(PageSizePolicy.probe(pageSize))
+                : repo.findPageAfter(position.getCreatedAt(), position.getId(), PageSizePolicy.probe(pageSize));
+        return KeysetPage.of(rows, pageSize, Automobile::getCreatedAt, Automobile::getId, this::convertToResponseDTO);
+    }
+
+    /**
+     * Automóveis livres em todo o período [pickupDate, returnDate), com filtros opcionais.
+     * Usa o índice em memória; fora do horizonte do índice, consulta o banco.
+     */
+    public List<AutomobileResponseDTO> findAvailable(LocalDate pickupDate, LocalDate returnDate, String brand,
+                                                     Integer minYear, Integer maxYear, Double maxDailyRate, int limit) {
+        if (!returnDate.isAfter(pickupDate)) {
+            throw new IllegalArgumentException("Data de devolução deve ser posterior à data de retirada");
+        }
+
+        List<String> ids = availabilityIndex
+                .findFree(pickupDate, returnDate, brand, minYear, maxYear, maxDailyRate, limit)
+                .orElse(null);
+
+        if (ids == null) {
+            logger.debug("Período {} - {} fora do índice de disponibilidade, consultando o banco", pickupDate, returnDate);
+            return repo.findFreeBetween(pickupDate, returnDate, RequestStatus.BOOKING_STATUSES).stream()
+                    .filter(a -> brand == null || brand.isBlank() || brand.trim().equalsIgnoreCase(a.getBrand()))
+                    .filter(a -> minYear == null || a.getYear() >= minYear)
+                    .filter(a -> maxYear == null || a.getYear() <= maxYear)
+                    .filter(a -> maxDailyRate == null || (a.getDailyRate() != null && a.getDailyRate() <= maxDailyRate))
+                    .sorted(Comparator.comparing(Automobile::getId))
+                    .limit(limit)
+                    .map(this::convertToResponseDTO)
+                    .collect(Collectors.toList());
+        }
+
+        // Preserva a ordem do índice
+        Map<String, Automobile> byId = repo.findAllById(ids).stream()
+                .collect(Collectors.toMap(Automobile::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(a -> a != null)
+                .map(this::convertToResponseDTO)
+                .collect(Collectors.toList());
+    }
+
     public AutomobileResponseDTO findById(String id) {
         return repo.findById(id)
                 .map(this::convertToResponseDTO)
@@ -46,8 +114,28 @@ public class AutomobileService {
     public AutomobileResponseDTO create(AutomobileCreateDTO createDTO, String agentId, String agentUsername) {
         logger.info("Criando veículo - AgentId: {}, AgentUsername: {}", agentId, agentUsername);
 
+        Automobile automobile = newAutomobile(createDTO, agentId, agentUsername, userDirectory.findById(agentId)
+                .map(owner -> owner.getType().getRole()).orElse(null));
+
+        logger.info("Salvando veículo com dados: ID={}, AgentId={}, AgentUsername={}",
+                automobile.getId(), automobile.getCreatedByAgentId(), automobile.getCreatedByAgentUsername());
+
+        Automobile saved = repo.save(automobile);
+        TransactionHooks.afterCommit(() -> availabilityIndex.putAutomobile(saved));
+
+        logger.info("Veículo salvo com sucesso - ID: {}, CreatedByAgentId: {}, CreatedByAgentUsername: {}",
+                saved.getId(), saved.getCreatedByAgentId(), saved.getCreatedByAgentUsername());
+
+        return convertToResponseDTO(saved);
+    }
+
+    /**
+     * Monta um automóvel novo e disponível, já com o agente que o cadastrou. Usado também pela importação em lote.
+     */
+    static Automobile newAutomobile(AutomobileCreateDTO createDTO, String agentId, String agentUsername,
+                                    UserRole agentRole) {
         Automobile automobile = new Automobile();
-        automobile.setId(UUID.randomUUID().toString());
+        automobile.setId(IdGenerator.newId());
         automobile.setLicensePlate(createDTO.getLicensePlate());
         automobile.setBrand(createDTO.getBrand());
         automobile.setModel(createDTO.getModel());
@@ -60,16 +148,8 @@ public class AutomobileService {
         // CORRIGIDO: Garantir que os IDs do agente sejam salvos
         automobile.setCreatedByAgentId(agentId);
         automobile.setCreatedByAgentUsername(agentUsername);
-
-        logger.info("Salvando veículo com dados: ID={}, AgentId={}, AgentUsername={}",
-                automobile.getId(), automobile.getCreatedByAgentId(), automobile.getCreatedByAgentUsername());
-
-        Automobile saved = repo.save(automobile);
-
-        logger.info("Veículo salvo com sucesso - ID: {}, CreatedByAgentId: {}, CreatedByAgentUsername: {}",
-                saved.getId(), saved.getCreatedByAgentId(), saved.getCreatedByAgentUsername());
-
-        return convertToResponseDTO(saved);
+        automobile.setCreatedByAgentRole(agentRole);
+        return automobile;
     }
 
     public AutomobileResponseDTO update(String id, AutomobileCreateDTO updateDTO) {
@@ -85,12 +165,20 @@ public class AutomobileService {
             // existing.setCreatedByAgentId(...) - MANTER o original
             // existing.setCreatedByAgentUsername(...) - MANTER o original
 
-            return convertToResponseDTO(repo.save(existing));
+            Automobile saved = repo.save(existing);
+            TransactionHooks.afterCommit(() -> availabilityIndex.putAutomobile(saved));
+            return convertToResponseDTO(saved);
         }).orElse(null);
     }
 
+    @Transactional
     public void delete(String id) {
+        archivedRequestRepository.deleteByAutomobileId(id);
         repo.deleteById(id);
+        TransactionHooks.afterCommit(() -> {
+            availabilityIndex.removeAutomobile(id);
+            rentalStatisticsService.automobileRemoved(id);
+        });
     }
 
     private AutomobileResponseDTO convertToResponseDTO(Automobile automobile) {
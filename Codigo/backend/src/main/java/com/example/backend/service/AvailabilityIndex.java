@@ -0,0 +1,424 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Automobile;
+import com.example.backend.model.enums.RequestStatus;
+import com.example.backend.repository.AutomobileRepository;
+import com.example.backend.repository.RentalRequestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice em memória de disponibilidade da frota para os próximos horizonDays dias.
+ *
+ * Cada automóvel ocupa um slot. A ocupação fica fora do heap, em um ByteBuffer direto
+ * organizado por dia: cada linha é um bitset com um bit por slot (1 = ocupado). Uma busca
+ * por período faz OR das linhas dos dias pedidos, palavra a palavra. Atributos de filtro
+ * (marca, ano, diária) ficam em um segundo buffer, 12 bytes por slot.
+ * As linhas formam um anel: o dia d usa a linha d % horizonDays.
+ *
+ * Automóveis sem diária não passam pelo filtro de diária máxima, como na consulta ao banco.
+ */
+@Component
+public class AvailabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    private static final int ATTRIBUTE_BYTES = 12; // marca (int), ano (int), diária (float)
+    private static final int MIN_CAPACITY = 1024;
+
+    private final AutomobileRepository automobileRepository;
+    private final RentalRequestRepository rentalRequestRepository;
+    private final boolean enabled;
+    private final int horizonDays;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private ByteBuffer occupancy;
+    private ByteBuffer attributes;
+    private long[] present;
+    private String[] idBySlot;
+    private int capacity;
+    private int words;
+    private int nextSlot;
+    private long baseDay;
+    private volatile boolean ready;
+    private boolean rebuilding;
+
+    // Automóveis gravados ou removidos durante um rebuild (null = removido), reaplicados ao final
+    private final Map<String, Automobile> changedDuringRebuild = new LinkedHashMap<>();
+
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final Map<String, Integer> brandCodes = new HashMap<>();
+
+    public AvailabilityIndex(AutomobileRepository automobileRepository,
+                             RentalRequestRepository rentalRequestRepository,
+                             @Value("${app.availability-index.enabled:true}") boolean enabled,
+                             @Value("${app.availability-index.horizon-days:365}") int horizonDays) {
+        this.automobileRepository = automobileRepository;
+        this.rentalRequestRepository = rentalRequestRepository;
+        this.enabled = enabled;
+        this.horizonDays = horizonDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuild(LocalDate.now());
+    }
+
+    void rebuild(LocalDate today) {
+        if (!enabled) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+
+        // Carros gravados depois deste ponto podem não vir no findAll; ficam registrados até o fim
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            changedDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Automobile> automobiles;
+        try {
+            automobiles = automobileRepository.findAll();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+                changedDuringRebuild.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            slotById.clear();
+            freeSlots.clear();
+            brandCodes.clear();
+            nextSlot = 0;
+            baseDay = today.toEpochDay();
+            allocate(roundCapacity(automobiles.size() * 5 / 4));
+
+            for (Automobile automobile : automobiles) {
+                putAutomobileLocked(automobile);
+            }
+            changedDuringRebuild.forEach((id, automobile) -> {
+                if (automobile != null) {
+                    putAutomobileLocked(automobile);
+                } else {
+                    removeAutomobileLocked(id);
+                }
+            });
+            rebuilding = false;
+            changedDuringRebuild.clear();
+            loadBookingsLocked(today, today.plusDays(horizonDays));
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        logger.info("Índice de disponibilidade montado: {} automóveis, {} dias, {} KB fora do heap, em {} ms",
+                automobiles.size(), horizonDays,
+                (occupancy.capacity() + attributes.capacity()) / 1024,
+                System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * Avança a janela para o dia corrente, liberando as linhas dos dias passados e
+     * carregando as reservas dos dias que entram no fim do horizonte.
+     */
+    @Scheduled(cron = "${app.availability-index.roll-cron:0 5 0 * * *}")
+    public void roll() {
+        roll(LocalDate.now());
+    }
+
+    void roll(LocalDate today) {
+        if (!ready) {
+            return;
+        }
+        long todayDay = today.toEpochDay();
+        boolean fullRebuild = false;
+
+        lock.writeLock().lock();
+        try {
+            if (todayDay <= baseDay) {
+                return;
+            }
+            // Janela inteira vencida: remonta do banco depois de soltar o lock
+            fullRebuild = todayDay - baseDay >= horizonDays;
+            if (!fullRebuild) {
+                LocalDate firstNewDay = LocalDate.ofEpochDay(baseDay + horizonDays);
+                for (long day = baseDay; day < todayDay; day++) {
+                    clearRow(day);
+                }
+                baseDay = todayDay;
+                loadBookingsLocked(firstNewDay, today.plusDays(horizonDays));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (fullRebuild) {
+            rebuild(today);
+        }
+    }
+
+    /**
+     * Automóveis livres em todo o período [start, end). Retorna vazio se o período
+     * estiver fora do horizonte do índice; nesse caso o chamador deve consultar o banco.
+     */
+    public Optional<List<String>> findFree(LocalDate start, LocalDate end, String brand,
+                                           Integer minYear, Integer maxYear, Double maxDailyRate, int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            long startDay = start.toEpochDay();
+            long endDay = end.toEpochDay();
+            if (startDay < baseDay || endDay > baseDay + horizonDays) {
+                return Optional.empty();
+            }
+
+            int brandCode = -1;
+            if (brand != null && !brand.isBlank()) {
+                Integer code = brandCodes.get(normalizeBrand(brand));
+                if (code == null) {
+                    return Optional.of(List.of());
+                }
+                brandCode = code;
+            }
+            int yearFrom = minYear != null ? minYear : Integer.MIN_VALUE;
+            int yearTo = maxYear != null ? maxYear : Integer.MAX_VALUE;
+            float rateTo = maxDailyRate != null ? maxDailyRate.floatValue() : Float.NaN;
+
+            List<String> result = new ArrayList<>(Math.min(limit, 256));
+            for (int w = 0; w < words; w++) {
+                long free = present[w];
+                for (long day = startDay; day < endDay && free != 0; day++) {
+                    free &= ~occupancy.getLong(rowOffset(day) + (w << 3));
+                }
+                while (free != 0) {
+                    int slot = (w << 6) + Long.numberOfTrailingZeros(free);
+                    free &= free - 1;
+                    if (matches(slot, brandCode, yearFrom, yearTo, rateTo)) {
+                        result.add(idBySlot[slot]);
+                        if (result.size() >= limit) {
+                            return Optional.of(result);
+                        }
+                    }
+                }
+            }
+            return Optional.of(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Atualizações feitas durante um rebuild também são reaplicadas sobre a nova estrutura
+    public void putAutomobile(Automobile automobile) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                changedDuringRebuild.put(automobile.getId(), automobile);
+            }
+            if (occupancy != null) {
+                putAutomobileLocked(automobile);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeAutomobile(String automobileId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                changedDuringRebuild.put(automobileId, null);
+            }
+            if (occupancy != null) {
+                removeAutomobileLocked(automobileId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void bookingAdded(String automobileId, LocalDate pickupDate, LocalDate returnDate) {
+        markBooking(automobileId, pickupDate, returnDate, true);
+    }
+
+    public void bookingRemoved(String automobileId, LocalDate pickupDate, LocalDate returnDate) {
+        markBooking(automobileId, pickupDate, returnDate, false);
+    }
+
+    private void markBooking(String automobileId, LocalDate pickupDate, LocalDate returnDate, boolean busy) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (occupancy == null) {
+                return;
+            }
+            Integer slot = slotById.get(automobileId);
+            if (slot != null) {
+                markRangeLocked(slot, pickupDate.toEpochDay(), returnDate.toEpochDay(), busy);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void loadBookingsLocked(LocalDate from, LocalDate to) {
+        List<Object[]> bookings = rentalRequestRepository.findBookingPeriods(from, to, RequestStatus.BOOKING_STATUSES);
+        for (Object[] booking : bookings) {
+            Integer slot = slotById.get((String) booking[0]);
+            if (slot != null) {
+                markRangeLocked(slot, ((LocalDate) booking[1]).toEpochDay(), ((LocalDate) booking[2]).toEpochDay(), true);
+            }
+        }
+    }
+
+    private void removeAutomobileLocked(String automobileId) {
+        Integer slot = slotById.remove(automobileId);
+        if (slot == null) {
+            return;
+        }
+        present[slot >>> 6] &= ~(1L << slot);
+        for (int row = 0; row < horizonDays; row++) {
+            setBit(row, slot, false);
+        }
+        idBySlot[slot] = null;
+        freeSlots.push(slot);
+    }
+
+    private void putAutomobileLocked(Automobile automobile) {
+        Integer slot = slotById.get(automobile.getId());
+        if (slot == null) {
+            slot = freeSlots.isEmpty() ? nextSlot++ : freeSlots.pop();
+            if (slot >= capacity) {
+                allocate(capacity * 2);
+            }
+            slotById.put(automobile.getId(), slot);
+            idBySlot[slot] = automobile.getId();
+            present[slot >>> 6] |= 1L << slot;
+        }
+
+        int offset = slot * ATTRIBUTE_BYTES;
+        attributes.putInt(offset, brandCode(automobile.getBrand()));
+        attributes.putInt(offset + 4, automobile.getYear());
+        attributes.putFloat(offset + 8, automobile.getDailyRate() != null ? automobile.getDailyRate().floatValue() : Float.NaN);
+    }
+
+    private boolean matches(int slot, int brandCode, int yearFrom, int yearTo, float rateTo) {
+        int offset = slot * ATTRIBUTE_BYTES;
+        if (brandCode >= 0 && attributes.getInt(offset) != brandCode) {
+            return false;
+        }
+        int year = attributes.getInt(offset + 4);
+        if (year < yearFrom || year > yearTo) {
+            return false;
+        }
+        // Sem filtro, rateTo é NaN; diária ausente (NaN) nunca satisfaz um filtro
+        return Float.isNaN(rateTo) || attributes.getFloat(offset + 8) <= rateTo;
+    }
+
+    private void markRangeLocked(int slot, long fromDay, long toDay, boolean busy) {
+        long first = Math.max(fromDay, baseDay);
+        long last = Math.min(toDay, baseDay + horizonDays);
+        for (long day = first; day < last; day++) {
+            setBit((int) Math.floorMod(day, (long) horizonDays), slot, busy);
+        }
+    }
+
+    private void setBit(int row, int slot, boolean busy) {
+        int offset = row * words * 8 + ((slot >>> 6) << 3);
+        long word = occupancy.getLong(offset);
+        long mask = 1L << slot;
+        occupancy.putLong(offset, busy ? word | mask : word & ~mask);
+    }
+
+    private void clearRow(long day) {
+        int offset = rowOffset(day);
+        for (int w = 0; w < words; w++) {
+            occupancy.putLong(offset + (w << 3), 0L);
+        }
+    }
+
+    private int rowOffset(long day) {
+        return (int) Math.floorMod(day, (long) horizonDays) * words * 8;
+    }
+
+    private int brandCode(String brand) {
+        return brandCodes.computeIfAbsent(normalizeBrand(brand), b -> brandCodes.size());
+    }
+
+    private static String normalizeBrand(String brand) {
+        return brand == null ? "" : brand.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static int roundCapacity(int slots) {
+        int capacity = Math.max(slots, MIN_CAPACITY);
+        return (capacity + 63) & ~63;
+    }
+
+    // Realoca os buffers preservando o conteúdo (capacidade sempre múltipla de 64)
+    private void allocate(int newCapacity) {
+        int newWords = newCapacity >>> 6;
+        ByteBuffer newOccupancy = ByteBuffer.allocateDirect(horizonDays * newWords * 8);
+        ByteBuffer newAttributes = ByteBuffer.allocateDirect(newCapacity * ATTRIBUTE_BYTES);
+        long[] newPresent = new long[newWords];
+        String[] newIds = new String[newCapacity];
+
+        if (occupancy != null && nextSlot > 0) {
+            for (int row = 0; row < horizonDays; row++) {
+                for (int w = 0; w < words; w++) {
+                    newOccupancy.putLong((row * newWords + w) * 8, occupancy.getLong((row * words + w) * 8));
+                }
+            }
+            for (int i = 0; i < capacity * ATTRIBUTE_BYTES; i++) {
+                newAttributes.put(i, attributes.get(i));
+            }
+            System.arraycopy(present, 0, newPresent, 0, words);
+            System.arraycopy(idBySlot, 0, newIds, 0, capacity);
+        }
+
+        occupancy = newOccupancy;
+        attributes = newAttributes;
+        present = newPresent;
+        idBySlot = newIds;
+        capacity = newCapacity;
+        words = newWords;
+    }
+}
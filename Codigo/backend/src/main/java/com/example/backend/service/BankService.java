@@ -3,16 +3,18 @@ package com.example.backend.service;
 import com.example.backend.model.Bank;
 import com.example.backend.repository.BankRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.UUID;
 
 @Service
 public class BankService {
     private final BankRepository repo;
+    private final UserDirectory userDirectory;
 
-    public BankService(BankRepository repo) {
+    public BankService(BankRepository repo, UserDirectory userDirectory) {
         this.repo = repo;
+        this.userDirectory = userDirectory;
     }
 
     public List<Bank> findAll() {
@@ -23,12 +25,17 @@ public class BankService {
         return repo.findById(id).orElse(null);
     }
 
+    @Transactional
     public Bank create(Bank b) {
-        b.setId(UUID.randomUUID().toString());
-        return repo.save(b);
+        b.setId(IdGenerator.newId());
+        Bank saved = repo.save(b);
+        userDirectory.put(saved);
+        return saved;
     }
 
+    @Transactional
     public void delete(String id) {
         repo.deleteById(id);
+        userDirectory.remove(id);
     }
 }
\ No newline at end of file
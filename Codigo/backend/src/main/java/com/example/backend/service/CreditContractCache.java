@@ -0,0 +1,127 @@
+package com.example.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache LRU com TTL dos contratos de crédito ativos, por (cliente, agente bancário).
+ * Guarda o id do contrato, o limite total e o saldo disponível, de forma que a checagem
+ * de limite não consulte o banco no caso comum. O CreditContractService grava cada
+ * alteração após o commit; o TTL limita a defasagem em relação a outras instâncias.
+ * A reserva em si continua conferindo o saldo no livro de crédito.
+ */
+@Component
+public class CreditContractCache {
+
+    public static final class Entry {
+        private final String contractId;
+        private final double creditLimit;
+        private final double availableLimit;
+        private final long expiresAt;
+
+        Entry(String contractId, double creditLimit, double availableLimit, long expiresAt) {
+            this.contractId = contractId;
+            this.creditLimit = creditLimit;
+            this.availableLimit = availableLimit;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getContractId() { return contractId; }
+        public double getCreditLimit() { return creditLimit; }
+        public double getAvailableLimit() { return availableLimit; }
+    }
+
+    private final long ttlMs;
+    private final Map<String, Entry> entries;
+    // contractId -> chave, para atualizar a partir de lançamentos que só conhecem o contrato
+    private final Map<String, String> keyByContract = new HashMap<>();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public CreditContractCache(MeterRegistry meterRegistry,
+                               @Value("${app.credit-contracts.cache-ttl-ms:30000}") long ttlMs,
+                               @Value("${app.credit-contracts.cache-max-entries:10000}") int maxEntries) {
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    keyByContract.remove(eldest.getValue().contractId);
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hitCounter = Counter.builder("credit.contract.cache").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("credit.contract.cache").tag("result", "miss").register(meterRegistry);
+        meterRegistry.gauge("credit.contract.cache.size", this, CreditContractCache::size);
+    }
+
+    /**
+     * Contrato ativo em cache, ou null se ausente/expirado.
+     */
+    public synchronized Entry get(String customerId, String bankAgentId) {
+        String key = key(customerId, bankAgentId);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+            remove(key);
+            entry = null;
+        }
+        (entry == null ? missCounter : hitCounter).increment();
+        return entry;
+    }
+
+    public synchronized Entry put(String customerId, String bankAgentId, String contractId,
+                                  double creditLimit, double availableLimit) {
+        Entry entry = new Entry(contractId, creditLimit, availableLimit, System.currentTimeMillis() + ttlMs);
+        if (ttlMs <= 0) {
+            return entry;
+        }
+        String key = key(customerId, bankAgentId);
+        String previousKey = keyByContract.put(contractId, key);
+        if (previousKey != null && !previousKey.equals(key)) {
+            entries.remove(previousKey);
+        }
+        entries.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Atualiza o saldo de um contrato em cache, mantendo a expiração.
+     */
+    public synchronized void updateAvailable(String contractId, double availableLimit) {
+        String key = keyByContract.get(contractId);
+        Entry entry = key == null ? null : entries.get(key);
+        if (entry != null) {
+            entries.put(key, new Entry(contractId, entry.creditLimit, availableLimit, entry.expiresAt));
+        }
+    }
+
+    public synchronized void evict(String contractId) {
+        String key = keyByContract.get(contractId);
+        if (key != null) {
+            remove(key);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            keyByContract.remove(removed.contractId);
+        }
+    }
+
+    private static String key(String customerId, String bankAgentId) {
+        return customerId + ':' + bankAgentId;
+    }
+}
@@ -4,9 +4,12 @@ import com.example.backend.dto.CreditContractCreateDTO;
 import com.example.backend.dto.CreditContractResponseDTO;
 import com.example.backend.dto.CreditContractUpdateDTO;
 import com.example.backend.dto.CustomerSummaryDTO;
+import com.example.backend.dto.KeysetCursor;
+import com.example.backend.dto.KeysetPage;
 import com.example.backend.model.BankAgent;
 import com.example.backend.model.CreditContract;
 import com.example.backend.model.Customer;
+import com.example.backend.model.enums.LedgerEntryType;
 import com.example.backend.repository.BankAgentRepository;
 import com.example.backend.repository.CreditContractRepository;
 import com.example.backend.repository.CustomerRepository;
@@ -17,8 +20,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,13 +32,25 @@ public class CreditContractService {
     private final CreditContractRepository creditContractRepository;
     private final CustomerRepository customerRepository;
     private final BankAgentRepository bankAgentRepository;
+    private final PageSizePolicy pageSizePolicy;
+    private final CreditLedgerService creditLedgerService;
+    private final CreditContractCache creditContractCache;
+    private final UserDirectory userDirectory;
 
     public CreditContractService(CreditContractRepository creditContractRepository,
                                  CustomerRepository customerRepository,
-                                 BankAgentRepository bankAgentRepository) {
+                                 BankAgentRepository bankAgentRepository,
+                                 PageSizePolicy pageSizePolicy,
+                                 CreditLedgerService creditLedgerService,
+                                 CreditContractCache creditContractCache,
+                                 UserDirectory userDirectory) {
         this.creditContractRepository = creditContractRepository;
         this.customerRepository = customerRepository;
         this.bankAgentRepository = bankAgentRepository;
+        this.pageSizePolicy = pageSizePolicy;
+        this.creditLedgerService = creditLedgerService;
+        this.creditContractCache = creditContractCache;
+        this.userDirectory = userDirectory;
     }
 
     /**
@@ -60,16 +75,18 @@ public class CreditContractService {
                 .findByCustomerAndBankAgent(customer.getId(), bankAgent.getId());
 
         CreditContract contract;
+        double previousLimit = 0.0;
 
         if (existingContract.isPresent()) {
             // Atualizar contrato existente
             contract = existingContract.get();
             logger.info("Atualizando contrato existente: {}", contract.getId());
+            previousLimit = amountOrZero(contract.getCreditLimit());
             contract.setCreditLimit(dto.getCreditLimit());
         } else {
             // Criar novo contrato
             contract = new CreditContract();
-            contract.setId(UUID.randomUUID().toString());
+            contract.setId(IdGenerator.newId());
             contract.setCustomer(customer);
             contract.setBankAgent(bankAgent);
             contract.setCreditLimit(dto.getCreditLimit());
@@ -80,9 +97,12 @@ public class CreditContractService {
         }
 
         CreditContract saved = creditContractRepository.save(contract);
+        creditLedgerService.limitChanged(saved.getId(), amountOrZero(dto.getCreditLimit()) - previousLimit);
         logger.info("Contrato salvo com sucesso: {}", saved.getId());
 
-        return convertToResponseDTO(saved);
+        CreditContractResponseDTO response = convertToResponseDTO(saved);
+        cacheAfterCommit(saved, response.getAvailableLimit());
+        return response;
     }
 
     /**
@@ -103,6 +123,8 @@ public class CreditContractService {
         }
 
         if (dto.getCreditLimit() != null) {
+            creditLedgerService.limitChanged(contractId,
+                    dto.getCreditLimit() - amountOrZero(contract.getCreditLimit()));
             contract.setCreditLimit(dto.getCreditLimit());
         }
 
@@ -111,21 +133,37 @@ public class CreditContractService {
         }
 
         CreditContract updated = creditContractRepository.save(contract);
-        return convertToResponseDTO(updated);
+        CreditContractResponseDTO response = convertToResponseDTO(updated);
+        cacheAfterCommit(updated, response.getAvailableLimit());
+        return response;
     }
 
     /**
      * Lista todos os contratos de crédito gerenciados por um banco
      */
     @Transactional(readOnly = true)
+    public KeysetPage<CreditContractResponseDTO> getCreditContractsPageByBankAgent(String bankAgentUsername,
+                                                                                  String cursor, Integer size) {
+        int pageSize = pageSizePolicy.resolve(size);
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<CreditContract> rows = position == null
+                ? creditContractRepository.findPageByBankAgentUsername(bankAgentUsername, PageSizePolicy.probe(pageSize))
+                : creditContractRepository.findPageByBankAgentUsernameAfter(bankAgentUsername,
+                        position.getCreatedAt(), position.getId(), PageSizePolicy.probe(pageSize));
+        Map<String, Double> balances = balancesOf(rows);
+        return KeysetPage.of(rows, pageSize, CreditContract::getCreatedAt, CreditContract::getId,
+                contract -> convertToResponseDTO(contract, balances.get(contract.getId())));
+    }
+
     public List<CreditContractResponseDTO> getAllCreditContractsByBankAgent(String bankAgentUsername) {
         logger.info("Listando contratos do banco: {}", bankAgentUsername);
 
         List<CreditContract> contracts = creditContractRepository
                 .findAllByBankAgentUsername(bankAgentUsername);
+        Map<String, Double> balances = balancesOf(contracts);
 
         return contracts.stream()
-                .map(this::convertToResponseDTO)
+                .map(contract -> convertToResponseDTO(contract, balances.get(contract.getId())))
                 .collect(Collectors.toList());
     }
 
@@ -154,73 +192,117 @@ public class CreditContractService {
         logger.info("Verificando limite disponível - Customer: {}, BankAgent: {}, Amount: {}",
                 customerUsername, bankAgentUsername, amount);
 
-        Optional<CreditContract> contract = creditContractRepository
-                .findByCustomerUsernameAndBankAgentUsername(customerUsername, bankAgentUsername);
+        String customerId = userDirectory.findByUsername(customerUsername)
+                .map(UserDirectory.Entry::getId).orElse(null);
+        String bankAgentId = userDirectory.findByUsername(bankAgentUsername)
+                .map(UserDirectory.Entry::getId).orElse(null);
+        CreditContractCache.Entry contract = customerId == null || bankAgentId == null
+                ? null : resolveActive(customerId, bankAgentId);
 
-        if (contract.isEmpty()) {
-            logger.warn("Nenhum contrato de crédito encontrado entre {} e {}",
+        if (contract == null) {
+            logger.warn("Nenhum contrato de crédito ativo encontrado entre {} e {}",
                     customerUsername, bankAgentUsername);
             return false;
         }
 
-        CreditContract creditContract = contract.get();
-
-        if (!"ACTIVE".equals(creditContract.getStatus())) {
-            logger.warn("Contrato de crédito {} não está ativo", creditContract.getId());
-            return false;
-        }
-
-        boolean hasLimit = creditContract.hasAvailableLimit(amount);
+        boolean hasLimit = amount != null && contract.getAvailableLimit() >= amount;
         logger.info("Cliente {} tem limite disponível: {} (disponível: {}, necessário: {})",
-                customerUsername, hasLimit, creditContract.getAvailableLimit(), amount);
+                customerUsername, hasLimit, contract.getAvailableLimit(), amount);
 
         return hasLimit;
     }
 
     /**
-     * Reduz o limite disponível quando um pedido é aprovado
+     * Pré-checagem de limite para um novo pedido, pelo contrato em cache
      */
-    @Transactional
-    public void reduceAvailableLimit(String customerUsername, String bankAgentUsername, Double amount) {
-        logger.info("Reduzindo limite disponível - Customer: {}, BankAgent: {}, Amount: {}",
-                customerUsername, bankAgentUsername, amount);
-
-        Optional<CreditContract> contractOpt = creditContractRepository
-                .findByCustomerUsernameAndBankAgentUsername(customerUsername, bankAgentUsername);
+    @Transactional(readOnly = true)
+    public boolean hasAvailableCreditById(String customerId, String bankAgentId, Double amount) {
+        CreditContractCache.Entry contract = resolveActive(customerId, bankAgentId);
+        return contract != null && contract.getAvailableLimit() >= amountOrZero(amount);
+    }
 
-        if (contractOpt.isEmpty()) {
-            logger.warn("Contrato não encontrado para redução de limite");
-            return;
+    /**
+     * Reserva o valor do pedido aprovado no livro de crédito. A checagem de saldo e o lançamento
+     * acontecem sob trava do contrato, então aprovações concorrentes não estouram o limite.
+     *
+     * @return false se não há contrato ativo ou o limite é insuficiente
+     */
+    @Transactional
+    public boolean reserveCredit(String customerId, String bankAgentId, String rentalRequestId, Double amount) {
+        CreditContractCache.Entry contract = resolveActive(customerId, bankAgentId);
+        CreditLedgerService.Hold hold = contract == null ? null
+                : creditLedgerService.hold(contract.getContractId(), rentalRequestId, amountOrZero(amount));
+        boolean reserved = hold != null && hold.isReserved();
+        logger.info("Reserva de limite - Pedido: {}, Customer: {}, BankAgent: {}, Amount: {}, reservado: {}",
+                rentalRequestId, customerId, bankAgentId, amount, reserved);
+        if (contract != null) {
+            double available = hold.getAvailable();
+            if (reserved) {
+                TransactionHooks.afterCommit(() ->
+                        creditContractCache.updateAvailable(contract.getContractId(), available));
+            } else {
+                // O saldo em cache estava defasado
+                creditContractCache.updateAvailable(contract.getContractId(), available);
+            }
         }
+        return reserved;
+    }
 
-        CreditContract contract = contractOpt.get();
-        contract.reduceAvailableLimit(amount);
-        creditContractRepository.save(contract);
-
-        logger.info("Limite reduzido. Novo limite disponível: {}", contract.getAvailableLimit());
+    /**
+     * Devolve ao saldo a reserva de um pedido rejeitado ou cancelado
+     */
+    @Transactional
+    public void releaseCredit(String rentalRequestId) {
+        refreshCachedBalance(creditLedgerService.settle(rentalRequestId, LedgerEntryType.RELEASE));
     }
 
     /**
-     * Restaura o limite disponível quando um pedido é cancelado/rejeitado
+     * Encerra a reserva de um pedido concluído
      */
     @Transactional
-    public void restoreAvailableLimit(String customerUsername, String bankAgentUsername, Double amount) {
-        logger.info("Restaurando limite disponível - Customer: {}, BankAgent: {}, Amount: {}",
-                customerUsername, bankAgentUsername, amount);
+    public void captureCredit(String rentalRequestId) {
+        refreshCachedBalance(creditLedgerService.settle(rentalRequestId, LedgerEntryType.CAPTURE));
+    }
+
+    // Contrato ativo do par cliente/banco: cache primeiro, banco na falta
+    private CreditContractCache.Entry resolveActive(String customerId, String bankAgentId) {
+        CreditContractCache.Entry cached = creditContractCache.get(customerId, bankAgentId);
+        if (cached != null) {
+            return cached;
+        }
+        return creditContractRepository.findByCustomerAndBankAgent(customerId, bankAgentId)
+                .map(contract -> creditContractCache.put(customerId, bankAgentId, contract.getId(),
+                        amountOrZero(contract.getCreditLimit()), creditLedgerService.balance(contract.getId())))
+                .orElse(null);
+    }
 
-        Optional<CreditContract> contractOpt = creditContractRepository
-                .findByCustomerUsernameAndBankAgentUsername(customerUsername, bankAgentUsername);
+    private void refreshCachedBalance(String contractId) {
+        if (contractId == null) {
+            return;
+        }
+        double available = creditLedgerService.balance(contractId);
+        TransactionHooks.afterCommit(() -> creditContractCache.updateAvailable(contractId, available));
+    }
 
-        if (contractOpt.isEmpty()) {
-            logger.warn("Contrato não encontrado para restauração de limite");
+    private void cacheAfterCommit(CreditContract contract, double available) {
+        String contractId = contract.getId();
+        if (!"ACTIVE".equals(contract.getStatus())) {
+            TransactionHooks.afterCommit(() -> creditContractCache.evict(contractId));
             return;
         }
+        String customerId = contract.getCustomer().getId();
+        String bankAgentId = contract.getBankAgent().getId();
+        double creditLimit = amountOrZero(contract.getCreditLimit());
+        TransactionHooks.afterCommit(() ->
+                creditContractCache.put(customerId, bankAgentId, contractId, creditLimit, available));
+    }
 
-        CreditContract contract = contractOpt.get();
-        contract.restoreAvailableLimit(amount);
-        creditContractRepository.save(contract);
+    private Map<String, Double> balancesOf(List<CreditContract> contracts) {
+        return creditLedgerService.balances(contracts.stream().map(CreditContract::getId).toList());
+    }
 
-        logger.info("Limite restaurado. Novo limite disponível: {}", contract.getAvailableLimit());
+    private static double amountOrZero(Double amount) {
+        return amount == null ? 0.0 : amount;
     }
 
     /**
@@ -236,6 +318,7 @@ public class CreditContractService {
         }
 
         creditContractRepository.delete(contract);
+        TransactionHooks.afterCommit(() -> creditContractCache.evict(contractId));
         logger.info("Contrato {} deletado com sucesso", contractId);
     }
 
@@ -243,18 +326,23 @@ public class CreditContractService {
      * Converte entidade para DTO
      */
     private CreditContractResponseDTO convertToResponseDTO(CreditContract contract) {
+        return convertToResponseDTO(contract, creditLedgerService.balance(contract.getId()));
+    }
+
+    private CreditContractResponseDTO convertToResponseDTO(CreditContract contract, Double availableLimit) {
+        double available = availableLimit == null ? 0.0 : availableLimit;
         CreditContractResponseDTO dto = new CreditContractResponseDTO();
         dto.setId(contract.getId());
         dto.setBankAgentId(contract.getBankAgent().getId());
         dto.setBankAgentUsername(contract.getBankAgent().getUsername());
         dto.setCreditLimit(contract.getCreditLimit());
-        dto.setAvailableLimit(contract.getAvailableLimit());
+        dto.setAvailableLimit(available);
         dto.setCreatedAt(contract.getCreatedAt());
         dto.setUpdatedAt(contract.getUpdatedAt());
         dto.setStatus(contract.getStatus());
 
         // Calcular limite usado
-        Double usedLimit = contract.getCreditLimit() - contract.getAvailableLimit();
+        Double usedLimit = amountOrZero(contract.getCreditLimit()) - available;
         dto.setUsedLimit(usedLimit);
 
         // Calcular percentual de uso
@@ -0,0 +1,335 @@
+package com.example.backend.service;
+
+import com.example.backend.model.CreditBalanceSnapshot;
+import com.example.backend.model.CreditLedgerEntry;
+import com.example.backend.model.enums.LedgerEntryType;
+import com.example.backend.repository.CreditBalanceSnapshotRepository;
+import com.example.backend.repository.CreditLedgerEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Livro de crédito append-only. Reservas, capturas, liberações e mudanças de limite viram
+ * lançamentos; o saldo disponível é o último snapshot do contrato mais a cauda do livro.
+ * Um job consolida os snapshots periodicamente e outro confere snapshots contra as somas do livro.
+ *
+ * <p>Limites conhecidos:
+ * <ul>
+ *   <li>Reservas, capturas e liberações do mesmo contrato continuam serializadas pela trava
+ *   consultiva do contrato, que impede duas reservas de gastarem o mesmo saldo. A trava dura
+ *   um comando e o commit, sem atualizar a linha do contrato, mas a vazão de um contrato quente
+ *   fica limitada a uma reserva por vez. Dividir o saldo em buckets tiraria a espera, ao custo de
+ *   recusar reservas quando o bucket escolhido se esgota antes do saldo total.</li>
+ *   <li>Os lançamentos não são gravados em lote: cada um tira seu próprio id da sequência
+ *   (allocationSize = 1, ver V10) para que, dentro do contrato, a ordem dos ids seja a ordem de
+ *   commit que {@link #snapshot()} pressupõe. Só o backfill de abertura usa o batch do JDBC,
+ *   e mesmo ele faz um nextval por lançamento.</li>
+ * </ul>
+ */
+@Service
+public class CreditLedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditLedgerService.class);
+
+    private static final double EPSILON = 0.005;
+
+    // Reserva em um comando: calcula o saldo (snapshot + cauda), vê se o pedido já tem reserva aberta
+    // e só insere o HOLD se não tiver e o saldo cobrir o valor. Devolve o saldo antes do lançamento.
+    private static final String HOLD_IF_AVAILABLE =
+            "WITH snap AS ("
+                    + " SELECT COALESCE(MAX(s.available_limit), 0) AS available_limit,"
+                    + " COALESCE(MAX(s.last_entry_id), 0) AS last_entry_id"
+                    + " FROM credit_balance_snapshot s WHERE s.contract_id = :contractId"
+                    + "), balance AS ("
+                    + " SELECT snap.available_limit + COALESCE((SELECT SUM(e.delta) FROM credit_ledger_entry e"
+                    + " WHERE e.contract_id = :contractId AND e.id > snap.last_entry_id), 0) AS available FROM snap"
+                    + "), open_hold AS ("
+                    + " SELECT COALESCE(SUM(CASE WHEN e.entry_type = 'HOLD' THEN 1 ELSE -1 END), 0) > 0 AS held"
+                    + " FROM credit_ledger_entry e WHERE e.rental_request_id = :rentalRequestId"
+                    + " AND e.entry_type IN ('HOLD', 'CAPTURE', 'RELEASE')"
+                    + "), ins AS ("
+                    + " INSERT INTO credit_ledger_entry (id, contract_id, rental_request_id, entry_type, amount, delta, created_at)"
+                    + " SELECT nextval('credit_ledger_entry_seq'), :contractId, :rentalRequestId, 'HOLD', :amount, -:amount, :createdAt"
+                    + " FROM balance, open_hold WHERE NOT open_hold.held AND balance.available + :epsilon >= :amount"
+                    + " RETURNING id"
+                    + ")"
+                    + " SELECT balance.available, open_hold.held, EXISTS (SELECT 1 FROM ins) AS inserted"
+                    + " FROM balance, open_hold";
+
+    /**
+     * Resultado de uma reserva: se o pedido ficou com reserva aberta e o saldo disponível depois dela.
+     */
+    public static final class Hold {
+        private final boolean reserved;
+        private final double available;
+
+        Hold(boolean reserved, double available) {
+            this.reserved = reserved;
+            this.available = available;
+        }
+
+        public boolean isReserved() { return reserved; }
+        public double getAvailable() { return available; }
+    }
+
+    private final CreditLedgerEntryRepository ledgerRepository;
+    private final CreditBalanceSnapshotRepository snapshotRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long snapshotLagMs;
+    private final int reconcileChunkSize;
+    private final int backfillBatchSize;
+    private final ExecutorService reconcileExecutor;
+    private final Counter mismatchCounter;
+
+    public CreditLedgerService(CreditLedgerEntryRepository ledgerRepository,
+                               CreditBalanceSnapshotRepository snapshotRepository,
+                               JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.credit-ledger.snapshot-lag-ms:60000}") long snapshotLagMs,
+                               @Value("${app.credit-ledger.reconcile-parallelism:2}") int reconcileParallelism,
+                               @Value("${app.credit-ledger.reconcile-chunk-size:500}") int reconcileChunkSize,
+                               @Value("${app.credit-ledger.backfill-batch-size:500}") int backfillBatchSize) {
+        this.ledgerRepository = ledgerRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.snapshotLagMs = snapshotLagMs;
+        this.reconcileChunkSize = reconcileChunkSize;
+        this.backfillBatchSize = backfillBatchSize;
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.reconcileExecutor = Executors.newFixedThreadPool(Math.max(1, reconcileParallelism), runnable -> {
+            Thread thread = new Thread(runnable, "credit-reconcile-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.mismatchCounter = Counter.builder("credit.ledger.reconcile.mismatches")
+                .description("Snapshots divergentes da soma do livro")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Saldo disponível do contrato: snapshot + lançamentos posteriores.
+     */
+    @Transactional(readOnly = true)
+    public double balance(String contractId) {
+        CreditBalanceSnapshot snapshot = snapshotRepository.findById(contractId).orElse(null);
+        double base = snapshot == null ? 0.0 : snapshot.getAvailableLimit();
+        long afterId = snapshot == null ? 0L : snapshot.getLastEntryId();
+        return base + ledgerRepository.sumAfter(contractId, afterId);
+    }
+
+    /**
+     * Saldos de vários contratos com duas consultas, para listagens.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Double> balances(Collection<String> contractIds) {
+        Map<String, Double> balances = new HashMap<>();
+        if (contractIds.isEmpty()) {
+            return balances;
+        }
+        for (CreditBalanceSnapshot snapshot : snapshotRepository.findAllById(contractIds)) {
+            balances.put(snapshot.getContractId(), snapshot.getAvailableLimit());
+        }
+        for (Object[] row : ledgerRepository.sumTails(contractIds)) {
+            balances.merge((String) row[0], (Double) row[1], Double::sum);
+        }
+        return balances;
+    }
+
+    /**
+     * Reserva {@code amount} do contrato para o pedido. Idempotente enquanto a reserva do pedido
+     * estiver aberta; depois de capturada ou liberada, uma nova aprovação abre outra reserva.
+     *
+     * São dois comandos: a trava do contrato e a reserva condicional. A trava não cabe no mesmo
+     * comando porque, em READ COMMITTED, o saldo seria lido do snapshot anterior à espera.
+     *
+     * @return se a reserva ficou aberta (false = saldo insuficiente) e o saldo resultante
+     */
+    @Transactional
+    public Hold hold(String contractId, String rentalRequestId, double amount) {
+        lockContract(contractId);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("contractId", UUID.fromString(contractId))
+                .addValue("rentalRequestId", UUID.fromString(rentalRequestId))
+                .addValue("amount", amount)
+                .addValue("epsilon", EPSILON)
+                .addValue("createdAt", OffsetDateTime.now(ZoneOffset.UTC));
+        return namedJdbcTemplate.queryForObject(HOLD_IF_AVAILABLE, params, (rs, rowNum) -> {
+            double available = rs.getDouble("available");
+            if (rs.getBoolean("inserted")) {
+                return new Hold(true, available - amount);
+            }
+            return new Hold(rs.getBoolean("held"), available);
+        });
+    }
+
+    /**
+     * Encerra a reserva aberta do pedido devolvendo o valor ao saldo. Sem reserva aberta, não faz nada.
+     *
+     * @return o contrato da reserva encerrada, ou null se não havia reserva aberta
+     */
+    @Transactional
+    public String settle(String rentalRequestId, LedgerEntryType settlement) {
+        CreditLedgerEntry hold = ledgerRepository
+                .findFirstByRentalRequestIdAndTypeOrderByIdDesc(rentalRequestId, LedgerEntryType.HOLD).orElse(null);
+        if (hold == null) {
+            return null;
+        }
+        lockContract(hold.getContractId());
+        if (ledgerRepository.countOpenHolds(rentalRequestId) <= 0) {
+            return null;
+        }
+        ledgerRepository.save(new CreditLedgerEntry(hold.getContractId(), rentalRequestId, settlement,
+                hold.getAmount(), hold.getAmount()));
+        return hold.getContractId();
+    }
+
+    /**
+     * Registra a abertura do contrato ou a variação do limite total.
+     */
+    @Transactional
+    public void limitChanged(String contractId, double delta) {
+        if (Math.abs(delta) < EPSILON) {
+            return;
+        }
+        lockContract(contractId);
+        ledgerRepository.save(new CreditLedgerEntry(contractId, null, LedgerEntryType.LIMIT_CHANGE,
+                Math.abs(delta), delta));
+    }
+
+    /**
+     * Contratos criados antes do livro recebem um lançamento de abertura com o saldo atual.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOpeningEntries() {
+        List<Object[]> contracts = ledgerRepository.findContractsWithoutEntries();
+        for (int from = 0; from < contracts.size(); from += backfillBatchSize) {
+            List<Object[]> batch = contracts.subList(from, Math.min(from + backfillBatchSize, contracts.size()));
+            List<CreditLedgerEntry> entries = new ArrayList<>(batch.size());
+            for (Object[] row : batch) {
+                double available = row[1] == null ? 0.0 : (Double) row[1];
+                entries.add(new CreditLedgerEntry((String) row[0], null, LedgerEntryType.LIMIT_CHANGE,
+                        Math.abs(available), available));
+            }
+            transactionTemplate.executeWithoutResult(status -> ledgerRepository.saveAll(entries));
+        }
+        if (!contracts.isEmpty()) {
+            logger.info("Lançamentos de abertura criados no livro de crédito: {}", contracts.size());
+        }
+    }
+
+    /**
+     * Consolida a cauda do livro nos snapshots. Só entram lançamentos mais antigos que a folga
+     * configurada, para não pular um id de transação ainda não confirmada.
+     */
+    @Scheduled(fixedDelayString = "${app.credit-ledger.snapshot-interval-ms:300000}")
+    @Transactional
+    public void snapshot() {
+        Long upTo = ledgerRepository.findMaxIdCreatedBefore(Instant.now().minusMillis(snapshotLagMs));
+        if (upTo == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        int rolled = snapshotRepository.rollForward(upTo, now);
+        if (rolled > 0) {
+            snapshotRepository.mirrorToContracts(now);
+            logger.info("Snapshots de crédito consolidados: {} contratos até o lançamento {}", rolled, upTo);
+        }
+    }
+
+    /**
+     * Confere, em paralelo por lotes de contratos, se cada snapshot bate com a soma do livro
+     * até o mesmo lançamento. Divergências são corrigidas a partir do livro.
+     */
+    @Scheduled(cron = "${app.credit-ledger.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        long startedAt = System.currentTimeMillis();
+        List<String> contractIds = snapshotRepository.findAllContractIds();
+
+        List<Future<List<Object[]>>> chunks = new ArrayList<>();
+        for (int from = 0; from < contractIds.size(); from += reconcileChunkSize) {
+            List<String> chunk = contractIds.subList(from, Math.min(from + reconcileChunkSize, contractIds.size()));
+            chunks.add(reconcileExecutor.submit(() -> findMismatches(chunk)));
+        }
+
+        int mismatches = 0;
+        for (Future<List<Object[]>> chunk : chunks) {
+            try {
+                for (Object[] row : chunk.get()) {
+                    repairSnapshot((String) row[0], (Double) row[1], (Long) row[2], (Double) row[3]);
+                    mismatches++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Falha na reconciliação de um lote de contratos: {}", e.getMessage(), e);
+            }
+        }
+
+        mismatchCounter.increment(mismatches);
+        logger.info("Reconciliação do livro de crédito: {} snapshots, {} divergentes, em {} ms",
+                contractIds.size(), mismatches, System.currentTimeMillis() - startedAt);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconcileExecutor.shutdownNow();
+    }
+
+    private List<Object[]> findMismatches(List<String> contractIds) {
+        List<Object[]> mismatches = new ArrayList<>();
+        for (Object[] row : snapshotRepository.findWithLedgerSums(contractIds)) {
+            if (Math.abs((Double) row[1] - (Double) row[3]) > EPSILON) {
+                mismatches.add(row);
+            }
+        }
+        return mismatches;
+    }
+
+    private void repairSnapshot(String contractId, Double snapshotValue, Long lastEntryId, Double ledgerValue) {
+        logger.warn("Snapshot de crédito divergente no contrato {}: snapshot {}, livro {}",
+                contractId, snapshotValue, ledgerValue);
+        // Só corrige se o snapshot não avançou desde a conferência
+        transactionTemplate.executeWithoutResult(status -> snapshotRepository.findById(contractId)
+                .filter(snapshot -> snapshot.getLastEntryId().equals(lastEntryId))
+                .ifPresent(snapshot -> snapshot.setAvailableLimit(ledgerValue)));
+    }
+
+    // Serializa reserva e mudança de limite do mesmo contrato sem travar a linha do contrato
+    private void lockContract(String contractId) {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(hashtextextended(?, 0))", contractId);
+    }
+}
@@ -2,19 +2,43 @@ package com.example.backend.service;
 
 import com.example.backend.dto.*;
 import com.example.backend.model.Customer;
+import com.example.backend.model.enums.RequestStatus;
+import com.example.backend.repository.ArchivedRentalRequestRepository;
 import com.example.backend.repository.CustomerRepository;
+import com.example.backend.repository.RentalRequestRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 public class CustomerService {
     private final CustomerRepository repo;
-
-    public CustomerService(CustomerRepository repo) {
+    private final UserDirectory userDirectory;
+    private final PageSizePolicy pageSizePolicy;
+    private final ArchivedRentalRequestRepository archivedRequestRepository;
+    private final RentalRequestRepository rentalRequestRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final FreeWindowService freeWindowService;
+    private final RentalStatisticsService rentalStatisticsService;
+
+    public CustomerService(CustomerRepository repo, UserDirectory userDirectory, PageSizePolicy pageSizePolicy,
+                           ArchivedRentalRequestRepository archivedRequestRepository,
+                           RentalRequestRepository rentalRequestRepository,
+                           AvailabilityIndex availabilityIndex,
+                           FreeWindowService freeWindowService,
+                           RentalStatisticsService rentalStatisticsService) {
         this.repo = repo;
+        this.userDirectory = userDirectory;
+        this.pageSizePolicy = pageSizePolicy;
+        this.archivedRequestRepository = archivedRequestRepository;
+        this.rentalRequestRepository = rentalRequestRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.freeWindowService = freeWindowService;
+        this.rentalStatisticsService = rentalStatisticsService;
     }
 
     public List<Customer> findAll() {
@@ -25,9 +49,12 @@ public class CustomerService {
         return repo.findById(id).orElse(null);
     }
 
+    @Transactional
     public Customer create(Customer c) {
-        c.setId(UUID.randomUUID().toString());
-        return repo.save(c);
+        c.setId(IdGenerator.newId());
+        Customer saved = repo.save(c);
+        userDirectory.put(saved);
+        return saved;
     }
 
     public Customer update(String id, Customer updated) {
@@ -38,8 +65,33 @@ public class CustomerService {
         }).orElse(null);
     }
 
+    @Transactional
     public void delete(String id) {
+        removeRequests(id);
         repo.deleteById(id);
+        userDirectory.remove(id);
+    }
+
+    /**
+     * Prepara a exclusão do cliente: apaga o histórico arquivado e, após o commit, tira do índice
+     * de disponibilidade e das estatísticas os pedidos que a exclusão remove em cascata.
+     * Chamar antes de excluir.
+     */
+    void removeRequests(String customerId) {
+        List<Object[]> bookings = rentalRequestRepository.findBookingPeriodsForCustomer(customerId,
+                RequestStatus.BOOKING_STATUSES);
+        List<Object[]> counts =
+                new ArrayList<>(rentalRequestRepository.countByAutomobileAndStatusForCustomer(customerId));
+        counts.addAll(archivedRequestRepository.countByAutomobileAndStatusForCustomer(customerId));
+        rentalStatisticsService.requestsRemoved(counts);
+        archivedRequestRepository.deleteByCustomerId(customerId);
+        TransactionHooks.afterCommit(() -> bookings.forEach(this::bookingRemoved));
+    }
+
+    private void bookingRemoved(Object[] booking) {
+        String automobileId = (String) booking[0];
+        availabilityIndex.bookingRemoved(automobileId, (LocalDate) booking[1], (LocalDate) booking[2]);
+        freeWindowService.invalidate(automobileId);
     }
 
     public List<CustomerResponseDTO> findAllAsDTO() {
@@ -48,15 +100,26 @@ public class CustomerService {
                 .collect(Collectors.toList());
     }
 
+    public KeysetPage<CustomerResponseDTO> findPageAsDTO(String cursor, Integer size) {
+        int pageSize = pageSizePolicy.resolve(size);
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<Customer> rows = position == null
+                ? repo.findPage(PageSizePolicy.probe(pageSize))
+                : repo.findPageAfter(position.getCreatedAt(), position.getId(), PageSizePolicy.probe(pageSize));
+        return KeysetPage.of(rows, pageSize, Customer::getCreatedAt, Customer::getId, this::toResponseDTO);
+    }
+
     public CustomerResponseDTO findByIdAsDTO(String id) {
         Customer customer = repo.findById(id).orElse(null);
         return customer != null ? toResponseDTO(customer) : null;
     }
 
+    @Transactional
     public CustomerResponseDTO createFromDTO(CustomerCreateDTO dto) {
         Customer customer = fromCreateDTO(dto);
-        customer.setId(UUID.randomUUID().toString());
+        customer.setId(IdGenerator.newId());
         Customer saved = repo.save(customer);
+        userDirectory.put(saved);
         return toResponseDTO(saved);
     }
 
@@ -0,0 +1,114 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.ExportFormat;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escreve linhas de uma exportação direto no stream da resposta, uma de cada vez.
+ * Nada é acumulado além do buffer de saída.
+ */
+abstract class ExportWriter {
+
+    protected final String[] columns;
+
+    private ExportWriter(String[] columns) {
+        this.columns = columns;
+    }
+
+    static ExportWriter open(ExportFormat format, OutputStream out, String[] columns,
+                             JsonFactory jsonFactory) throws IOException {
+        return format == ExportFormat.NDJSON
+                ? new Ndjson(out, columns, jsonFactory)
+                : new Csv(out, columns);
+    }
+
+    abstract void writeRow(Object[] values) throws IOException;
+
+    abstract void flush() throws IOException;
+
+    private static final class Csv extends ExportWriter {
+
+        private final Writer writer;
+
+        Csv(OutputStream out, String[] columns) throws IOException {
+            super(columns);
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writeRow(columns);
+        }
+
+        @Override
+        void writeRow(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] instanceof Number) {
+                    writer.write(values[i].toString());
+                } else if (values[i] != null) {
+                    writer.write(escape(values[i].toString()));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        void flush() throws IOException {
+            writer.flush();
+        }
+
+        private static String escape(String value) {
+            // Texto que começa como fórmula vira texto literal ao abrir a planilha (injeção de fórmula)
+            if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+                value = "'" + value;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private static final class Ndjson extends ExportWriter {
+
+        private final JsonGenerator generator;
+
+        Ndjson(OutputStream out, String[] columns, JsonFactory jsonFactory) throws IOException {
+            super(columns);
+            this.generator = jsonFactory.createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // A quebra de linha após cada objeto já separa os registros
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        void writeRow(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                generator.writeFieldName(columns[i]);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Number || value instanceof Boolean) {
+                    generator.writeObject(value);
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        void flush() throws IOException {
+            generator.flush();
+        }
+    }
+}
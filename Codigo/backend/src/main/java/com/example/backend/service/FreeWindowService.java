@@ -0,0 +1,104 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.FreeWindowDTO;
+import com.example.backend.model.enums.RequestStatus;
+import com.example.backend.repository.RentalRequestRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sugere os próximos períodos livres de um automóvel por busca de lacunas entre
+ * as reservas ordenadas. Os intervalos de cada carro ficam em cache (LRU) até a próxima
+ * alteração de pedido daquele carro.
+ */
+@Service
+public class FreeWindowService {
+
+    private final RentalRequestRepository rentalRequestRepository;
+
+    // automobileId -> [pickup0, return0, pickup1, return1, ...] em epoch days, ordenado por retirada
+    private final Map<String, long[]> intervalsByAutomobile;
+    // automobileId -> número de invalidações; uma carga só entra no cache se nenhuma ocorreu durante a consulta
+    private final Map<String, Long> generations = new HashMap<>();
+
+    public FreeWindowService(RentalRequestRepository rentalRequestRepository,
+                             @Value("${app.free-windows.cache-max-entries:10000}") int cacheMaxEntries) {
+        this.rentalRequestRepository = rentalRequestRepository;
+        this.intervalsByAutomobile = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+                return size() > cacheMaxEntries;
+            }
+        };
+    }
+
+    /**
+     * Próximos {@code count} períodos de {@code days} dias livres a partir de {@code from}.
+     * Cada sugestão é o início mais cedo de uma lacuna distinta entre reservas.
+     */
+    public List<FreeWindowDTO> findFreeWindows(String automobileId, LocalDate from, int days, int count) {
+        long length = Math.max(days, 1);
+        long cursor = Math.max(from.toEpochDay(), LocalDate.now().toEpochDay());
+        long[] intervals = intervals(automobileId);
+
+        List<FreeWindowDTO> windows = new ArrayList<>(count);
+        for (int i = 0; i < intervals.length && windows.size() < count; i += 2) {
+            long pickup = intervals[i];
+            long ret = intervals[i + 1];
+            if (ret <= cursor) {
+                continue;
+            }
+            if (pickup - cursor >= length) {
+                windows.add(window(cursor, length));
+            }
+            cursor = Math.max(cursor, ret);
+        }
+        if (windows.size() < count) {
+            windows.add(window(cursor, length));
+        }
+        return windows;
+    }
+
+    public synchronized void invalidate(String automobileId) {
+        intervalsByAutomobile.remove(automobileId);
+        generations.merge(automobileId, 1L, Long::sum);
+    }
+
+    private long[] intervals(String automobileId) {
+        long generation;
+        synchronized (this) {
+            long[] cached = intervalsByAutomobile.get(automobileId);
+            if (cached != null) {
+                return cached;
+            }
+            generation = generations.getOrDefault(automobileId, 0L);
+        }
+
+        List<Object[]> periods = rentalRequestRepository.findBookingPeriodsForAutomobile(
+                automobileId, LocalDate.now(), RequestStatus.BOOKING_STATUSES);
+        long[] intervals = new long[periods.size() * 2];
+        for (int i = 0; i < periods.size(); i++) {
+            intervals[2 * i] = ((LocalDate) periods.get(i)[0]).toEpochDay();
+            intervals[2 * i + 1] = ((LocalDate) periods.get(i)[1]).toEpochDay();
+        }
+
+        synchronized (this) {
+            // Invalidado durante a consulta: a carga pode não ter visto a alteração, então não entra no cache
+            if (generations.getOrDefault(automobileId, 0L) == generation) {
+                intervalsByAutomobile.put(automobileId, intervals);
+            }
+        }
+        return intervals;
+    }
+
+    private static FreeWindowDTO window(long startDay, long length) {
+        return new FreeWindowDTO(LocalDate.ofEpochDay(startDay), LocalDate.ofEpochDay(startDay + length));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.backend.service;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Gera os ids das entidades no formato UUIDv7: 48 bits com o instante em milissegundos seguidos
+ * de bits aleatórios. Ids novos caem no fim dos índices em vez de espalhar inserções pela árvore.
+ */
+public final class IdGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private IdGenerator() {}
+
+    public static String newId() {
+        return newUuid().toString();
+    }
+
+    private static UUID newUuid() {
+        long timestamp = System.currentTimeMillis();
+        long randA = RANDOM.nextInt(1 << 12);
+        long randB = RANDOM.nextLong();
+
+        long msb = (timestamp << 16) | 0x7000L | randA;
+        long lsb = (randB & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
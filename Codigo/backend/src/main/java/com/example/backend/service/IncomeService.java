@@ -1,7 +1,6 @@
 package com.example.backend.service;
 
 import java.util.List;
-import java.util.UUID;
 
 import org.springframework.stereotype.Service;
 
@@ -26,7 +25,7 @@ public class IncomeService {
                 throw new IncomeLimitExceededException("O usuário só pode cadastrar até 3 rendas.");
             }
         }
-        i.setId(UUID.randomUUID().toString());
+        i.setId(IdGenerator.newId());
         return repo.save(i);
     }
     public void delete(String id) { repo.deleteById(id); }
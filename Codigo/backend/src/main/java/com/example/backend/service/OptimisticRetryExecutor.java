@@ -0,0 +1,73 @@
+package com.example.backend.service;
+
+import com.example.backend.exception.ConcurrentUpdateException;
+import jakarta.persistence.OptimisticLockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Executa uma operação em transação própria e a repete quando outra transação alterou
+ * a mesma versão de entidade (conflito otimista). Cada tentativa relê o estado do banco.
+ * Deve ser chamado fora de transação: dentro de uma, a repetição não teria efeito.
+ */
+@Component
+public class OptimisticRetryExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetryExecutor.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    public OptimisticRetryExecutor(TransactionTemplate transactionTemplate,
+                                   @Value("${app.concurrency.max-attempts:3}") int maxAttempts,
+                                   @Value("${app.concurrency.backoff-ms:20}") long backoffMs) {
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = backoffMs;
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= maxAttempts) {
+                    logger.warn("Conflito de concorrência persistiu após {} tentativas: {}", attempt, e.getMessage());
+                    throw new ConcurrentUpdateException(
+                            "O registro foi alterado por outra operação. Recarregue e tente novamente.", e);
+                }
+                logger.debug("Conflito de concorrência na tentativa {}, repetindo", attempt);
+                pause(attempt);
+            }
+        }
+    }
+
+    public void run(Runnable action) {
+        execute(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // Espera crescente com jitter para que as transações concorrentes não colidam de novo
+    private void pause(int attempt) {
+        if (backoffMs <= 0) {
+            return;
+        }
+        long delay = backoffMs * attempt + ThreadLocalRandom.current().nextLong(backoffMs);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentUpdateException("Operação interrompida", e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tamanho padrão e máximo das páginas das listagens.
+ */
+@Component
+public class PageSizePolicy {
+
+    private final int defaultSize;
+    private final int maxSize;
+
+    public PageSizePolicy(@Value("${app.pagination.default-size:100}") int defaultSize,
+                          @Value("${app.pagination.max-size:500}") int maxSize) {
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+    }
+
+    public int resolve(Integer requested) {
+        if (requested == null) {
+            return defaultSize;
+        }
+        return Math.max(1, Math.min(requested, maxSize));
+    }
+
+    // Busca uma linha a mais para saber se existe próxima página
+    public static Pageable probe(int size) {
+        return PageRequest.of(0, size + 1);
+    }
+}
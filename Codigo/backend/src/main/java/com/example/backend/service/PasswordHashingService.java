@@ -0,0 +1,203 @@
+package com.example.backend.service;
+
+import com.example.backend.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Executa o hashing BCrypt de login e cadastro em um pool dedicado e limitado,
+ * fora das threads do Tomcat. Quando a fila enche, a requisição é rejeitada com HTTP 429.
+ * Tentativas idênticas e simultâneas (mesmo usuário e mesma senha) compartilham um único cálculo.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, CompletableFuture<Boolean>> inFlightMatches = new ConcurrentHashMap<>();
+    private final int bcryptStrength;
+    private final long timeoutMs;
+
+    private final Timer queueTimer;
+    private final Timer matchTimer;
+    private final Timer encodeTimer;
+    private final Counter rejectedCounter;
+    private final Counter coalescedCounter;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.security.bcrypt.strength:10}") int bcryptStrength,
+                                  @Value("${app.security.password-hashing.threads:0}") int threads,
+                                  @Value("${app.security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${app.security.password-hashing.timeout-ms:5000}") long timeoutMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.bcryptStrength = bcryptStrength;
+        this.timeoutMs = timeoutMs;
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.queueTimer = Timer.builder("auth.password.hash.queue")
+                .description("Tempo de espera na fila do pool de hashing")
+                .register(meterRegistry);
+        this.matchTimer = Timer.builder("auth.password.hash.time")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("auth.password.hash.time")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.password.hash.rejected").register(meterRegistry);
+        this.coalescedCounter = Counter.builder("auth.password.hash.coalesced").register(meterRegistry);
+        meterRegistry.gauge("auth.password.hash.queue.depth", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("auth.password.hash.active", executor, ThreadPoolExecutor::getActiveCount);
+
+        logger.info("Pool de hashing de senhas: {} threads, fila de {}, BCrypt custo {}",
+                poolSize, queueCapacity, bcryptStrength);
+    }
+
+    /**
+     * Verifica a senha informada contra o hash armazenado.
+     */
+    public boolean matches(String username, String rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+
+        String key = username + ':' + fingerprint(rawPassword, encodedPassword);
+        CompletableFuture<Boolean> future = inFlightMatches.get(key);
+        if (future != null) {
+            coalescedCounter.increment();
+        } else {
+            future = inFlightMatches.computeIfAbsent(key, k ->
+                    submit(() -> passwordEncoder.matches(rawPassword, encodedPassword), matchTimer));
+            CompletableFuture<Boolean> registered = future;
+            future.whenComplete((result, error) -> inFlightMatches.remove(key, registered));
+        }
+
+        return await(future);
+    }
+
+    public String encode(String rawPassword) {
+        return await(submit(() -> passwordEncoder.encode(rawPassword), encodeTimer));
+    }
+
+    /**
+     * Indica se o hash foi gerado com um custo diferente do configurado.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        // Formato BCrypt: $2a$10$...
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) != bcryptStrength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gera um novo hash em segundo plano. Se o pool estiver saturado, a atualização
+     * é simplesmente adiada para o próximo login.
+     */
+    public void rehashAsync(String rawPassword, Consumer<String> onRehashed) {
+        try {
+            submit(() -> passwordEncoder.encode(rawPassword), encodeTimer)
+                    .thenAccept(onRehashed)
+                    .exceptionally(error -> {
+                        logger.warn("Falha ao atualizar hash de senha: {}", error.getMessage());
+                        return null;
+                    });
+        } catch (TooManyRequestsException e) {
+            logger.debug("Rehash adiado: pool de hashing saturado");
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task, Timer hashTimer) {
+        long enqueuedAt = System.nanoTime();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                queueTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    future.complete(hashTimer.record(task));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new TooManyRequestsException("Muitas tentativas de autenticação simultâneas. Tente novamente em instantes", e);
+        }
+        return future;
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new TooManyRequestsException("Tempo de processamento da autenticação excedido. Tente novamente em instantes", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hashing de senha interrompido", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Falha no hashing de senha", e.getCause());
+        }
+    }
+
+    // Chave de coalescência sem manter a senha em claro no mapa
+    private static String fingerprint(String rawPassword, String encodedPassword) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(rawPassword.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.backend.service;
+
+import com.example.backend.exception.InvalidRefreshTokenException;
+import com.example.backend.model.RefreshToken;
+import com.example.backend.repository.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Emite e rotaciona refresh tokens. O token em claro só existe na resposta ao cliente;
+ * o banco e o cache guardam apenas o hash. Reapresentar um token já rotacionado
+ * revoga toda a família (indício de token vazado).
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final long refreshExpirationMs;
+    private final int cacheMaxEntries;
+
+    // Cache somente de tokens ativos, indexado pelo hash
+    private final Map<String, RefreshToken> activeTokens = new ConcurrentHashMap<>();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               @Value("${app.jwt.refresh-expiration:2592000000}") long refreshExpirationMs,
+                               @Value("${app.jwt.refresh-cache-max-entries:10000}") int cacheMaxEntries) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshExpirationMs = refreshExpirationMs;
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+
+    public static final class Rotation {
+        private final String refreshToken;
+        private final String userId;
+
+        Rotation(String refreshToken, String userId) {
+            this.refreshToken = refreshToken;
+            this.userId = userId;
+        }
+
+        public String getRefreshToken() { return refreshToken; }
+        public String getUserId() { return userId; }
+    }
+
+    /**
+     * Cria um refresh token para uma nova sessão (nova família).
+     */
+    @Transactional
+    public String issue(String userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Troca o refresh token por um novo da mesma família.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotation rotate(String rawToken) {
+        String tokenHash = hash(rawToken);
+        RefreshToken current = activeTokens.get(tokenHash);
+        if (current == null) {
+            current = refreshTokenRepository.findById(tokenHash)
+                    .orElseThrow(() -> new InvalidRefreshTokenException("Refresh token inválido"));
+        }
+
+        if (current.isExpired(Instant.now())) {
+            activeTokens.remove(tokenHash);
+            throw new InvalidRefreshTokenException("Refresh token expirado");
+        }
+
+        if (current.isRevoked() || refreshTokenRepository.revokeIfActive(tokenHash) == 0) {
+            String familyId = current.getFamilyId();
+            refreshTokenRepository.revokeFamily(familyId);
+            TransactionHooks.afterCommit(() -> evictFamily(familyId));
+            logger.warn("Refresh token reuse detected for user {} - family {} revoked",
+                    current.getUserId(), familyId);
+            throw new InvalidRefreshTokenException("Refresh token já utilizado");
+        }
+
+        TransactionHooks.afterCommit(() -> activeTokens.remove(tokenHash));
+        String next = issue(current.getUserId(), current.getFamilyId());
+        return new Rotation(next, current.getUserId());
+    }
+
+    /**
+     * Revoga a sessão (família) do refresh token informado, se existir.
+     */
+    @Transactional
+    public void revokeFamilyOf(String rawToken) {
+        refreshTokenRepository.findById(hash(rawToken)).ifPresent(token -> {
+            String familyId = token.getFamilyId();
+            refreshTokenRepository.revokeFamily(familyId);
+            TransactionHooks.afterCommit(() -> evictFamily(familyId));
+        });
+    }
+
+    /**
+     * Revoga todos os refresh tokens do usuário (ex.: exclusão da conta).
+     */
+    @Transactional
+    public void revokeAllForUser(String userId) {
+        refreshTokenRepository.revokeAllForUser(userId);
+        TransactionHooks.afterCommit(() ->
+                activeTokens.values().removeIf(token -> token.getUserId().equals(userId)));
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.refresh-purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        activeTokens.values().removeIf(token -> token.isExpired(now));
+        int removed = refreshTokenRepository.deleteExpired(now);
+        if (removed > 0) {
+            logger.info("Refresh tokens expirados removidos: {}", removed);
+        }
+    }
+
+    private String issue(String userId, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken token = new RefreshToken(hash(rawToken), familyId, userId,
+                Instant.now().plusMillis(refreshExpirationMs));
+        refreshTokenRepository.save(token);
+
+        TransactionHooks.afterCommit(() -> {
+            if (activeTokens.size() < cacheMaxEntries) {
+                activeTokens.put(token.getTokenHash(), token);
+            }
+        });
+        return rawToken;
+    }
+
+    private void evictFamily(String familyId) {
+        activeTokens.values().removeIf(token -> token.getFamilyId().equals(familyId));
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
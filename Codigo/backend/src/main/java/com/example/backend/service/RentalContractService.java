@@ -5,7 +5,6 @@ import com.example.backend.repository.RentalContractRepository;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.UUID;
 
 @Service
 public class RentalContractService {
@@ -15,6 +14,6 @@ public class RentalContractService {
 
     public List<RentalContract> findAll() { return repo.findAll(); }
     public RentalContract findById(String id) { return repo.findById(id).orElse(null); }
-    public RentalContract create(RentalContract rc) { rc.setId(UUID.randomUUID().toString()); return repo.save(rc); }
+    public RentalContract create(RentalContract rc) { rc.setId(IdGenerator.newId()); return repo.save(rc); }
     public void delete(String id) { repo.deleteById(id); }
 }
@@ -0,0 +1,118 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.ArchivedRentalRequestRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Move pedidos encerrados (concluídos, cancelados e rejeitados) mais antigos que a idade
+ * configurada de rental_request para rental_request_archive, particionada por mês de criação.
+ * Assim rental_request guarda só pedidos recentes ou em andamento, que são o que as consultas
+ * quentes (fila, sobreposição, disponibilidade) leem. Roda em lotes, cada um na sua transação:
+ * trava os pedidos do lote, cria as partições dos meses deles e só então move. Com as linhas
+ * travadas o status não muda no meio do caminho, então nenhum pedido chega sem partição.
+ *
+ * <p>As partições do arquivo não são comprimidas. O Postgres puro não comprime linhas de tabela,
+ * só valores grandes via TOAST (pglz/lz4), que só entra em linhas acima de ~2 KB; um pedido ocupa
+ * poucas centenas de bytes. O ganho do arquivo vem de tirar as linhas de rental_request e de
+ * partições mensais que nunca são atualizadas, que podem ser desanexadas e exportadas se for preciso.
+ */
+@Service
+public class RentalRequestArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RentalRequestArchiveService.class);
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    // Pedidos com contrato de aluguel ficam em rental_request (o contrato referencia o pedido)
+    private static final String LOCK_BATCH =
+            "SELECT h.id, h.created_at FROM rental_request h "
+                    + "WHERE h.status IN ('COMPLETED', 'CANCELLED', 'REJECTED') AND h.created_at < ? "
+                    + "AND NOT EXISTS (SELECT 1 FROM rental_contract rc WHERE rc.rental_request_id = h.id) "
+                    + "LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private final ArchivedRentalRequestRepository archiveRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int minAgeDays;
+    private final int batchSize;
+    private final Counter archivedCounter;
+
+    public RentalRequestArchiveService(ArchivedRentalRequestRepository archiveRepository,
+                                       JdbcTemplate jdbcTemplate,
+                                       TransactionTemplate transactionTemplate,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${app.rental-requests.archive.enabled:true}") boolean enabled,
+                                       @Value("${app.rental-requests.archive.min-age-days:180}") int minAgeDays,
+                                       @Value("${app.rental-requests.archive.batch-size:1000}") int batchSize) {
+        this.archiveRepository = archiveRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.minAgeDays = minAgeDays;
+        this.batchSize = Math.max(1, batchSize);
+        this.archivedCounter = Counter.builder("rental.requests.archived")
+                .description("Pedidos movidos para o arquivo")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.rental-requests.archive.cron:0 0 4 * * *}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        LocalDate cutoff = LocalDate.now().minusDays(minAgeDays);
+
+        long archived = 0;
+        int moved;
+        do {
+            Integer batch = transactionTemplate.execute(status -> moveBatch(cutoff));
+            moved = batch == null ? 0 : batch;
+            archived += moved;
+        } while (moved == batchSize);
+
+        archivedCounter.increment(archived);
+        if (archived > 0) {
+            logger.info("Pedidos arquivados: {} criados antes de {}, em {} ms",
+                    archived, cutoff, System.currentTimeMillis() - startedAt);
+        }
+    }
+
+    private int moveBatch(LocalDate cutoff) {
+        List<UUID> ids = new ArrayList<>(batchSize);
+        Set<LocalDate> months = new TreeSet<>();
+        jdbcTemplate.query(LOCK_BATCH, rs -> {
+            ids.add(rs.getObject("id", UUID.class));
+            months.add(rs.getObject("created_at", LocalDate.class).withDayOfMonth(1));
+        }, cutoff, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        months.forEach(this::createPartition);
+        return archiveRepository.moveBatch(ids);
+    }
+
+    private void createPartition(LocalDate month) {
+        String partition = "rental_request_archive_" + month.format(PARTITION_SUFFIX);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition
+                + " PARTITION OF rental_request_archive"
+                + " FOR VALUES FROM ('" + month + "') TO ('" + month.plusMonths(1) + "')");
+    }
+}
@@ -1,22 +1,33 @@
 package com.example.backend.service;
 
 import com.example.backend.dto.*;
+import com.example.backend.exception.AutomobileUnavailableException;
 import com.example.backend.model.Automobile;
 import com.example.backend.model.Customer;
 import com.example.backend.model.RentalRequest;
 import com.example.backend.model.enums.RequestStatus;
 import com.example.backend.model.enums.UserRole;
+import com.example.backend.repository.ArchivedRentalRequestRepository;
 import com.example.backend.repository.AutomobileRepository;
+import com.example.backend.repository.BookingCommandRepository;
 import com.example.backend.repository.CustomerRepository;
 import com.example.backend.repository.RentalRequestRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,50 +35,86 @@ public class RentalRequestService {
 
     private static final Logger logger = LoggerFactory.getLogger(RentalRequestService.class);
 
+    // Nome da exclusion constraint criada pela migração V3
+    static final String OVERLAP_CONSTRAINT = "ex_rental_request_no_overlap";
+
+    private static final int SUGGESTED_WINDOWS = 3;
+
+    // Mesma ordem das consultas (createdAt DESC, id DESC), para juntar pedidos correntes e arquivados
+    private static final Comparator<RentalRequestResponseDTO> NEWEST_FIRST = Comparator
+            .comparing(RentalRequestResponseDTO::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(RentalRequestResponseDTO::getId, Comparator.reverseOrder());
+
     private final RentalRequestRepository rentalRequestRepository;
     private final CustomerRepository customerRepository;
     private final AutomobileRepository automobileRepository;
     private final CreditContractService creditContractService;
-    private final UserService userService;
+    private final AvailabilityIndex availabilityIndex;
+    private final FreeWindowService freeWindowService;
+    private final PageSizePolicy pageSizePolicy;
+    private final RentalStatisticsService rentalStatisticsService;
+    private final OptimisticRetryExecutor optimisticRetry;
+    private final BookingCommandRepository bookingCommandRepository;
+    private final ArchivedRentalRequestRepository archivedRequestRepository;
+    private final boolean singleStatementBooking;
+
+    // Cache de posse (pedido + agente) -> instante de expiração; só guarda respostas positivas
+    private final Map<String, Long> ownershipCache = new ConcurrentHashMap<>();
+    private final long ownershipCacheTtlMs;
+    private final int ownershipCacheMaxEntries;
 
     public RentalRequestService(
             RentalRequestRepository rentalRequestRepository,
             CustomerRepository customerRepository,
             AutomobileRepository automobileRepository,
             CreditContractService creditContractService,
-            UserService userService) {
+            AvailabilityIndex availabilityIndex,
+            FreeWindowService freeWindowService,
+            PageSizePolicy pageSizePolicy,
+            RentalStatisticsService rentalStatisticsService,
+            OptimisticRetryExecutor optimisticRetry,
+            BookingCommandRepository bookingCommandRepository,
+            ArchivedRentalRequestRepository archivedRequestRepository,
+            @Value("${app.booking.single-statement.enabled:false}") boolean singleStatementBooking,
+            @Value("${app.rental-requests.ownership-cache-ttl-ms:30000}") long ownershipCacheTtlMs,
+            @Value("${app.rental-requests.ownership-cache-max-entries:10000}") int ownershipCacheMaxEntries) {
         this.rentalRequestRepository = rentalRequestRepository;
         this.customerRepository = customerRepository;
         this.automobileRepository = automobileRepository;
         this.creditContractService = creditContractService;
-        this.userService = userService;
+        this.availabilityIndex = availabilityIndex;
+        this.freeWindowService = freeWindowService;
+        this.pageSizePolicy = pageSizePolicy;
+        this.rentalStatisticsService = rentalStatisticsService;
+        this.optimisticRetry = optimisticRetry;
+        this.bookingCommandRepository = bookingCommandRepository;
+        this.archivedRequestRepository = archivedRequestRepository;
+        this.singleStatementBooking = singleStatementBooking;
+        this.ownershipCacheTtlMs = ownershipCacheTtlMs;
+        this.ownershipCacheMaxEntries = ownershipCacheMaxEntries;
     }
 
     /**
      * Cria um novo pedido de aluguel com verificação de limite de crédito
      */
-    @Transactional
     public RentalRequestResponseDTO createRequest(String customerUsername, RentalRequestCreateDTO dto) {
-        // Validações básicas de data
-        if (dto.getReturnDate().isBefore(dto.getPickupDate())) {
-            throw new IllegalArgumentException("Data de devolução deve ser posterior à data de retirada");
-        }
+        return withSuggestedWindows(() -> singleStatementBooking
+                ? createRequestInSingleStatement(customerUsername, dto)
+                : optimisticRetry.execute(() -> doCreateRequest(customerUsername, dto)));
+    }
 
-        if (dto.getPickupDate().isBefore(LocalDate.now())) {
-            throw new IllegalArgumentException("Data de retirada deve ser no presente ou futuro");
-        }
+    private RentalRequestResponseDTO doCreateRequest(String customerUsername, RentalRequestCreateDTO dto) {
+        validateBookingDates(dto);
 
         // Buscar cliente
         Customer customer = customerRepository.findByUsername(customerUsername)
                 .orElseThrow(() -> new IllegalArgumentException("Cliente não encontrado"));
 
-        // Buscar automóvel
-        Automobile automobile = automobileRepository.findById(dto.getAutomobileId())
+        // Buscar automóvel com incremento de versão, para que reservas simultâneas do mesmo carro conflitem
+        Automobile automobile = automobileRepository.findByIdForBooking(dto.getAutomobileId())
                 .orElseThrow(() -> new IllegalArgumentException("Automóvel não encontrado"));
 
-        if (!automobile.isAvailable()) {
-            throw new IllegalArgumentException("Automóvel não está disponível");
-        }
+        ensureNoOverlap(automobile.getId(), dto.getPickupDate(), dto.getReturnDate(), null);
 
         // Criar o pedido temporariamente para calcular o valor
         RentalRequest tempRequest = new RentalRequest();
@@ -78,38 +125,29 @@ public class RentalRequestService {
 
         Double totalValue = tempRequest.getTotalValue();
 
-        // NOVA LÓGICA: Verificar se o carro pertence a um agente bancário
-        String carOwnerUsername = automobile.getCreatedByAgentUsername();
+        // Se o dono do carro é um agente bancário, verificar limite de crédito
+        if (automobile.isOwnedByBankAgent()) {
+            logger.info("Carro pertence a agente bancário {}. Verificando limite de crédito...",
+                    automobile.getCreatedByAgentUsername());
 
-        if (carOwnerUsername != null) {
-            // Buscar informações do dono do carro
-            UserResponseDTO carOwner = userService.findByUsername(carOwnerUsername)
-                    .orElse(null);
+            boolean hasCredit = creditContractService.hasAvailableCreditById(
+                    customer.getId(), automobile.getCreatedByAgentId(), totalValue);
 
-            // Se o dono é um agente bancário, verificar limite de crédito
-            if (carOwner != null && carOwner.getRole() == UserRole.AGENT_BANK) {
-                logger.info("Carro pertence a agente bancário {}. Verificando limite de crédito...",
-                        carOwnerUsername);
-
-                boolean hasCredit = creditContractService.hasAvailableCredit(
-                        customerUsername, carOwnerUsername, totalValue);
-
-                if (!hasCredit) {
-                    logger.warn("Cliente {} não possui limite de crédito suficiente. Valor necessário: {}",
-                            customerUsername, totalValue);
-                    throw new IllegalArgumentException(
-                            "Limite de crédito insuficiente. Entre em contato com o banco para aumentar seu limite.");
-                }
-
-                logger.info("Cliente {} possui limite de crédito suficiente", customerUsername);
-            } else {
-                logger.info("Carro pertence a agente empresa ou owner não encontrado. Não há verificação de crédito.");
+            if (!hasCredit) {
+                logger.warn("Cliente {} não possui limite de crédito suficiente. Valor necessário: {}",
+                        customerUsername, totalValue);
+                throw new IllegalArgumentException(
+                        "Limite de crédito insuficiente. Entre em contato com o banco para aumentar seu limite.");
             }
+
+            logger.info("Cliente {} possui limite de crédito suficiente", customerUsername);
+        } else {
+            logger.info("Carro pertence a agente empresa ou owner não encontrado. Não há verificação de crédito.");
         }
 
         // Criar o pedido definitivo
         RentalRequest request = new RentalRequest();
-        request.setId(UUID.randomUUID().toString());
+        request.setId(IdGenerator.newId());
         request.setCustomer(customer);
         request.setAutomobile(automobile);
         request.setPickupDate(dto.getPickupDate());
@@ -119,54 +157,266 @@ public class RentalRequestService {
         request.setCreatedAt(LocalDate.now());
         request.calculateTotalValue();
 
-        // Marcar carro como indisponível
-        automobile.setAvailable(false);
-        automobileRepository.save(automobile);
-
-        RentalRequest savedRequest = rentalRequestRepository.save(request);
+        RentalRequest savedRequest = saveBooking(request);
+        trackBookingChange(savedRequest, true);
+        trackStatusChange(savedRequest, null, RequestStatus.PENDING);
 
         logger.info("Pedido criado com sucesso: {}", savedRequest.getId());
 
         return convertToResponseDTO(savedRequest);
     }
 
+    /**
+     * Mesmo fluxo do createRequest em um único comando no banco (BookingCommandRepository).
+     * Sem transação aberta na aplicação: o comando é atômico e confirma sozinho.
+     */
+    private RentalRequestResponseDTO createRequestInSingleStatement(String customerUsername,
+                                                                    RentalRequestCreateDTO dto) {
+        validateBookingDates(dto);
+
+        BookingCommandRepository.Result result;
+        try {
+            result = bookingCommandRepository.createBooking(IdGenerator.newId(), customerUsername,
+                    dto.getAutomobileId(), dto.getPickupDate(), dto.getReturnDate(), dto.getObservations());
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                throw conflict(dto.getAutomobileId(), dto.getPickupDate(), dto.getReturnDate());
+            }
+            throw e;
+        }
+
+        if (result.getCustomerId() == null) {
+            throw new IllegalArgumentException("Cliente não encontrado");
+        }
+        if (result.getAutomobileId() == null) {
+            throw new IllegalArgumentException("Automóvel não encontrado");
+        }
+        if (result.isOverlapping()) {
+            throw conflict(result.getAutomobileId(), dto.getPickupDate(), dto.getReturnDate());
+        }
+        if (!result.isCreditOk()) {
+            logger.warn("Cliente {} não possui limite de crédito suficiente. Valor necessário: {}",
+                    customerUsername, result.getTotalValue());
+            throw new IllegalArgumentException(
+                    "Limite de crédito insuficiente. Entre em contato com o banco para aumentar seu limite.");
+        }
+        if (!result.isInserted()) {
+            throw new IllegalStateException("Pedido não foi criado");
+        }
+
+        RentalRequest request = bookedRequest(result, customerUsername, dto);
+        trackBookingChange(request, true);
+        trackStatusChange(request, null, RequestStatus.PENDING);
+
+        logger.info("Pedido criado com sucesso: {}", request.getId());
+
+        return convertToResponseDTO(request);
+    }
+
+    // Monta o pedido criado a partir das colunas devolvidas pelo comando, sem nova consulta
+    private static RentalRequest bookedRequest(BookingCommandRepository.Result result, String customerUsername,
+                                               RentalRequestCreateDTO dto) {
+        Customer customer = new Customer();
+        customer.setId(result.getCustomerId());
+        customer.setUsername(customerUsername);
+        customer.setEmail(result.getCustomerEmail());
+
+        Automobile automobile = new Automobile();
+        automobile.setId(result.getAutomobileId());
+        automobile.setBrand(result.getBrand());
+        automobile.setModel(result.getModel());
+        automobile.setYear(result.getYear());
+        automobile.setDailyRate(result.getDailyRate());
+        automobile.setCreatedByAgentId(result.getOwnerId());
+        automobile.setCreatedByAgentUsername(result.getOwnerUsername());
+        automobile.setCreatedByAgentRole(result.getOwnerRole() == null ? null : UserRole.valueOf(result.getOwnerRole()));
+
+        RentalRequest request = new RentalRequest();
+        request.setId(result.getInsertedId());
+        request.setCustomer(customer);
+        request.setAutomobile(automobile);
+        request.setPickupDate(dto.getPickupDate());
+        request.setReturnDate(dto.getReturnDate());
+        request.setObservations(dto.getObservations());
+        request.setStatus(RequestStatus.PENDING);
+        request.setCreatedAt(result.getCreatedAt());
+        request.calculateTotalValue();
+        return request;
+    }
+
+    private static void validateBookingDates(RentalRequestCreateDTO dto) {
+        if (dto.getReturnDate().isBefore(dto.getPickupDate())) {
+            throw new IllegalArgumentException("Data de devolução deve ser posterior à data de retirada");
+        }
+
+        if (dto.getPickupDate().isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Data de retirada deve ser no presente ou futuro");
+        }
+    }
+
     @Transactional(readOnly = true)
     public List<RentalRequestResponseDTO> findAllRequests() {
-        return rentalRequestRepository.findAll().stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        return rentalRequestRepository.findAllViews();
     }
 
     @Transactional(readOnly = true)
     public RentalRequestResponseDTO findRequestById(String id) {
-        RentalRequest request = rentalRequestRepository.findById(id)
+        return rentalRequestRepository.findById(id)
+                .map(this::convertToResponseDTO)
+                .or(() -> archivedRequestRepository.findViewById(id))
                 .orElseThrow(() -> new IllegalArgumentException("Pedido não encontrado"));
-        return convertToResponseDTO(request);
     }
 
     @Transactional(readOnly = true)
     public List<RentalRequestResponseDTO> findPendingRequests() {
-        return rentalRequestRepository.findAllPending().stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        return rentalRequestRepository.findViewsByStatus(RequestStatus.PENDING);
+    }
+
+    /**
+     * Histórico do cliente: junta a página dos pedidos correntes com a do arquivo pela mesma chave.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<RentalRequestResponseDTO> findRequestsByCustomerPage(String customerUsername,
+                                                                          String cursor, Integer size) {
+        int pageSize = pageSizePolicy.resolve(size);
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<RentalRequestResponseDTO> merged = new ArrayList<>(2 * (pageSize + 1));
+        if (position == null) {
+            merged.addAll(rentalRequestRepository.findPageByCustomerUsername(customerUsername,
+                    PageSizePolicy.probe(pageSize)));
+            merged.addAll(archivedRequestRepository.findPageByCustomerUsername(customerUsername,
+                    PageSizePolicy.probe(pageSize)));
+        } else {
+            merged.addAll(rentalRequestRepository.findPageByCustomerUsernameAfter(customerUsername,
+                    position.getCreatedAt(), position.getId(), PageSizePolicy.probe(pageSize)));
+            merged.addAll(archivedRequestRepository.findPageByCustomerUsernameAfter(customerUsername,
+                    position.getCreatedAt(), position.getId(), PageSizePolicy.probe(pageSize)));
+        }
+        return mergedPage(merged, pageSize);
+    }
+
+    /**
+     * Pedidos dos automóveis do agente, correntes e arquivados, paginados pela mesma chave.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<RentalRequestResponseDTO> findRequestsForAgentAutomobilesPage(String agentUsername,
+                                                                                   String cursor, Integer size) {
+        int pageSize = pageSizePolicy.resolve(size);
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<RentalRequestResponseDTO> merged = new ArrayList<>(2 * (pageSize + 1));
+        if (position == null) {
+            merged.addAll(rentalRequestRepository.findPageForAgentAutomobiles(agentUsername,
+                    PageSizePolicy.probe(pageSize)));
+            merged.addAll(archivedRequestRepository.findPageForAgentAutomobiles(agentUsername,
+                    PageSizePolicy.probe(pageSize)));
+        } else {
+            merged.addAll(rentalRequestRepository.findPageForAgentAutomobilesAfter(agentUsername,
+                    position.getCreatedAt(), position.getId(), PageSizePolicy.probe(pageSize)));
+            merged.addAll(archivedRequestRepository.findPageForAgentAutomobilesAfter(agentUsername,
+                    position.getCreatedAt(), position.getId(), PageSizePolicy.probe(pageSize)));
+        }
+        return mergedPage(merged, pageSize);
+    }
+
+    // Ordena as duas fontes pela chave e corta na sonda de página (pageSize + 1)
+    private static KeysetPage<RentalRequestResponseDTO> mergedPage(List<RentalRequestResponseDTO> merged,
+                                                                   int pageSize) {
+        merged.sort(NEWEST_FIRST);
+        List<RentalRequestResponseDTO> rows = merged.size() > pageSize + 1 ? merged.subList(0, pageSize + 1) : merged;
+        return KeysetPage.of(rows, pageSize, RentalRequestResponseDTO::getCreatedAt, RentalRequestResponseDTO::getId,
+                Function.identity());
+    }
+
+    /**
+     * Fila de pedidos pendentes dos automóveis do agente, filtrada e paginada no banco.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<RentalRequestResponseDTO> findPendingQueueForAgent(String agentUsername,
+                                                                        String cursor, Integer size) {
+        int pageSize = pageSizePolicy.resolve(size);
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<RentalRequestResponseDTO> rows = position == null
+                ? rentalRequestRepository.findQueueForAgent(agentUsername, RequestStatus.PENDING,
+                        PageSizePolicy.probe(pageSize))
+                : rentalRequestRepository.findQueueForAgentAfter(agentUsername, RequestStatus.PENDING,
+                        position.getCreatedAt(), position.getId(), PageSizePolicy.probe(pageSize));
+        return KeysetPage.of(rows, pageSize, RentalRequestResponseDTO::getCreatedAt, RentalRequestResponseDTO::getId,
+                Function.identity());
+    }
+
+    /**
+     * Contagem de pedidos por status a partir dos contadores em memória.
+     * Sem automóvel informado, devolve a frota do agente ou, com {@code fleetOnly} falso, o total geral.
+     */
+    public Map<String, Object> getStatistics(String agentUsername, boolean fleetOnly, String automobileId) {
+        if (automobileId != null) {
+            if (!automobileRepository.existsByIdAndCreatedByAgentUsername(automobileId, agentUsername)) {
+                throw new IllegalArgumentException("Automóvel não encontrado");
+            }
+            return rentalStatisticsService.forAutomobile(automobileId);
+        }
+        return fleetOnly ? rentalStatisticsService.forAgent(agentUsername) : rentalStatisticsService.overall();
     }
 
     @Transactional(readOnly = true)
     public List<RentalRequestResponseDTO> findRequestsByCustomer(String customerUsername) {
-        return rentalRequestRepository.findByCustomerUsername(customerUsername).stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        List<RentalRequestResponseDTO> requests =
+                new ArrayList<>(rentalRequestRepository.findViewsByCustomerUsername(customerUsername));
+        requests.addAll(archivedRequestRepository.findViewsByCustomerUsername(customerUsername));
+        requests.sort(NEWEST_FIRST);
+        return requests;
     }
 
     @Transactional(readOnly = true)
     public List<RentalRequestResponseDTO> findRequestsForAgentAutomobiles(String agentUsername) {
-        return rentalRequestRepository.findRequestsForAgentAutomobiles(agentUsername).stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        List<RentalRequestResponseDTO> requests =
+                new ArrayList<>(rentalRequestRepository.findViewsForAgentAutomobiles(agentUsername));
+        requests.addAll(archivedRequestRepository.findViewsForAgentAutomobiles(agentUsername));
+        requests.sort(NEWEST_FIRST);
+        return requests;
+    }
+
+    /**
+     * Verifica se o pedido é de um automóvel cadastrado pelo agente, com uma única consulta indexada.
+     */
+    @Transactional(readOnly = true)
+    public boolean isRequestOwnedByAgent(String requestId, String agentUsername) {
+        if (ownershipCacheTtlMs <= 0) {
+            return ownedByAgent(requestId, agentUsername);
+        }
+
+        String key = requestId + '|' + agentUsername;
+        long now = System.currentTimeMillis();
+        Long expiresAt = ownershipCache.get(key);
+        if (expiresAt != null && expiresAt > now) {
+            return true;
+        }
+
+        boolean owner = ownedByAgent(requestId, agentUsername);
+        if (owner) {
+            if (ownershipCache.size() >= ownershipCacheMaxEntries) {
+                ownershipCache.values().removeIf(expiry -> expiry <= now);
+            }
+            if (ownershipCache.size() < ownershipCacheMaxEntries) {
+                ownershipCache.put(key, now + ownershipCacheTtlMs);
+            }
+        } else if (expiresAt != null) {
+            ownershipCache.remove(key);
+        }
+        return owner;
+    }
+
+    // Pedidos arquivados continuam visíveis para o dono do automóvel
+    private boolean ownedByAgent(String requestId, String agentUsername) {
+        return rentalRequestRepository.existsByIdAndAutomobileOwner(requestId, agentUsername)
+                || archivedRequestRepository.existsByIdAndAutomobileOwner(requestId, agentUsername);
     }
 
-    @Transactional
     public RentalRequestResponseDTO updateRequest(String id, String customerUsername, RentalRequestUpdateDTO dto) {
+        return withSuggestedWindows(() -> optimisticRetry.execute(() -> doUpdateRequest(id, customerUsername, dto)));
+    }
+
+    private RentalRequestResponseDTO doUpdateRequest(String id, String customerUsername, RentalRequestUpdateDTO dto) {
         RentalRequest request = rentalRequestRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Pedido não encontrado"));
 
@@ -179,6 +429,9 @@ public class RentalRequestService {
                     request.getStatus().getDescription());
         }
 
+        LocalDate previousPickupDate = request.getPickupDate();
+        LocalDate previousReturnDate = request.getReturnDate();
+
         if (dto.getPickupDate() != null) {
             if (dto.getPickupDate().isBefore(LocalDate.now())) {
                 throw new IllegalArgumentException("Data de retirada deve ser no presente ou futuro");
@@ -194,24 +447,50 @@ public class RentalRequestService {
             throw new IllegalArgumentException("Data de devolução deve ser posterior à data de retirada");
         }
 
+        if (dto.getPickupDate() != null || dto.getReturnDate() != null) {
+            lockAutomobile(request.getAutomobile().getId());
+            ensureNoOverlap(request.getAutomobile().getId(),
+                    request.getPickupDate(), request.getReturnDate(), request.getId());
+        }
+
         if (dto.getObservations() != null) {
             request.setObservations(dto.getObservations());
         }
 
         request.calculateTotalValue();
-        RentalRequest updatedRequest = rentalRequestRepository.save(request);
+        RentalRequest updatedRequest = saveBooking(request);
+
+        if (!previousPickupDate.equals(updatedRequest.getPickupDate())
+                || !previousReturnDate.equals(updatedRequest.getReturnDate())) {
+            String automobileId = updatedRequest.getAutomobile().getId();
+            LocalDate newPickupDate = updatedRequest.getPickupDate();
+            LocalDate newReturnDate = updatedRequest.getReturnDate();
+            TransactionHooks.afterCommit(() -> {
+                availabilityIndex.bookingRemoved(automobileId, previousPickupDate, previousReturnDate);
+                availabilityIndex.bookingAdded(automobileId, newPickupDate, newReturnDate);
+                freeWindowService.invalidate(automobileId);
+            });
+        }
         return convertToResponseDTO(updatedRequest);
     }
 
     /**
      * Atualiza o status de um pedido com gerenciamento de limite de crédito
      */
-    @Transactional
     public RentalRequestResponseDTO updateRequestStatus(
             String id,
             String agentUsername,
             String agentId,
             RentalRequestStatusUpdateDTO dto) {
+        return withSuggestedWindows(
+                () -> optimisticRetry.execute(() -> doUpdateRequestStatus(id, agentUsername, agentId, dto)));
+    }
+
+    private RentalRequestResponseDTO doUpdateRequestStatus(
+            String id,
+            String agentUsername,
+            String agentId,
+            RentalRequestStatusUpdateDTO dto) {
 
         RentalRequest request = rentalRequestRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Pedido não encontrado"));
@@ -227,6 +506,13 @@ public class RentalRequestService {
         RequestStatus oldStatus = request.getStatus();
         RequestStatus newStatus = dto.getStatus();
 
+        // Pedido que volta a ocupar o carro (ex.: rejeitado -> aprovado) precisa do período livre
+        if (!oldStatus.holdsBooking() && newStatus.holdsBooking()) {
+            lockAutomobile(request.getAutomobile().getId());
+            ensureNoOverlap(request.getAutomobile().getId(),
+                    request.getPickupDate(), request.getReturnDate(), request.getId());
+        }
+
         // Atualizar status do pedido
         request.changeStatus(newStatus, agentId, agentUsername);
 
@@ -235,60 +521,36 @@ public class RentalRequestService {
         }
 
         Automobile automobile = request.getAutomobile();
-        String carOwnerUsername = automobile.getCreatedByAgentUsername();
-
-        // Verificar se o carro pertence a um agente bancário
-        if (carOwnerUsername != null) {
-            UserResponseDTO carOwner = userService.findByUsername(carOwnerUsername).orElse(null);
-
-            if (carOwner != null && carOwner.getRole() == UserRole.AGENT_BANK) {
-                String customerUsername = request.getCustomer().getUsername();
-                Double totalValue = request.getTotalValue();
-
-                // Gerenciar limite de crédito baseado na mudança de status
-                if (newStatus == RequestStatus.APPROVED || newStatus == RequestStatus.ACTIVE) {
-                    // Se estava pendente e foi aprovado, reduz o limite
-                    if (oldStatus == RequestStatus.PENDING || oldStatus == RequestStatus.UNDER_ANALYSIS) {
-                        logger.info("Reduzindo limite de crédito - Pedido aprovado/ativo");
-                        creditContractService.reduceAvailableLimit(
-                                customerUsername, carOwnerUsername, totalValue);
-                    }
-                } else if (newStatus == RequestStatus.REJECTED ||
-                        newStatus == RequestStatus.CANCELLED ||
-                        newStatus == RequestStatus.COMPLETED) {
-                    // Se o pedido foi cancelado/rejeitado/concluído, restaura o limite
-                    // Mas só se antes estava em um estado que tinha consumido o limite
-                    if (oldStatus == RequestStatus.APPROVED ||
-                            oldStatus == RequestStatus.ACTIVE ||
-                            oldStatus == RequestStatus.UNDER_ANALYSIS) {
-                        logger.info("Restaurando limite de crédito - Pedido {}", newStatus);
-                        creditContractService.restoreAvailableLimit(
-                                customerUsername, carOwnerUsername, totalValue);
+
+        // Gerenciar limite de crédito se o carro pertence a um agente bancário
+        if (automobile.isOwnedByBankAgent()) {
+            if (newStatus == RequestStatus.APPROVED || newStatus == RequestStatus.ACTIVE) {
+                // Entrando em aprovado/ativo (inclusive reaprovação após rejeição), reserva o limite
+                if (oldStatus != RequestStatus.APPROVED && oldStatus != RequestStatus.ACTIVE) {
+                    logger.info("Reduzindo limite de crédito - Pedido aprovado/ativo");
+                    if (!creditContractService.reserveCredit(request.getCustomer().getId(),
+                            automobile.getCreatedByAgentId(), request.getId(), request.getTotalValue())) {
+                        throw new IllegalArgumentException(
+                                "Limite de crédito insuficiente para aprovar o pedido.");
                     }
                 }
+            } else if (newStatus == RequestStatus.REJECTED ||
+                    newStatus == RequestStatus.CANCELLED) {
+                // Devolve a reserva do pedido, se houver
+                logger.info("Liberando reserva de crédito - Pedido {}", newStatus);
+                creditContractService.releaseCredit(request.getId());
+            } else if (newStatus == RequestStatus.COMPLETED) {
+                logger.info("Capturando reserva de crédito - Pedido concluído");
+                creditContractService.captureCredit(request.getId());
             }
         }
 
-        // Gerenciar disponibilidade do automóvel
-        switch (newStatus) {
-            case APPROVED:
-            case UNDER_ANALYSIS:
-            case ACTIVE:
-                automobile.setAvailable(false);
-                break;
-
-            case REJECTED:
-            case CANCELLED:
-            case COMPLETED:
-                automobile.setAvailable(true);
-                break;
-
-            default:
-                break;
+        RentalRequest updatedRequest = saveBooking(request);
+        refreshCurrentAvailability(automobile);
+        if (oldStatus.holdsBooking() != newStatus.holdsBooking()) {
+            trackBookingChange(updatedRequest, newStatus.holdsBooking());
         }
-
-        automobileRepository.save(automobile);
-        RentalRequest updatedRequest = rentalRequestRepository.save(request);
+        trackStatusChange(updatedRequest, oldStatus, newStatus);
 
         logger.info("Status do pedido {} atualizado: {} -> {}", id, oldStatus, newStatus);
 
@@ -298,8 +560,11 @@ public class RentalRequestService {
     /**
      * Cancela um pedido (cliente)
      */
-    @Transactional
     public RentalRequestResponseDTO cancelRequest(String id, String customerUsername) {
+        return optimisticRetry.execute(() -> doCancelRequest(id, customerUsername));
+    }
+
+    private RentalRequestResponseDTO doCancelRequest(String id, String customerUsername) {
         RentalRequest request = rentalRequestRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Pedido não encontrado"));
 
@@ -314,25 +579,15 @@ public class RentalRequestService {
 
         RequestStatus oldStatus = request.getStatus();
         request.setStatus(RequestStatus.CANCELLED);
+        trackBookingChange(request, false);
+        trackStatusChange(request, oldStatus, RequestStatus.CANCELLED);
 
         Automobile automobile = request.getAutomobile();
-        automobile.setAvailable(true);
-        automobileRepository.save(automobile);
 
-        // Restaurar limite de crédito se aplicável
-        String carOwnerUsername = automobile.getCreatedByAgentUsername();
-        if (carOwnerUsername != null) {
-            UserResponseDTO carOwner = userService.findByUsername(carOwnerUsername).orElse(null);
-
-            if (carOwner != null && carOwner.getRole() == UserRole.AGENT_BANK) {
-                if (oldStatus == RequestStatus.APPROVED ||
-                        oldStatus == RequestStatus.ACTIVE ||
-                        oldStatus == RequestStatus.UNDER_ANALYSIS) {
-                    logger.info("Restaurando limite de crédito - Pedido cancelado pelo cliente");
-                    creditContractService.restoreAvailableLimit(
-                            customerUsername, carOwnerUsername, request.getTotalValue());
-                }
-            }
+        // Liberar a reserva de crédito se aplicável
+        if (automobile.isOwnedByBankAgent()) {
+            logger.info("Liberando reserva de crédito - Pedido cancelado pelo cliente");
+            creditContractService.releaseCredit(request.getId());
         }
 
         RentalRequest updatedRequest = rentalRequestRepository.save(request);
@@ -342,8 +597,11 @@ public class RentalRequestService {
     /**
      * Deleta um pedido (apenas pendentes)
      */
-    @Transactional
     public void deleteRequest(String id, String customerUsername) {
+        optimisticRetry.run(() -> doDeleteRequest(id, customerUsername));
+    }
+
+    private void doDeleteRequest(String id, String customerUsername) {
         RentalRequest request = rentalRequestRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Pedido não encontrado"));
 
@@ -355,11 +613,100 @@ public class RentalRequestService {
             throw new IllegalArgumentException("Apenas pedidos pendentes podem ser deletados");
         }
 
+        rentalRequestRepository.delete(request);
+        trackBookingChange(request, false);
+        trackStatusChange(request, request.getStatus(), null);
+    }
+
+    // Propaga a ocupação/liberação do período para o índice de disponibilidade após o commit
+    private void trackBookingChange(RentalRequest request, boolean booked) {
+        String automobileId = request.getAutomobile().getId();
+        LocalDate pickupDate = request.getPickupDate();
+        LocalDate returnDate = request.getReturnDate();
+        TransactionHooks.afterCommit(() -> {
+            if (booked) {
+                availabilityIndex.bookingAdded(automobileId, pickupDate, returnDate);
+            } else {
+                availabilityIndex.bookingRemoved(automobileId, pickupDate, returnDate);
+            }
+            freeWindowService.invalidate(automobileId);
+        });
+    }
+
+    private void trackStatusChange(RentalRequest request, RequestStatus oldStatus, RequestStatus newStatus) {
         Automobile automobile = request.getAutomobile();
-        automobile.setAvailable(true);
-        automobileRepository.save(automobile);
+        rentalStatisticsService.recordTransition(automobile.getId(), automobile.getCreatedByAgentUsername(),
+                oldStatus, newStatus);
+    }
 
-        rentalRequestRepository.delete(request);
+    private void lockAutomobile(String automobileId) {
+        automobileRepository.findByIdForBooking(automobileId)
+                .orElseThrow(() -> new IllegalArgumentException("Automóvel não encontrado"));
+    }
+
+    private void ensureNoOverlap(String automobileId, LocalDate pickupDate, LocalDate returnDate, String excludeId) {
+        if (rentalRequestRepository.existsOverlappingBooking(automobileId, pickupDate, returnDate, excludeId)) {
+            throw conflict(automobileId, pickupDate, returnDate);
+        }
+    }
+
+    /**
+     * Salva o pedido e converte violação da exclusion constraint de período em erro de negócio.
+     */
+    private RentalRequest saveBooking(RentalRequest request) {
+        try {
+            return rentalRequestRepository.saveAndFlush(request);
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                throw conflict(request.getAutomobile().getId(), request.getPickupDate(), request.getReturnDate());
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isOverlapViolation(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains(OVERLAP_CONSTRAINT);
+    }
+
+    // Período ocupado detectado dentro da transação. Depois de uma violação da constraint a transação
+    // do Postgres está abortada, então as sugestões só são calculadas fora dela (withSuggestedWindows)
+    private static final class BookingConflictException extends RuntimeException {
+        private final String automobileId;
+        private final LocalDate pickupDate;
+        private final LocalDate returnDate;
+
+        BookingConflictException(String automobileId, LocalDate pickupDate, LocalDate returnDate) {
+            super("Automóvel não está disponível no período selecionado", null, false, false);
+            this.automobileId = automobileId;
+            this.pickupDate = pickupDate;
+            this.returnDate = returnDate;
+        }
+    }
+
+    private static BookingConflictException conflict(String automobileId, LocalDate pickupDate, LocalDate returnDate) {
+        return new BookingConflictException(automobileId, pickupDate, returnDate);
+    }
+
+    private <T> T withSuggestedWindows(Supplier<T> booking) {
+        try {
+            return booking.get();
+        } catch (BookingConflictException e) {
+            throw unavailable(e.automobileId, e.pickupDate, e.returnDate);
+        }
+    }
+
+    private AutomobileUnavailableException unavailable(String automobileId, LocalDate pickupDate, LocalDate returnDate) {
+        int days = (int) ChronoUnit.DAYS.between(pickupDate, returnDate);
+        return new AutomobileUnavailableException("Automóvel não está disponível no período selecionado",
+                freeWindowService.findFreeWindows(automobileId, pickupDate, days, SUGGESTED_WINDOWS));
+    }
+
+    // available reflete apenas se há um aluguel em andamento (ACTIVE) para o carro
+    private void refreshCurrentAvailability(Automobile automobile) {
+        automobile.setAvailable(!rentalRequestRepository.existsByAutomobileIdAndStatus(
+                automobile.getId(), RequestStatus.ACTIVE));
+        automobileRepository.save(automobile);
     }
 
     private RentalRequestResponseDTO convertToResponseDTO(RentalRequest request) {
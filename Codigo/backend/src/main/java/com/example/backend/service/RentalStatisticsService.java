@@ -0,0 +1,196 @@
+package com.example.backend.service;
+
+import com.example.backend.model.enums.RequestStatus;
+import com.example.backend.repository.ArchivedRentalRequestRepository;
+import com.example.backend.repository.RentalRequestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contadores de pedidos por status: geral, por agente dono do automóvel e por automóvel.
+ * A carga inicial é um GROUP BY nos pedidos e outro no arquivo; depois o RentalRequestService
+ * aplica cada transição após o commit. A leitura não toca no banco. Uma ressincronização
+ * periódica corrige eventuais desvios (ex.: transições concorrentes com a própria carga).
+ */
+@Service
+public class RentalStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RentalStatisticsService.class);
+
+    private static final RequestStatus[] STATUSES = RequestStatus.values();
+
+    private static final class Counters {
+        final AtomicLongArray total = new AtomicLongArray(STATUSES.length);
+        final Map<String, AtomicLongArray> byAgent = new ConcurrentHashMap<>();
+        final Map<String, AtomicLongArray> byAutomobile = new ConcurrentHashMap<>();
+        // automobileId -> username do agente dono, para descontar o automóvel removido
+        final Map<String, String> ownerByAutomobile = new ConcurrentHashMap<>();
+    }
+
+    private final RentalRequestRepository rentalRequestRepository;
+    private final ArchivedRentalRequestRepository archivedRequestRepository;
+
+    private volatile Counters counters;
+
+    public RentalStatisticsService(RentalRequestRepository rentalRequestRepository,
+                                   ArchivedRentalRequestRepository archivedRequestRepository) {
+        this.rentalRequestRepository = rentalRequestRepository;
+        this.archivedRequestRepository = archivedRequestRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.statistics.resync-interval-ms:3600000}",
+            initialDelayString = "${app.statistics.resync-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        Counters fresh = new Counters();
+        // Pedidos arquivados continuam contando
+        List<Object[]> rows = new ArrayList<>(rentalRequestRepository.countByAutomobileAndStatus());
+        rows.addAll(archivedRequestRepository.countByAutomobileAndStatus());
+        for (Object[] row : rows) {
+            apply(fresh, (String) row[0], (String) row[1], (RequestStatus) row[2], (Long) row[3]);
+        }
+        counters = fresh;
+        logger.info("Estatísticas de pedidos carregadas: {} grupos em {} ms",
+                rows.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * Registra a mudança de status de um pedido. {@code oldStatus} nulo indica pedido novo e
+     * {@code newStatus} nulo indica pedido removido. Deve ser chamado dentro da transação;
+     * os contadores só mudam após o commit.
+     */
+    public void recordTransition(String automobileId, String agentUsername,
+                                 RequestStatus oldStatus, RequestStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> applyTransition(automobileId, agentUsername, oldStatus, newStatus));
+    }
+
+    /**
+     * Desconta pedidos removidos em bloco, como os de um cliente excluído. Cada linha traz
+     * (automobileId, username do agente, status, quantidade), no formato de countByAutomobileAndStatus.
+     * Deve ser chamado dentro da transação; os contadores só mudam após o commit.
+     */
+    public void requestsRemoved(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> applyRemoved(rows));
+    }
+
+    /**
+     * Desconta os pedidos de um automóvel excluído (a exclusão remove os pedidos em cascata).
+     */
+    public synchronized void automobileRemoved(String automobileId) {
+        Counters current = counters;
+        if (current == null) {
+            return;
+        }
+        AtomicLongArray removed = current.byAutomobile.remove(automobileId);
+        String agentUsername = current.ownerByAutomobile.remove(automobileId);
+        if (removed == null) {
+            return;
+        }
+        AtomicLongArray agentCounts = agentUsername == null ? null : current.byAgent.get(agentUsername);
+        for (int i = 0; i < STATUSES.length; i++) {
+            long count = removed.get(i);
+            current.total.addAndGet(i, -count);
+            if (agentCounts != null) {
+                agentCounts.addAndGet(i, -count);
+            }
+        }
+    }
+
+    public Map<String, Object> overall() {
+        return toMap(loaded().total);
+    }
+
+    public Map<String, Object> forAgent(String agentUsername) {
+        return toMap(loaded().byAgent.get(agentUsername));
+    }
+
+    public Map<String, Object> forAutomobile(String automobileId) {
+        return toMap(loaded().byAutomobile.get(automobileId));
+    }
+
+    private synchronized void applyTransition(String automobileId, String agentUsername,
+                                              RequestStatus oldStatus, RequestStatus newStatus) {
+        Counters current = counters;
+        if (current == null) {
+            // A carga inicial ainda não rodou e já verá o pedido
+            return;
+        }
+        if (oldStatus != null) {
+            apply(current, automobileId, agentUsername, oldStatus, -1);
+        }
+        if (newStatus != null) {
+            apply(current, automobileId, agentUsername, newStatus, 1);
+        }
+    }
+
+    private synchronized void applyRemoved(List<Object[]> rows) {
+        Counters current = counters;
+        if (current == null) {
+            return;
+        }
+        for (Object[] row : rows) {
+            apply(current, (String) row[0], (String) row[1], (RequestStatus) row[2], -(Long) row[3]);
+        }
+    }
+
+    private static void apply(Counters target, String automobileId, String agentUsername,
+                              RequestStatus status, long delta) {
+        int slot = status.ordinal();
+        target.total.addAndGet(slot, delta);
+        target.byAutomobile.computeIfAbsent(automobileId, id -> new AtomicLongArray(STATUSES.length))
+                .addAndGet(slot, delta);
+        if (agentUsername != null) {
+            target.ownerByAutomobile.put(automobileId, agentUsername);
+            target.byAgent.computeIfAbsent(agentUsername, username -> new AtomicLongArray(STATUSES.length))
+                    .addAndGet(slot, delta);
+        }
+    }
+
+    private Counters loaded() {
+        Counters current = counters;
+        if (current == null) {
+            rebuild();
+            current = counters;
+        }
+        return current;
+    }
+
+    private static Map<String, Object> toMap(AtomicLongArray counts) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long total = 0;
+        for (RequestStatus status : STATUSES) {
+            total += counts == null ? 0 : counts.get(status.ordinal());
+        }
+        stats.put("total", total);
+        stats.put("pending", count(counts, RequestStatus.PENDING));
+        stats.put("underAnalysis", count(counts, RequestStatus.UNDER_ANALYSIS));
+        stats.put("approved", count(counts, RequestStatus.APPROVED));
+        stats.put("rejected", count(counts, RequestStatus.REJECTED));
+        stats.put("active", count(counts, RequestStatus.ACTIVE));
+        stats.put("completed", count(counts, RequestStatus.COMPLETED));
+        stats.put("cancelled", count(counts, RequestStatus.CANCELLED));
+        return stats;
+    }
+
+    private static long count(AtomicLongArray counts, RequestStatus status) {
+        return counts == null ? 0 : counts.get(status.ordinal());
+    }
+}
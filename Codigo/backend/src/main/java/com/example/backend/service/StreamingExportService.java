@@ -0,0 +1,300 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.ExportFormat;
+import com.example.backend.exception.TooManyRequestsException;
+import com.example.backend.model.enums.RequestStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Exportação em streaming de pedidos, automóveis e contratos de crédito. Cada exportação lê
+ * com cursor do Postgres (transação somente leitura + fetch size) e escreve linha a linha no
+ * stream da resposta; a escrita bloqueante segura a leitura quando o cliente consome devagar.
+ * O uso de memória não depende do número de linhas. Como cada exportação prende uma conexão
+ * até terminar, o número de exportações simultâneas é limitado.
+ */
+@Service
+public class StreamingExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingExportService.class);
+
+    private static final String[][] REQUEST_COLUMNS = {
+            {"id", "r.id"},
+            {"status", "r.status"},
+            {"createdAt", "r.created_at"},
+            {"pickupDate", "r.pickup_date"},
+            {"returnDate", "r.return_date"},
+            {"rentalDays", "r.rental_days"},
+            {"totalValue", "r.total_value"},
+            {"customerUsername", "c.username"},
+            {"customerEmail", "c.email"},
+            {"automobileId", "a.id"},
+            {"brand", "a.brand"},
+            {"model", "a.model"},
+            {"processedByAgentUsername", "r.processed_by_agent_username"},
+            {"processedAt", "r.processed_at"},
+            {"rejectionReason", "r.rejection_reason"},
+            {"observations", "r.observations"}
+    };
+
+    private static final String[][] AUTOMOBILE_COLUMNS = {
+            {"id", "a.id"},
+            {"licensePlate", "a.license_plate"},
+            {"brand", "a.brand"},
+            {"model", "a.model"},
+            {"year", "a.car_year"},
+            {"registration", "a.registration"},
+            {"dailyRate", "a.daily_rate"},
+            {"available", "a.available"},
+            {"createdAt", "a.created_at"}
+    };
+
+    // Saldo disponível vem do livro de crédito: snapshot + lançamentos posteriores
+    private static final String[][] CREDIT_CONTRACT_COLUMNS = {
+            {"id", "c.id"},
+            {"status", "c.status"},
+            {"creditLimit", "c.credit_limit"},
+            {"availableLimit", "COALESCE(s.available_limit, 0) + COALESCE((SELECT SUM(e.delta) FROM credit_ledger_entry e"
+                    + " WHERE e.contract_id = c.id AND e.id > COALESCE(s.last_entry_id, 0)), 0)"},
+            {"customerId", "u.id"},
+            {"customerUsername", "u.username"},
+            {"customerEmail", "u.email"},
+            {"createdAt", "c.created_at"},
+            {"updatedAt", "c.updated_at"}
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final UserDirectory userDirectory;
+    private final MeterRegistry meterRegistry;
+    private final int flushEvery;
+    private final Semaphore permits;
+
+    public StreamingExportService(DataSource dataSource,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper,
+                                  UserDirectory userDirectory,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.export.fetch-size:500}") int fetchSize,
+                                  @Value("${app.export.max-concurrent:2}") int maxConcurrent) {
+        // Fetch size só vale com autocommit desligado; daí a transação em volta de cada exportação
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(Math.max(1, fetchSize));
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.userDirectory = userDirectory;
+        this.meterRegistry = meterRegistry;
+        this.flushEvery = Math.max(1, fetchSize);
+        this.permits = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    /**
+     * Pedidos dos automóveis do agente, inclusive os arquivados, filtrados por status e data de criação.
+     */
+    public StreamingResponseBody rentalRequests(String agentUsername, ExportFormat format,
+                                                String status, LocalDate from, LocalDate to) {
+        validatePeriod(from, to);
+        List<Object> args = new ArrayList<>();
+        StringBuilder where = new StringBuilder(" WHERE a.created_by_agent_username = ?");
+        args.add(agentUsername);
+        if (status != null && !status.isBlank()) {
+            where.append(" AND r.status = ?");
+            args.add(parseRequestStatus(status).name());
+        }
+        appendPeriod(where, args, "r.created_at", from, to);
+
+        String joins = " r JOIN customer c ON c.id = r.customer_id JOIN automobile a ON a.id = r.automobile_id";
+        String order = " ORDER BY r.created_at, r.id";
+        List<String> queries = List.of(
+                select(REQUEST_COLUMNS) + " FROM rental_request" + joins + where + order,
+                select(REQUEST_COLUMNS) + " FROM rental_request_archive" + joins + where + order);
+        return stream("rental_requests", format, header(REQUEST_COLUMNS), queries, args.toArray());
+    }
+
+    /**
+     * Automóveis cadastrados pelo agente, filtrados por disponibilidade e data de cadastro.
+     */
+    public StreamingResponseBody automobiles(String agentUsername, ExportFormat format,
+                                             Boolean available, LocalDate from, LocalDate to) {
+        validatePeriod(from, to);
+        List<Object> args = new ArrayList<>();
+        StringBuilder where = new StringBuilder(" WHERE a.created_by_agent_username = ?");
+        args.add(agentUsername);
+        if (available != null) {
+            where.append(" AND a.available = ?");
+            args.add(available);
+        }
+        appendPeriod(where, args, "a.created_at", from, to);
+
+        String query = select(AUTOMOBILE_COLUMNS) + " FROM automobile a" + where + " ORDER BY a.created_at, a.id";
+        return stream("automobiles", format, header(AUTOMOBILE_COLUMNS), List.of(query), args.toArray());
+    }
+
+    /**
+     * Contratos de crédito do agente bancário, filtrados por status e data de criação.
+     */
+    public StreamingResponseBody creditContracts(String bankAgentUsername, ExportFormat format,
+                                                 String status, LocalDate from, LocalDate to) {
+        validatePeriod(from, to);
+        String bankAgentId = userDirectory.findByUsername(bankAgentUsername)
+                .map(UserDirectory.Entry::getId)
+                .orElseThrow(() -> new IllegalArgumentException("Agente bancário não encontrado"));
+
+        List<Object> args = new ArrayList<>();
+        StringBuilder where = new StringBuilder(" WHERE c.bank_agent_id = ?");
+        args.add(UUID.fromString(bankAgentId));
+        if (status != null && !status.isBlank()) {
+            where.append(" AND c.status = ?");
+            args.add(status.trim().toUpperCase(Locale.ROOT));
+        }
+        appendPeriod(where, args, "c.created_at", from, to);
+
+        String query = select(CREDIT_CONTRACT_COLUMNS)
+                + " FROM credit_contract c JOIN customer u ON u.id = c.customer_id"
+                + " LEFT JOIN credit_balance_snapshot s ON s.contract_id = c.id"
+                + where + " ORDER BY c.created_at, c.id";
+        return stream("credit_contracts", format, header(CREDIT_CONTRACT_COLUMNS), List.of(query), args.toArray());
+    }
+
+    // A vaga é tomada ainda na requisição, para recusar com 429 antes de abrir a resposta
+    private StreamingResponseBody stream(String dataset, ExportFormat format, String[] columns,
+                                         List<String> queries, Object[] args) {
+        if (!permits.tryAcquire()) {
+            throw new TooManyRequestsException("Limite de exportações simultâneas atingido; tente novamente");
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+        releaseOnAsyncCompletion(release);
+        return out -> {
+            long startedAt = System.currentTimeMillis();
+            try {
+                long rows = export(format, columns, queries, args, out);
+                meterRegistry.counter("export.rows", "dataset", dataset).increment(rows);
+                logger.info("Exportação de {} concluída: {} linhas em {} ms",
+                        dataset, rows, System.currentTimeMillis() - startedAt);
+            } catch (UncheckedIOException e) {
+                // Em geral, cliente que desconectou no meio do download
+                logger.info("Exportação de {} interrompida: {}", dataset, e.getCause().getMessage());
+            } finally {
+                release.run();
+            }
+        };
+    }
+
+    // Se o corpo nunca rodar (timeout ou erro antes de começar), o fim da requisição assíncrona devolve a vaga
+    private static void releaseOnAsyncCompletion(Runnable release) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        WebAsyncUtils.getAsyncManager(attributes.getRequest())
+                .registerCallableInterceptor(release, new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                        release.run();
+                    }
+                });
+    }
+
+    private long export(ExportFormat format, String[] columns, List<String> queries,
+                        Object[] args, OutputStream out) throws IOException {
+        ExportWriter writer = ExportWriter.open(format, out, columns, objectMapper.getFactory());
+        long[] rows = {0};
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (String query : queries) {
+                jdbcTemplate.query(query, rs -> {
+                    Object[] values = new Object[columns.length];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = rs.getObject(i + 1);
+                    }
+                    try {
+                        writer.writeRow(values);
+                        if (++rows[0] % flushEvery == 0) {
+                            writer.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, args);
+            }
+        });
+        writer.flush();
+        return rows[0];
+    }
+
+    private static RequestStatus parseRequestStatus(String status) {
+        try {
+            return RequestStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Status de pedido inválido: " + status);
+        }
+    }
+
+    private static void validatePeriod(LocalDate from, LocalDate to) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("Data final deve ser igual ou posterior à data inicial");
+        }
+    }
+
+    private static void appendPeriod(StringBuilder where, List<Object> args, String column,
+                                     LocalDate from, LocalDate to) {
+        if (from != null) {
+            where.append(" AND ").append(column).append(" >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            where.append(" AND ").append(column).append(" <= ?");
+            args.add(to);
+        }
+    }
+
+    private static String select(String[][] columns) {
+        StringBuilder select = new StringBuilder("SELECT ");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                select.append(", ");
+            }
+            select.append(columns[i][1]);
+        }
+        return select.toString();
+    }
+
+    private static String[] header(String[][] columns) {
+        String[] header = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            header[i] = columns[i][0];
+        }
+        return header;
+    }
+}
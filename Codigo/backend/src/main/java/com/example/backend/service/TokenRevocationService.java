@@ -0,0 +1,172 @@
+package com.example.backend.service;
+
+import com.example.backend.model.TokenRevocation;
+import com.example.backend.model.enums.RevocationType;
+import com.example.backend.repository.TokenRevocationRepository;
+import com.example.backend.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revogação de access tokens antes da expiração.
+ * Os jti revogados ficam em um anel de buckets indexado pelo instante de expiração do token:
+ * a verificação consulta um único bucket, e um bucket inteiro é descartado quando
+ * todos os seus tokens já expiraram. Revogações por usuário (exclusão, troca de senha)
+ * guardam apenas o instante de corte.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final class Bucket {
+        // Período (expiração / largura do bucket) a que os ids pertencem
+        volatile long epoch = -1;
+        final Set<String> ids = ConcurrentHashMap.newKeySet();
+    }
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final long tokenLifetimeMs;
+    private final long bucketWidthMs;
+    private final Bucket[] ring;
+
+    // userId -> tokens emitidos antes deste instante (ms) são rejeitados
+    private final Map<String, Long> userCutoffs = new ConcurrentHashMap<>();
+
+    public TokenRevocationService(TokenRevocationRepository tokenRevocationRepository,
+                                  @Value("${app.jwt.expiration:86400000}") long tokenLifetimeMs,
+                                  @Value("${app.jwt.revocation-bucket-ms:60000}") long bucketWidthMs) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.tokenLifetimeMs = tokenLifetimeMs;
+        this.bucketWidthMs = bucketWidthMs;
+
+        // Buckets suficientes para cobrir a vida de um token, mais folga para o bucket corrente
+        int size = (int) (tokenLifetimeMs / bucketWidthMs) + 2;
+        this.ring = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Bucket();
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        Instant now = Instant.now();
+        List<TokenRevocation> active = tokenRevocationRepository.findByExpiresAtAfter(now);
+        for (TokenRevocation revocation : active) {
+            if (revocation.getType() == RevocationType.TOKEN) {
+                addToRing(revocation.getSubject(), revocation.getExpiresAt().toEpochMilli());
+            } else {
+                applyUserCutoff(revocation.getSubject(), revocation.getCutoff().toEpochMilli());
+            }
+        }
+        logger.info("Revogações de token carregadas: {}", active.size());
+    }
+
+    /**
+     * Verifica se o token foi revogado. Não aloca objetos e consulta no máximo um bucket e um mapa.
+     */
+    public boolean isRevoked(Claims claims) {
+        String userId = claims.get("userId", String.class);
+        if (userId != null) {
+            Long cutoff = userCutoffs.get(userId);
+            if (cutoff != null) {
+                long issuedAtMs = issuedAtMillis(claims);
+                if (issuedAtMs >= 0 && issuedAtMs < cutoff) {
+                    return true;
+                }
+            }
+        }
+
+        String jti = claims.getId();
+        Date expiration = claims.getExpiration();
+        if (jti == null || expiration == null) {
+            return false;
+        }
+        long epoch = expiration.getTime() / bucketWidthMs;
+        Bucket bucket = ring[(int) (epoch % ring.length)];
+        return bucket.epoch == epoch && bucket.ids.contains(jti);
+    }
+
+    /**
+     * Revoga um único access token (logout).
+     */
+    @Transactional
+    public void revokeToken(String jti, Date expiration) {
+        if (jti == null || expiration == null || expiration.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        Instant expiresAt = expiration.toInstant();
+        tokenRevocationRepository.save(new TokenRevocation(RevocationType.TOKEN, jti, null, expiresAt));
+        TransactionHooks.afterCommit(() -> addToRing(jti, expiresAt.toEpochMilli()));
+    }
+
+    /**
+     * Revoga todos os access tokens já emitidos para o usuário. O corte é comparado em milissegundos,
+     * então um login logo após a revogação (por exemplo, depois de trocar a senha) já é aceito.
+     */
+    @Transactional
+    public void revokeAllForUser(String userId) {
+        Instant now = Instant.now();
+        tokenRevocationRepository.save(new TokenRevocation(RevocationType.USER, userId, now,
+                now.plusMillis(tokenLifetimeMs)));
+        TransactionHooks.afterCommit(() -> applyUserCutoff(userId, now.toEpochMilli()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation-purge-interval-ms:600000}")
+    @Transactional
+    public void purgeExpired() {
+        long nowMs = System.currentTimeMillis();
+        userCutoffs.values().removeIf(cutoff -> cutoff + tokenLifetimeMs < nowMs);
+
+        int removed = tokenRevocationRepository.deleteExpired(Instant.now());
+        if (removed > 0) {
+            logger.info("Revogações expiradas removidas: {}", removed);
+        }
+    }
+
+    private void addToRing(String jti, long expirationMs) {
+        long epoch = expirationMs / bucketWidthMs;
+        Bucket bucket = ring[(int) (epoch % ring.length)];
+        synchronized (bucket) {
+            if (bucket.epoch != epoch) {
+                if (bucket.epoch > epoch) {
+                    // Bucket já reaproveitado por um período mais novo: o token certamente expirou
+                    return;
+                }
+                bucket.ids.clear();
+                bucket.epoch = epoch;
+            }
+            bucket.ids.add(jti);
+        }
+    }
+
+    private void applyUserCutoff(String userId, long cutoffMs) {
+        userCutoffs.merge(userId, cutoffMs, Math::max);
+    }
+
+    /**
+     * Instante de emissão em ms. Tokens sem a claim (emitidos antes dela existir) usam o início
+     * do segundo do iat, o que mantém a regra antiga de rejeitar o mesmo segundo do corte.
+     */
+    private static long issuedAtMillis(Claims claims) {
+        Object issuedAtMs = claims.get(JwtTokenProvider.ISSUED_AT_MS_CLAIM);
+        if (issuedAtMs instanceof Number number) {
+            return number.longValue();
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt != null ? issuedAt.getTime() : -1;
+    }
+}
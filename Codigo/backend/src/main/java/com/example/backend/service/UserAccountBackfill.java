@@ -0,0 +1,58 @@
+package com.example.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Migração dos usuários existentes (customer, agent e bank) para a tabela única app_user.
+ * Idempotente: linhas já migradas e usernames/emails duplicados são ignorados.
+ */
+@Component
+@ConditionalOnProperty(name = "app.users.single-table.enabled", havingValue = "true")
+public class UserAccountBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserAccountBackfill.class);
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO app_user (id, username, email, user_type, user_role, created_at) ";
+
+    private static final String[] BACKFILL_STATEMENTS = {
+            INSERT_PREFIX + "SELECT id, username, email, 'CUSTOMER', user_role, created_at "
+                    + "FROM customer ON CONFLICT DO NOTHING",
+            INSERT_PREFIX + "SELECT id, username, email, 'COMPANY_AGENT', user_role, created_at "
+                    + "FROM agent WHERE dtype = 'CompanyAgent' ON CONFLICT DO NOTHING",
+            INSERT_PREFIX + "SELECT id, username, email, 'BANK_AGENT', user_role, created_at "
+                    + "FROM agent WHERE dtype = 'BankAgent' ON CONFLICT DO NOTHING",
+            INSERT_PREFIX + "SELECT id, username, email, 'BANK', user_role, created_at "
+                    + "FROM bank ON CONFLICT DO NOTHING"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserAccountBackfill(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void backfill() {
+        int migrated = 0;
+        for (String statement : BACKFILL_STATEMENTS) {
+            migrated += jdbcTemplate.update(statement);
+        }
+
+        Integer total = jdbcTemplate.queryForObject(
+                "SELECT (SELECT COUNT(*) FROM customer) + (SELECT COUNT(*) FROM agent) + (SELECT COUNT(*) FROM bank)",
+                Integer.class);
+        Integer accounts = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM app_user", Integer.class);
+
+        logger.info("Migração para app_user concluída: {} novos registros ({} de {} usuários na tabela única)",
+                migrated, accounts, total);
+        if (total != null && accounts != null && accounts < total) {
+            logger.warn("{} usuários não foram migrados por conflito de username/email", total - accounts);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.backend.service;
+
+import com.example.backend.exception.UserAlreadyExistsException;
+import com.example.backend.model.Bank;
+import com.example.backend.model.BankAgent;
+import com.example.backend.model.CompanyAgent;
+import com.example.backend.model.Customer;
+import com.example.backend.model.User;
+import com.example.backend.model.UserAccount;
+import com.example.backend.model.enums.UserType;
+import com.example.backend.repository.BankAgentRepository;
+import com.example.backend.repository.BankRepository;
+import com.example.backend.repository.CompanyAgentRepository;
+import com.example.backend.repository.CustomerRepository;
+import com.example.backend.repository.UserAccountRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice em memória de todos os usuários (Customer, CompanyAgent, BankAgent e Bank).
+ * Mapeia id, username e email para o tipo do usuário e sua chave primária, de forma que
+ * cada busca custe uma consulta ao mapa e no máximo uma consulta direcionada ao repositório certo.
+ *
+ * O índice é carregado na inicialização e mantido pelos serviços em cada criação,
+ * atualização e remoção de usuário.
+ *
+ * Com app.users.single-table.enabled=true, cada alteração também é gravada na tabela única
+ * app_user, que garante unicidade de username/email no banco e atende buscas que não
+ * estejam no índice local com uma única consulta indexada. app_user é só um espelho
+ * (sem senha); os dados do usuário continuam nas tabelas de perfil.
+ */
+@Component
+public class UserDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectory.class);
+
+    private static final String UPSERT_ACCOUNT =
+            "INSERT INTO app_user (id, username, email, user_type, user_role, created_at) VALUES (?, ?, ?, ?, ?, ?) "
+                    + "ON CONFLICT (id) DO UPDATE SET username = EXCLUDED.username, email = EXCLUDED.email, "
+                    + "user_type = EXCLUDED.user_type, user_role = EXCLUDED.user_role";
+
+    public static final class Entry {
+        private final String id;
+        private final String username;
+        private final String email;
+        private final UserType type;
+
+        Entry(String id, String username, String email, UserType type) {
+            this.id = id;
+            this.username = username;
+            this.email = email;
+            this.type = type;
+        }
+
+        public String getId() { return id; }
+        public String getUsername() { return username; }
+        public String getEmail() { return email; }
+        public UserType getType() { return type; }
+    }
+
+    private final Map<String, Entry> byId = new ConcurrentHashMap<>();
+    private final Map<String, Entry> byUsername = new ConcurrentHashMap<>();
+    private final Map<String, Entry> byEmail = new ConcurrentHashMap<>();
+
+    private final CustomerRepository customerRepository;
+    private final CompanyAgentRepository companyAgentRepository;
+    private final BankAgentRepository bankAgentRepository;
+    private final BankRepository bankRepository;
+    private final UserAccountRepository userAccountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean singleTable;
+
+    public UserDirectory(CustomerRepository customerRepository,
+                         CompanyAgentRepository companyAgentRepository,
+                         BankAgentRepository bankAgentRepository,
+                         BankRepository bankRepository,
+                         UserAccountRepository userAccountRepository,
+                         JdbcTemplate jdbcTemplate,
+                         @Value("${app.users.single-table.enabled:false}") boolean singleTable) {
+        this.customerRepository = customerRepository;
+        this.companyAgentRepository = companyAgentRepository;
+        this.bankAgentRepository = bankAgentRepository;
+        this.bankRepository = bankRepository;
+        this.userAccountRepository = userAccountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.singleTable = singleTable;
+    }
+
+    public boolean isSingleTable() {
+        return singleTable;
+    }
+
+    @PostConstruct
+    public void load() {
+        customerRepository.findAll().forEach(this::index);
+        companyAgentRepository.findAll().forEach(this::index);
+        bankAgentRepository.findAll().forEach(this::index);
+        bankRepository.findAll().forEach(this::index);
+        logger.info("Diretório de usuários carregado com {} usuários", byId.size());
+    }
+
+    /**
+     * Registra ou atualiza um usuário. O índice em memória só é alterado após o commit
+     * da transação corrente.
+     *
+     * A linha de app_user é gravada na transação de quem chama, para que perfil e espelho
+     * confirmem ou desfaçam juntos. É um único upsert via JDBC: não descarrega o contexto de
+     * persistência de quem chama e um username/email repetido aparece aqui, na hora.
+     */
+    public void put(User user) {
+        if (user == null || user.getId() == null) return;
+
+        if (singleTable) {
+            UserAccount account = UserAccount.from(user, typeOf(user));
+            try {
+                jdbcTemplate.update(UPSERT_ACCOUNT, UUID.fromString(account.getId()), account.getUsername(),
+                        account.getEmail(), account.getType().name(), account.getRole().name(), account.getCreatedAt());
+            } catch (DataIntegrityViolationException e) {
+                throw new UserAlreadyExistsException("Username ou email já está em uso", e);
+            }
+        }
+        TransactionHooks.afterCommit(() -> index(user));
+    }
+
+    public void remove(String id) {
+        if (id == null) return;
+
+        if (singleTable) {
+            userAccountRepository.deleteById(id);
+        }
+        TransactionHooks.afterCommit(() -> unindex(id));
+    }
+
+    private void index(User user) {
+        index(new Entry(user.getId(), user.getUsername(), user.getEmail(), typeOf(user)));
+    }
+
+    // Remove chaves antigas caso username ou email tenham mudado
+    private synchronized void index(Entry entry) {
+        removeKeys(byId.get(entry.id));
+        byId.put(entry.id, entry);
+        if (entry.username != null) byUsername.put(entry.username, entry);
+        if (entry.email != null) byEmail.put(entry.email, entry);
+    }
+
+    private synchronized void unindex(String id) {
+        removeKeys(byId.remove(id));
+    }
+
+    private void removeKeys(Entry entry) {
+        if (entry == null) return;
+        if (entry.username != null) byUsername.remove(entry.username, entry);
+        if (entry.email != null) byEmail.remove(entry.email, entry);
+    }
+
+    public Optional<Entry> findById(String id) {
+        if (id == null) return Optional.empty();
+        Entry entry = byId.get(id);
+        if (entry == null && singleTable) {
+            return userAccountRepository.findById(id).map(this::indexAccount);
+        }
+        return Optional.ofNullable(entry);
+    }
+
+    public Optional<Entry> findByUsername(String username) {
+        if (username == null) return Optional.empty();
+        Entry entry = byUsername.get(username);
+        if (entry == null && singleTable) {
+            return userAccountRepository.findByUsername(username).map(this::indexAccount);
+        }
+        return Optional.ofNullable(entry);
+    }
+
+    public Optional<Entry> findByEmail(String email) {
+        if (email == null) return Optional.empty();
+        Entry entry = byEmail.get(email);
+        if (entry == null && singleTable) {
+            return userAccountRepository.findByEmail(email).map(this::indexAccount);
+        }
+        return Optional.ofNullable(entry);
+    }
+
+    public boolean existsByUsername(String username) {
+        if (username == null) return false;
+        return byUsername.containsKey(username)
+                || (singleTable && userAccountRepository.existsByUsername(username));
+    }
+
+    public boolean existsByEmail(String email) {
+        if (email == null) return false;
+        return byEmail.containsKey(email)
+                || (singleTable && userAccountRepository.existsByEmail(email));
+    }
+
+    // Usuário gravado por outra instância: passa a fazer parte do índice local
+    private Entry indexAccount(UserAccount account) {
+        Entry entry = new Entry(account.getId(), account.getUsername(), account.getEmail(), account.getType());
+        index(entry);
+        return entry;
+    }
+
+    public Optional<User> loadById(String id) {
+        return findById(id).flatMap(this::load);
+    }
+
+    public Optional<User> loadByUsername(String username) {
+        return findByUsername(username).flatMap(this::load);
+    }
+
+    public Optional<User> loadByEmail(String email) {
+        return findByEmail(email).flatMap(this::load);
+    }
+
+    /**
+     * Carrega a entidade com uma única consulta no repositório do tipo indexado.
+     */
+    public Optional<User> load(Entry entry) {
+        Optional<? extends User> user = switch (entry.type) {
+            case CUSTOMER -> customerRepository.findById(entry.id);
+            case COMPANY_AGENT -> companyAgentRepository.findById(entry.id);
+            case BANK_AGENT -> bankAgentRepository.findById(entry.id);
+            case BANK -> bankRepository.findById(entry.id);
+        };
+
+        if (user.isEmpty()) {
+            // Registro removido fora da aplicação: descarta a entrada obsoleta
+            logger.warn("Usuário {} indexado como {} não existe mais no banco", entry.id, entry.type);
+            unindex(entry.id);
+        }
+        return user.map(User.class::cast);
+    }
+
+    public static UserType typeOf(User user) {
+        if (user instanceof Customer) return UserType.CUSTOMER;
+        if (user instanceof CompanyAgent) return UserType.COMPANY_AGENT;
+        if (user instanceof BankAgent) return UserType.BANK_AGENT;
+        if (user instanceof Bank) return UserType.BANK;
+        throw new IllegalArgumentException("Tipo de usuário não suportado: " + user.getClass().getSimpleName());
+    }
+}
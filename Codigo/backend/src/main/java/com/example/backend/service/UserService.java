@@ -1,26 +1,38 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.KeysetCursor;
+import com.example.backend.dto.KeysetPage;
 import com.example.backend.dto.UserCreateDTO;
 import com.example.backend.dto.UserResponseDTO;
 import com.example.backend.model.Customer;
 import com.example.backend.model.CompanyAgent;
 import com.example.backend.model.BankAgent;
 import com.example.backend.model.Bank;
+import com.example.backend.model.User;
+import com.example.backend.model.UserAccount;
 import com.example.backend.model.enums.UserRole;
+import com.example.backend.repository.AgentRepository;
 import com.example.backend.repository.CustomerRepository;
 import com.example.backend.repository.CompanyAgentRepository;
 import com.example.backend.repository.BankAgentRepository;
 import com.example.backend.repository.BankRepository;
+import com.example.backend.repository.UserAccountRepository;
+import com.example.backend.security.RoleAuthorities;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,7 +50,43 @@ public class UserService implements UserDetailsService {
     @Autowired
     private BankRepository bankRepository;
 
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private UserAccountRepository userAccountRepository;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private AgentRepository agentRepository;
+
+    @Autowired
+    private PageSizePolicy pageSizePolicy;
+
+    @Autowired
+    private CustomerService customerService;
+
+    private static final Comparator<User> KEYSET_ORDER = Comparator
+            .comparing(User::getCreatedAt)
+            .thenComparing(User::getId);
+
+    private static final Sort USER_LISTING_ORDER = Sort.by("createdAt", "id");
+
     public List<UserResponseDTO> findAll() {
+        if (userDirectory.isSingleTable()) {
+            return userAccountRepository.findAll(USER_LISTING_ORDER).stream()
+                    .map(this::convertAccountToResponseDTO)
+                    .collect(Collectors.toList());
+        }
+
         List<UserResponseDTO> customers = customerRepository.findAll().stream()
                 .map(this::convertCustomerToResponseDTO)
                 .collect(Collectors.toList());
@@ -62,57 +110,78 @@ public class UserService implements UserDetailsService {
         return customers;
     }
 
-    public Optional<UserResponseDTO> findById(String id) {
-        // Tentar encontrar em cada repositório
-        Optional<Customer> customer = customerRepository.findById(id);
-        if (customer.isPresent()) {
-            return Optional.of(convertCustomerToResponseDTO(customer.get()));
+    /**
+     * Página por chave (createdAt, id). Sem tabela única, faz o merge das páginas de
+     * customer, agent e bank, cada uma já ordenada pelo banco.
+     */
+    public KeysetPage<UserResponseDTO> findKeysetPage(String cursor, Integer size) {
+        int pageSize = pageSizePolicy.resolve(size);
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        Pageable probe = PageSizePolicy.probe(pageSize);
+
+        if (userDirectory.isSingleTable()) {
+            List<UserAccount> rows = position == null
+                    ? userAccountRepository.findPage(probe)
+                    : userAccountRepository.findPageAfter(position.getCreatedAt(), position.getId(), probe);
+            return KeysetPage.of(rows, pageSize, UserAccount::getCreatedAt, UserAccount::getId,
+                    this::convertAccountToResponseDTO);
         }
 
-        Optional<CompanyAgent> companyAgent = companyAgentRepository.findById(id);
-        if (companyAgent.isPresent()) {
-            return Optional.of(convertCompanyAgentToResponseDTO(companyAgent.get()));
+        List<User> merged = new ArrayList<>(3 * (pageSize + 1));
+        if (position == null) {
+            merged.addAll(customerRepository.findPage(probe));
+            merged.addAll(agentRepository.findPage(probe));
+            merged.addAll(bankRepository.findPage(probe));
+        } else {
+            merged.addAll(customerRepository.findPageAfter(position.getCreatedAt(), position.getId(), probe));
+            merged.addAll(agentRepository.findPageAfter(position.getCreatedAt(), position.getId(), probe));
+            merged.addAll(bankRepository.findPageAfter(position.getCreatedAt(), position.getId(), probe));
         }
+        merged.sort(KEYSET_ORDER);
+        List<User> rows = merged.size() > pageSize + 1 ? merged.subList(0, pageSize + 1) : merged;
+        return KeysetPage.of(rows, pageSize, User::getCreatedAt, User::getId, this::convertToResponseDTO);
+    }
 
-        Optional<BankAgent> bankAgent = bankAgentRepository.findById(id);
-        if (bankAgent.isPresent()) {
-            return Optional.of(convertBankAgentToResponseDTO(bankAgent.get()));
+    /**
+     * Listagem paginada de usuários. Com a tabela única ativa, cada página é uma consulta indexada.
+     */
+    public List<UserResponseDTO> findPage(int page, int size) {
+        if (userDirectory.isSingleTable()) {
+            return userAccountRepository.findAllBy(PageRequest.of(page, size, USER_LISTING_ORDER)).stream()
+                    .map(this::convertAccountToResponseDTO)
+                    .collect(Collectors.toList());
         }
 
-        Optional<Bank> bank = bankRepository.findById(id);
-        if (bank.isPresent()) {
-            return Optional.of(convertBankToResponseDTO(bank.get()));
-        }
+        // Sem a tabela única, cada tabela só precisa entregar as primeiras (page + 1) * size linhas na ordem da chave
+        int limit = (int) Math.min((long) (page + 1) * size, Integer.MAX_VALUE);
+        Pageable probe = PageRequest.of(0, limit);
+        List<User> merged = new ArrayList<>();
+        merged.addAll(customerRepository.findPage(probe));
+        merged.addAll(agentRepository.findPage(probe));
+        merged.addAll(bankRepository.findPage(probe));
+        merged.sort(KEYSET_ORDER);
+        int from = (int) Math.min((long) page * size, merged.size());
+        int to = Math.min(from + size, merged.size());
+        return merged.subList(from, to).stream()
+                .map(this::convertToResponseDTO)
+                .collect(Collectors.toList());
+    }
 
-        return Optional.empty();
+    public Optional<UserResponseDTO> findById(String id) {
+        return userDirectory.loadById(id).map(this::convertToResponseDTO);
     }
 
     public Optional<UserResponseDTO> findByEmail(String email) {
-        // Tentar encontrar em cada repositório
-        Optional<Customer> customer = customerRepository.findByEmail(email);
-        if (customer.isPresent()) {
-            return Optional.of(convertCustomerToResponseDTO(customer.get()));
-        }
-
-        Optional<CompanyAgent> companyAgent = companyAgentRepository.findByEmail(email);
-        if (companyAgent.isPresent()) {
-            return Optional.of(convertCompanyAgentToResponseDTO(companyAgent.get()));
-        }
-
-        Optional<BankAgent> bankAgent = bankAgentRepository.findByEmail(email);
-        if (bankAgent.isPresent()) {
-            return Optional.of(convertBankAgentToResponseDTO(bankAgent.get()));
-        }
-
-        Optional<Bank> bank = bankRepository.findByEmail(email);
-        if (bank.isPresent()) {
-            return Optional.of(convertBankToResponseDTO(bank.get()));
-        }
-
-        return Optional.empty();
+        return userDirectory.loadByEmail(email).map(this::convertToResponseDTO);
     }
 
     public List<UserResponseDTO> findByRole(UserRole role) {
+        if (userDirectory.isSingleTable()) {
+            return userAccountRepository.findByRole(role, USER_LISTING_ORDER).stream()
+                    .map(this::convertAccountToResponseDTO)
+                    .collect(Collectors.toList());
+        }
+
         switch (role) {
             case CUSTOMER:
                 return customerRepository.findAll().stream()
@@ -136,36 +205,40 @@ public class UserService implements UserDetailsService {
         }
     }
 
+    @Transactional
     public UserResponseDTO create(UserCreateDTO dto) {
         switch (dto.getRole()) {
             case CUSTOMER:
                 Customer customer = new Customer();
-                customer.setId(UUID.randomUUID().toString());
+                customer.setId(IdGenerator.newId());
                 customer.setUsername(dto.getUsername());
                 customer.setEmail(dto.getEmail());
                 customer.setPassword(dto.getPassword());
                 customer.setCreatedAt(LocalDate.now());
                 Customer savedCustomer = customerRepository.save(customer);
+                userDirectory.put(savedCustomer);
                 return convertCustomerToResponseDTO(savedCustomer);
 
             case AGENT_COMPANY:
                 CompanyAgent companyAgent = new CompanyAgent();
-                companyAgent.setId(UUID.randomUUID().toString());
+                companyAgent.setId(IdGenerator.newId());
                 companyAgent.setUsername(dto.getUsername());
                 companyAgent.setEmail(dto.getEmail());
                 companyAgent.setPassword(dto.getPassword());
                 companyAgent.setCreatedAt(LocalDate.now());
                 CompanyAgent savedCompanyAgent = companyAgentRepository.save(companyAgent);
+                userDirectory.put(savedCompanyAgent);
                 return convertCompanyAgentToResponseDTO(savedCompanyAgent);
 
             case AGENT_BANK:
                 BankAgent bankAgent = new BankAgent();
-                bankAgent.setId(UUID.randomUUID().toString());
+                bankAgent.setId(IdGenerator.newId());
                 bankAgent.setUsername(dto.getUsername());
                 bankAgent.setEmail(dto.getEmail());
                 bankAgent.setPassword(dto.getPassword());
                 bankAgent.setCreatedAt(LocalDate.now());
                 BankAgent savedBankAgent = bankAgentRepository.save(bankAgent);
+                userDirectory.put(savedBankAgent);
                 return convertBankAgentToResponseDTO(savedBankAgent);
 
             default:
@@ -173,179 +246,110 @@ public class UserService implements UserDetailsService {
         }
     }
 
+    @Transactional
     public Optional<UserResponseDTO> update(String id, UserCreateDTO dto) {
-        // Tentar encontrar em cada repositório
-        Optional<Customer> customer = customerRepository.findById(id);
-        if (customer.isPresent()) {
-            Customer c = customer.get();
-            c.setUsername(dto.getUsername());
-            c.setEmail(dto.getEmail());
-            c.setPassword(dto.getPassword());
-            c.setRole(dto.getRole());
-            Customer updated = customerRepository.save(c);
-            return Optional.of(convertCustomerToResponseDTO(updated));
+        Optional<User> existing = userDirectory.loadById(id);
+        if (existing.isEmpty()) {
+            return Optional.empty();
         }
 
-        Optional<CompanyAgent> companyAgent = companyAgentRepository.findById(id);
-        if (companyAgent.isPresent()) {
-            CompanyAgent agent = companyAgent.get();
-            agent.setUsername(dto.getUsername());
-            agent.setEmail(dto.getEmail());
-            agent.setPassword(dto.getPassword());
-            agent.setRole(dto.getRole());
-            CompanyAgent updated = companyAgentRepository.save(agent);
-            return Optional.of(convertCompanyAgentToResponseDTO(updated));
+        User user = existing.get();
+        boolean passwordChanged = dto.getPassword() != null
+                && !passwordHashingService.matches(user.getUsername(), dto.getPassword(), user.getPassword());
+        user.setUsername(dto.getUsername());
+        user.setEmail(dto.getEmail());
+        if (passwordChanged) {
+            user.setPassword(passwordHashingService.encode(dto.getPassword()));
         }
+        user.setRole(dto.getRole());
 
-        Optional<BankAgent> bankAgent = bankAgentRepository.findById(id);
-        if (bankAgent.isPresent()) {
-            BankAgent agent = bankAgent.get();
-            agent.setUsername(dto.getUsername());
-            agent.setEmail(dto.getEmail());
-            agent.setPassword(dto.getPassword());
-            agent.setRole(dto.getRole());
-            BankAgent updated = bankAgentRepository.save(agent);
-            return Optional.of(convertBankAgentToResponseDTO(updated));
-        }
+        User updated = saveUser(user);
+        userDirectory.put(updated);
 
-        Optional<Bank> bank = bankRepository.findById(id);
-        if (bank.isPresent()) {
-            Bank b = bank.get();
-            b.setUsername(dto.getUsername());
-            b.setEmail(dto.getEmail());
-            b.setPassword(dto.getPassword());
-            b.setRole(dto.getRole());
-            Bank updated = bankRepository.save(b);
-            return Optional.of(convertBankToResponseDTO(updated));
+        // Troca de senha encerra todas as sessões abertas
+        if (passwordChanged) {
+            refreshTokenService.revokeAllForUser(id);
+            tokenRevocationService.revokeAllForUser(id);
         }
+        return Optional.of(convertToResponseDTO(updated));
+    }
 
-        return Optional.empty();
+    private User saveUser(User user) {
+        if (user instanceof Customer customer) return customerRepository.save(customer);
+        if (user instanceof CompanyAgent agent) return companyAgentRepository.save(agent);
+        if (user instanceof BankAgent agent) return bankAgentRepository.save(agent);
+        if (user instanceof Bank bank) return bankRepository.save(bank);
+        throw new IllegalArgumentException("Tipo de usuário não suportado");
     }
 
+    @Transactional
     public boolean delete(String id) {
-        if (customerRepository.existsById(id)) {
-            customerRepository.deleteById(id);
-            return true;
-        }
-        if (companyAgentRepository.existsById(id)) {
-            companyAgentRepository.deleteById(id);
-            return true;
+        Optional<UserDirectory.Entry> entry = userDirectory.findById(id);
+        if (entry.isEmpty()) {
+            return false;
         }
-        if (bankAgentRepository.existsById(id)) {
-            bankAgentRepository.deleteById(id);
-            return true;
-        }
-        if (bankRepository.existsById(id)) {
-            bankRepository.deleteById(id);
-            return true;
+
+        switch (entry.get().getType()) {
+            case CUSTOMER -> {
+                customerService.removeRequests(id);
+                customerRepository.deleteById(id);
+            }
+            case COMPANY_AGENT -> companyAgentRepository.deleteById(id);
+            case BANK_AGENT -> bankAgentRepository.deleteById(id);
+            case BANK -> bankRepository.deleteById(id);
         }
-        return false;
+        userDirectory.remove(id);
+        refreshTokenService.revokeAllForUser(id);
+        tokenRevocationService.revokeAllForUser(id);
+        return true;
     }
 
     public boolean existsByEmail(String email) {
-        return customerRepository.existsByEmail(email) ||
-               companyAgentRepository.existsByEmail(email) ||
-               bankAgentRepository.existsByEmail(email) ||
-               bankRepository.existsByEmail(email);
+        return userDirectory.existsByEmail(email);
     }
 
     public boolean existsByUsername(String username) {
-        return customerRepository.existsByUsername(username) ||
-               companyAgentRepository.existsByUsername(username) ||
-               bankAgentRepository.existsByUsername(username) ||
-               bankRepository.existsByUsername(username);
+        return userDirectory.existsByUsername(username);
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // Tentar encontrar em cada repositório
-        Optional<Customer> customer = customerRepository.findByUsername(username);
-        if (customer.isPresent()) {
-            return createUserDetails(customer.get());
-        }
-
-        Optional<CompanyAgent> companyAgent = companyAgentRepository.findByUsername(username);
-        if (companyAgent.isPresent()) {
-            return createUserDetails(companyAgent.get());
-        }
-
-        Optional<BankAgent> bankAgent = bankAgentRepository.findByUsername(username);
-        if (bankAgent.isPresent()) {
-            return createUserDetails(bankAgent.get());
-        }
-
-        Optional<Bank> bank = bankRepository.findByUsername(username);
-        if (bank.isPresent()) {
-            return createUserDetails(bank.get());
-        }
-
-        throw new UsernameNotFoundException("Usuário não encontrado: " + username);
+        return userDirectory.loadByUsername(username)
+                .map(this::createUserDetails)
+                .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado: " + username));
     }
 
-    private UserDetails createUserDetails(Object user) {
-        if (user instanceof Customer customer) {
-            return new org.springframework.security.core.userdetails.User(
-                    customer.getUsername(),
-                    customer.getPassword(),
-                    true, true, true, true,
-                    getAuthorities(customer.getRole())
-            );
-        } else if (user instanceof CompanyAgent agent) {
-            return new org.springframework.security.core.userdetails.User(
-                    agent.getUsername(),
-                    agent.getPassword(),
-                    true, true, true, true,
-                    getAuthorities(agent.getRole())
-            );
-        } else if (user instanceof BankAgent agent) {
-            return new org.springframework.security.core.userdetails.User(
-                    agent.getUsername(),
-                    agent.getPassword(),
-                    true, true, true, true,
-                    getAuthorities(agent.getRole())
-            );
-        } else if (user instanceof Bank bank) {
-            return new org.springframework.security.core.userdetails.User(
-                    bank.getUsername(),
-                    bank.getPassword(),
-                    true, true, true, true,
-                    getAuthorities(bank.getRole())
-            );
-        }
-        throw new UsernameNotFoundException("Tipo de usuário não suportado");
+    private UserDetails createUserDetails(User user) {
+        return new org.springframework.security.core.userdetails.User(
+                user.getUsername(),
+                user.getPassword(),
+                true, true, true, true,
+                getAuthorities(user.getRole())
+        );
     }
 
     private java.util.Collection<? extends org.springframework.security.core.GrantedAuthority> getAuthorities(UserRole role) {
-        java.util.List<org.springframework.security.core.GrantedAuthority> authorities = new java.util.ArrayList<>();
-
-        authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("ROLE_" + role.name()));
+        return RoleAuthorities.forRole(role);
+    }
 
-        switch (role) {
-            case CUSTOMER:
-                authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("PERM_CUSTOMER_READ"));
-                authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("PERM_CUSTOMER_WRITE"));
-                authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("PERM_RENTAL_REQUEST_CREATE"));
-                authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("PERM_RENTAL_REQUEST_READ_OWN"));
-                break;
-            case AGENT_COMPANY:
-                authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("PERM_AGENT_READ"));
-                authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("PERM_AGENT_WRITE"));
-                authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("PERM_RENTAL_REQUEST_READ_ALL"));
-                authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("PERM_RENTAL_REQUEST_UPDATE"));
-                authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("PERM_AUTOMOBILE_MANAGE"));
-                break;
-            case AGENT_BANK:
-                authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("PERM_AGENT_READ"));
-                authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("PERM_AGENT_WRITE"));
-                authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("PERM_RENTAL_REQUEST_READ_ALL"));
-                authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("PERM_RENTAL_REQUEST_UPDATE"));
-                authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("PERM_CREDIT_CONTRACT_MANAGE"));
-                authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("PERM_FINANCIAL_ANALYSIS"));
-                authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("PERM_AUTOMOBILE_MANAGE")); // ADICIONADO
-                break;
-        }
+    private UserResponseDTO convertToResponseDTO(User user) {
+        return new UserResponseDTO(
+                user.getId(),
+                user.getUsername(),
+                user.getEmail(),
+                user.getRole(),
+                user.getCreatedAt()
+        );
+    }
 
-        return authorities;
+    private UserResponseDTO convertAccountToResponseDTO(UserAccount account) {
+        return new UserResponseDTO(
+                account.getId(),
+                account.getUsername(),
+                account.getEmail(),
+                account.getRole(),
+                account.getCreatedAt()
+        );
     }
 
     private UserResponseDTO convertCustomerToResponseDTO(Customer customer) {
@@ -389,26 +393,6 @@ public class UserService implements UserDetailsService {
     }
 
     public Optional<UserResponseDTO> findByUsername(String username) {
-        Optional<Customer> customer = customerRepository.findByUsername(username);
-        if (customer.isPresent()) {
-            return Optional.of(convertCustomerToResponseDTO(customer.get()));
-        }
-
-        Optional<CompanyAgent> companyAgent = companyAgentRepository.findByUsername(username);
-        if (companyAgent.isPresent()) {
-            return Optional.of(convertCompanyAgentToResponseDTO(companyAgent.get()));
-        }
-
-        Optional<BankAgent> bankAgent = bankAgentRepository.findByUsername(username);
-        if (bankAgent.isPresent()) {
-            return Optional.of(convertBankAgentToResponseDTO(bankAgent.get()));
-        }
-
-        Optional<Bank> bank = bankRepository.findByUsername(username);
-        if (bank.isPresent()) {
-            return Optional.of(convertBankToResponseDTO(bank.get()));
-        }
-
-        return Optional.empty();
+        return userDirectory.loadByUsername(username).map(this::convertToResponseDTO);
     }
 }
\ No newline at end of file
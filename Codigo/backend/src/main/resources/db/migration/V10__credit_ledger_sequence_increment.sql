@@ -0,0 +1,3 @@
+-- Lançamentos do livro passam a tirar um id por vez da sequência (allocationSize = 1),
+-- para que a ordem dos ids acompanhe a ordem de commit dentro de cada contrato.
+alter sequence credit_ledger_entry_seq increment by 1;
@@ -0,0 +1,18 @@
+-- A paginação por chave (created_at, id) não enxerga linhas com created_at nulo: o cursor "null|id"
+-- é recusado e o predicado "created_at < ?" nunca casa com elas. Linhas legadas recebem uma data
+-- e a coluna passa a ser obrigatória. Pedidos usam a data mais antiga que se conhece deles.
+update rental_request set created_at = least(pickup_date, processed_at, current_date) where created_at is null;
+update automobile set created_at = current_date where created_at is null;
+update credit_contract set created_at = coalesce(updated_at, current_date) where created_at is null;
+update customer set created_at = current_date where created_at is null;
+update agent set created_at = current_date where created_at is null;
+update bank set created_at = current_date where created_at is null;
+update app_user set created_at = current_date where created_at is null;
+
+alter table rental_request alter column created_at set not null;
+alter table automobile alter column created_at set not null;
+alter table credit_contract alter column created_at set not null;
+alter table customer alter column created_at set not null;
+alter table agent alter column created_at set not null;
+alter table bank alter column created_at set not null;
+alter table app_user alter column created_at set not null;
@@ -0,0 +1,262 @@
+-- Esquema base, equivalente ao gerado pelo Hibernate (ddl-auto=update) até esta versão.
+-- Idempotente: bancos que vieram do ddl-auto=update entram pelo baseline na versão 0 e também
+-- executam este script, que cria apenas o que ainda não existe (tabelas, colunas, índices e FKs).
+
+create sequence if not exists credit_ledger_entry_seq start with 1 increment by 50;
+
+create table if not exists agent (
+    created_at date,
+    dtype varchar(31) not null,
+    cnpj varchar(255),
+    corporate_reason varchar(255),
+    email varchar(255),
+    id varchar(255) not null,
+    password varchar(255),
+    user_role varchar(255) not null check (user_role in ('CUSTOMER','AGENT_COMPANY','AGENT_BANK')),
+    username varchar(255),
+    primary key (id)
+);
+
+create table if not exists app_user (
+    created_at date,
+    user_type varchar(31) not null check (user_type in ('CUSTOMER','COMPANY_AGENT','BANK_AGENT','BANK')),
+    email varchar(255),
+    id varchar(255) not null,
+    password varchar(255),
+    user_role varchar(255) not null check (user_role in ('CUSTOMER','AGENT_COMPANY','AGENT_BANK')),
+    username varchar(255),
+    primary key (id),
+    constraint uk_app_user_username unique (username),
+    constraint uk_app_user_email unique (email)
+);
+
+create table if not exists automobile (
+    available boolean not null,
+    car_year integer,
+    created_at date,
+    daily_rate float(53),
+    version bigint default 0 not null,
+    brand varchar(255),
+    created_by_agent_id varchar(255),
+    created_by_agent_role varchar(255) check (created_by_agent_role in ('CUSTOMER','AGENT_COMPANY','AGENT_BANK')),
+    created_by_agent_username varchar(255),
+    id varchar(255) not null,
+    license_plate varchar(255),
+    model varchar(255),
+    registration varchar(255),
+    primary key (id)
+);
+
+create table if not exists bank (
+    created_at date,
+    bank_code varchar(255),
+    email varchar(255),
+    id varchar(255) not null,
+    password varchar(255),
+    user_role varchar(255) not null check (user_role in ('CUSTOMER','AGENT_COMPANY','AGENT_BANK')),
+    username varchar(255),
+    primary key (id)
+);
+
+create table if not exists company (
+    id varchar(255) not null,
+    sector varchar(255),
+    primary key (id)
+);
+
+create table if not exists credit_balance_snapshot (
+    available_limit float(53) not null,
+    last_entry_id bigint not null,
+    taken_at timestamp(6) with time zone not null,
+    contract_id varchar(255) not null,
+    primary key (contract_id)
+);
+
+create table if not exists credit_contract (
+    available_limit float(53) not null,
+    created_at date,
+    credit_limit float(53) not null,
+    updated_at date,
+    version bigint default 0 not null,
+    bank_agent_id varchar(255) not null,
+    customer_id varchar(255) not null,
+    id varchar(255) not null,
+    status varchar(255),
+    primary key (id)
+);
+
+create table if not exists credit_ledger_entry (
+    amount float(53) not null,
+    delta float(53) not null,
+    created_at timestamp(6) with time zone not null,
+    id bigint not null,
+    entry_type varchar(16) not null check (entry_type in ('HOLD','CAPTURE','RELEASE','LIMIT_CHANGE')),
+    contract_id varchar(255) not null,
+    rental_request_id varchar(255),
+    primary key (id),
+    constraint uk_credit_ledger_entry_request_type unique (rental_request_id, entry_type)
+);
+
+create table if not exists customer (
+    created_at date,
+    email varchar(255),
+    id varchar(255) not null,
+    password varchar(255),
+    user_role varchar(255) not null check (user_role in ('CUSTOMER','AGENT_COMPANY','AGENT_BANK')),
+    username varchar(255),
+    primary key (id)
+);
+
+create table if not exists employer_entity (
+    address varchar(255),
+    cnpj varchar(255),
+    customer_id varchar(255),
+    id varchar(255) not null,
+    name varchar(255),
+    primary key (id)
+);
+
+create table if not exists income (
+    end_date date,
+    income_value float(53),
+    start_date date,
+    customer_id varchar(255),
+    id varchar(255) not null,
+    type varchar(255) check (type in ('SALARY','FREELANCE','BUSINESS','OTHERS')),
+    primary key (id)
+);
+
+create table if not exists refresh_token (
+    revoked boolean not null,
+    expires_at timestamp(6) with time zone not null,
+    family_id varchar(36) not null,
+    token_hash varchar(64) not null,
+    user_id varchar(255) not null,
+    primary key (token_hash)
+);
+
+create table if not exists rental_request (
+    created_at date,
+    pickup_date date not null,
+    processed_at date,
+    rental_days integer,
+    return_date date not null,
+    total_value float(53),
+    version bigint default 0 not null,
+    rejection_reason varchar(500),
+    observations varchar(1000),
+    automobile_id varchar(255) not null,
+    customer_id varchar(255) not null,
+    id varchar(255) not null,
+    processed_by_agent_id varchar(255),
+    processed_by_agent_username varchar(255),
+    status varchar(255) not null check (status in ('PENDING','UNDER_ANALYSIS','APPROVED','REJECTED','CANCELLED','ACTIVE','COMPLETED')),
+    primary key (id)
+);
+
+create table if not exists rental_contract (
+    contract_value float(53),
+    end_date date,
+    signing_date date,
+    start_date date,
+    id varchar(255) not null,
+    rental_request_id varchar(255) unique,
+    terms oid,
+    primary key (id)
+);
+
+create table if not exists token_revocation (
+    cutoff timestamp(6) with time zone,
+    expires_at timestamp(6) with time zone not null,
+    id bigserial not null,
+    type varchar(10) not null check (type in ('TOKEN','USER')),
+    subject varchar(64) not null,
+    primary key (id)
+);
+
+-- Colunas acrescentadas a tabelas que já existiam antes do Flyway
+alter table automobile add column if not exists created_by_agent_role varchar(255)
+    check (created_by_agent_role in ('CUSTOMER','AGENT_COMPANY','AGENT_BANK'));
+alter table automobile add column if not exists version bigint default 0 not null;
+alter table credit_contract add column if not exists version bigint default 0 not null;
+alter table rental_request add column if not exists version bigint default 0 not null;
+
+create index if not exists idx_agent_created
+   on agent (created_at, id);
+
+create index if not exists idx_app_user_type_created
+   on app_user (user_type, created_at, id);
+
+create index if not exists idx_app_user_created
+   on app_user (created_at, id);
+
+create index if not exists idx_automobile_created_by_agent_username
+   on automobile (created_by_agent_username);
+
+create index if not exists idx_automobile_created_by_agent_id
+   on automobile (created_by_agent_id);
+
+create index if not exists idx_automobile_created
+   on automobile (created_at, id);
+
+create index if not exists idx_bank_created
+   on bank (created_at, id);
+
+create index if not exists idx_credit_contract_bank_agent_created
+   on credit_contract (bank_agent_id, created_at, id);
+
+create index if not exists idx_credit_contract_customer_bank_agent
+   on credit_contract (customer_id, bank_agent_id);
+
+create index if not exists idx_credit_ledger_entry_contract
+   on credit_ledger_entry (contract_id, id);
+
+create index if not exists idx_customer_created
+   on customer (created_at, id);
+
+create index if not exists idx_refresh_token_family
+   on refresh_token (family_id);
+
+create index if not exists idx_refresh_token_expires
+   on refresh_token (expires_at);
+
+create index if not exists idx_rental_request_automobile_period
+   on rental_request (automobile_id, pickup_date, return_date);
+
+create index if not exists idx_rental_request_customer_created
+   on rental_request (customer_id, created_at, id);
+
+create index if not exists idx_rental_request_created
+   on rental_request (created_at, id);
+
+create index if not exists idx_rental_request_status_automobile_created
+   on rental_request (status, automobile_id, created_at, id);
+
+create index if not exists idx_token_revocation_expires
+   on token_revocation (expires_at);
+
+do $$
+begin
+    if not exists (select 1 from pg_constraint where conname = 'fksk0sbyxg9gsloo96sx7gktljp') then
+        alter table credit_contract add constraint FKsk0sbyxg9gsloo96sx7gktljp foreign key (bank_agent_id) references agent;
+    end if;
+    if not exists (select 1 from pg_constraint where conname = 'fkoauv4o4c8dfisi7da2579oh9g') then
+        alter table credit_contract add constraint FKoauv4o4c8dfisi7da2579oh9g foreign key (customer_id) references customer;
+    end if;
+    if not exists (select 1 from pg_constraint where conname = 'fkn3ctdubovj9snybx928j3arsm') then
+        alter table employer_entity add constraint FKn3ctdubovj9snybx928j3arsm foreign key (customer_id) references customer;
+    end if;
+    if not exists (select 1 from pg_constraint where conname = 'fkb8v029caif9cg8cnubbrek6tm') then
+        alter table income add constraint FKb8v029caif9cg8cnubbrek6tm foreign key (customer_id) references customer;
+    end if;
+    if not exists (select 1 from pg_constraint where conname = 'fk33p5a21h9g2q8n7wu2xa164ue') then
+        alter table rental_request add constraint FK33p5a21h9g2q8n7wu2xa164ue foreign key (automobile_id) references automobile;
+    end if;
+    if not exists (select 1 from pg_constraint where conname = 'fksusoa1nurxhb7a76u8otky3bv') then
+        alter table rental_request add constraint FKsusoa1nurxhb7a76u8otky3bv foreign key (customer_id) references customer;
+    end if;
+    if not exists (select 1 from pg_constraint where conname = 'fkkc6l4kf0irubvjbciv8ymmdv4') then
+        alter table rental_contract add constraint FKkc6l4kf0irubvjbciv8ymmdv4 foreign key (rental_request_id) references rental_request;
+    end if;
+end
+$$;
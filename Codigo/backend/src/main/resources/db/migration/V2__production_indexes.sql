@@ -0,0 +1,27 @@
+-- Índices das consultas quentes que não vinham das anotações das entidades.
+-- IF NOT EXISTS: bancos vindos do ddl-auto=update podem ter parte deles.
+
+-- Listagens por status ordenadas por data (findViewsByStatus)
+create index if not exists idx_rental_request_status_created
+   on rental_request (status, created_at, id);
+
+-- Contrato ativo por cliente e banco; apenas contratos ativos entram no índice
+drop index if exists idx_credit_contract_customer_bank_agent;
+create index if not exists idx_credit_contract_active_pair
+   on credit_contract (customer_id, bank_agent_id)
+   where status = 'ACTIVE';
+
+create index if not exists idx_credit_contract_customer
+   on credit_contract (customer_id);
+
+-- Login e checagens de unicidade por username/email
+create index if not exists idx_customer_username on customer (username);
+create index if not exists idx_customer_email on customer (email);
+create index if not exists idx_agent_username on agent (username);
+create index if not exists idx_agent_email on agent (email);
+create index if not exists idx_bank_username on bank (username);
+create index if not exists idx_bank_email on bank (email);
+
+-- Chaves estrangeiras para o cliente
+create index if not exists idx_income_customer on income (customer_id);
+create index if not exists idx_employer_entity_customer on employer_entity (customer_id);
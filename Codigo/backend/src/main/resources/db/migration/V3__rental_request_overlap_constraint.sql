@@ -0,0 +1,46 @@
+-- Impede dois pedidos ativos do mesmo automóvel com períodos sobrepostos (intervalos [retirada, devolução)).
+create extension if not exists btree_gist;
+
+-- Dados legados: entre pedidos ativos sobrepostos do mesmo carro fica o de maior prioridade
+-- (ACTIVE, APPROVED, UNDER_ANALYSIS, PENDING e, no empate, o mais antigo); os demais são rejeitados.
+create temporary table rental_request_overlap_rank on commit drop as
+select id, automobile_id, daterange(pickup_date, return_date, '[)') as period,
+       row_number() over (order by case status
+                                       when 'ACTIVE' then 0
+                                       when 'APPROVED' then 1
+                                       when 'UNDER_ANALYSIS' then 2
+                                       else 3
+                                   end, created_at, id) as priority
+  from rental_request
+ where status in ('PENDING', 'UNDER_ANALYSIS', 'APPROVED', 'ACTIVE');
+
+do $$
+declare
+    r record;
+begin
+    for r in
+        select o.* from rental_request_overlap_rank o
+         where exists (select 1 from rental_request_overlap_rank k
+                        where k.automobile_id = o.automobile_id and k.priority < o.priority
+                          and k.period && o.period)
+         order by o.priority
+    loop
+        -- Só conflita com quem continua ativo; pedidos de maior prioridade já foram decididos
+        if exists (select 1 from rental_request_overlap_rank k
+                     join rental_request q on q.id = k.id
+                    where k.automobile_id = r.automobile_id and k.priority < r.priority
+                      and k.period && r.period
+                      and q.status in ('PENDING', 'UNDER_ANALYSIS', 'APPROVED', 'ACTIVE')) then
+            update rental_request
+               set status = 'REJECTED',
+                   rejection_reason = 'Período sobreposto a outro pedido do mesmo automóvel',
+                   processed_at = current_date
+             where id = r.id;
+        end if;
+    end loop;
+end
+$$;
+
+alter table rental_request add constraint ex_rental_request_no_overlap
+    exclude using gist (automobile_id with =, daterange(pickup_date, return_date, '[)') with &&)
+    where (status in ('PENDING', 'UNDER_ANALYSIS', 'APPROVED', 'ACTIVE'));
@@ -0,0 +1,12 @@
+-- Preenche id e papel do dono dos automóveis criados antes dessas colunas, a partir do username
+update automobile a set created_by_agent_id = u.id from agent u
+ where a.created_by_agent_id is null and a.created_by_agent_username = u.username;
+
+update automobile a set created_by_agent_id = u.id from bank u
+ where a.created_by_agent_id is null and a.created_by_agent_username = u.username;
+
+update automobile a set created_by_agent_role = u.user_role from agent u
+ where a.created_by_agent_role is null and a.created_by_agent_id = u.id;
+
+update automobile a set created_by_agent_role = u.user_role from bank u
+ where a.created_by_agent_role is null and a.created_by_agent_id = u.id;
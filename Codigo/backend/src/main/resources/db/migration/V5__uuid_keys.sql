@@ -0,0 +1,89 @@
+-- Ids passam de varchar(255) para uuid nativo (16 bytes). Ids gerados pela aplicação sempre foram UUID;
+-- referências soltas (sem FK) fora do formato viram nulo.
+
+alter table credit_contract drop constraint if exists FKsk0sbyxg9gsloo96sx7gktljp;
+alter table credit_contract drop constraint if exists FKoauv4o4c8dfisi7da2579oh9g;
+alter table employer_entity drop constraint if exists FKn3ctdubovj9snybx928j3arsm;
+alter table income drop constraint if exists FKb8v029caif9cg8cnubbrek6tm;
+alter table rental_request drop constraint if exists FK33p5a21h9g2q8n7wu2xa164ue;
+alter table rental_request drop constraint if exists FKsusoa1nurxhb7a76u8otky3bv;
+alter table rental_contract drop constraint if exists FKkc6l4kf0irubvjbciv8ymmdv4;
+
+alter table customer alter column id type uuid using id::uuid;
+alter table agent alter column id type uuid using id::uuid;
+alter table bank alter column id type uuid using id::uuid;
+alter table app_user alter column id type uuid using id::uuid;
+
+alter table automobile
+    alter column id type uuid using id::uuid,
+    alter column created_by_agent_id type uuid using
+        case when created_by_agent_id ~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$'
+             then created_by_agent_id::uuid end;
+
+alter table rental_request
+    alter column id type uuid using id::uuid,
+    alter column customer_id type uuid using customer_id::uuid,
+    alter column automobile_id type uuid using automobile_id::uuid,
+    alter column processed_by_agent_id type uuid using
+        case when processed_by_agent_id ~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$'
+             then processed_by_agent_id::uuid end;
+
+alter table rental_contract
+    alter column id type uuid using id::uuid,
+    alter column rental_request_id type uuid using rental_request_id::uuid;
+
+alter table credit_contract
+    alter column id type uuid using id::uuid,
+    alter column customer_id type uuid using customer_id::uuid,
+    alter column bank_agent_id type uuid using bank_agent_id::uuid;
+
+alter table income
+    alter column id type uuid using id::uuid,
+    alter column customer_id type uuid using customer_id::uuid;
+
+alter table employer_entity alter column customer_id type uuid using customer_id::uuid;
+
+alter table credit_ledger_entry
+    alter column contract_id type uuid using contract_id::uuid,
+    alter column rental_request_id type uuid using rental_request_id::uuid;
+
+alter table credit_balance_snapshot alter column contract_id type uuid using contract_id::uuid;
+
+delete from refresh_token
+ where user_id !~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$';
+alter table refresh_token alter column user_id type uuid using user_id::uuid;
+
+alter table credit_contract
+   add constraint FKsk0sbyxg9gsloo96sx7gktljp
+   foreign key (bank_agent_id)
+   references agent;
+
+alter table credit_contract
+   add constraint FKoauv4o4c8dfisi7da2579oh9g
+   foreign key (customer_id)
+   references customer;
+
+alter table employer_entity
+   add constraint FKn3ctdubovj9snybx928j3arsm
+   foreign key (customer_id)
+   references customer;
+
+alter table income
+   add constraint FKb8v029caif9cg8cnubbrek6tm
+   foreign key (customer_id)
+   references customer;
+
+alter table rental_request
+   add constraint FK33p5a21h9g2q8n7wu2xa164ue
+   foreign key (automobile_id)
+   references automobile;
+
+alter table rental_request
+   add constraint FKsusoa1nurxhb7a76u8otky3bv
+   foreign key (customer_id)
+   references customer;
+
+alter table rental_contract
+   add constraint FKkc6l4kf0irubvjbciv8ymmdv4
+   foreign key (rental_request_id)
+   references rental_request;
@@ -0,0 +1,30 @@
+-- Arquivo de pedidos encerrados, particionado por mês de criação. O RentalRequestArchiveService
+-- move para cá pedidos concluídos, cancelados e rejeitados antigos e cria as partições mensais
+-- conforme precisa (rental_request_archive_AAAA_MM).
+-- rental_request continua sem particionar: a chave primária em id, a chave estrangeira de
+-- rental_contract e a exclusion constraint de sobreposição (V3) não incluem created_at.
+-- Sem chaves estrangeiras: exclusões de cliente e automóvel limpam o arquivo pela aplicação.
+create table rental_request_archive (
+    created_at date not null,
+    pickup_date date not null,
+    processed_at date,
+    rental_days integer,
+    return_date date not null,
+    total_value float(53),
+    rejection_reason varchar(500),
+    observations varchar(1000),
+    automobile_id uuid not null,
+    customer_id uuid not null,
+    id uuid not null,
+    processed_by_agent_id uuid,
+    processed_by_agent_username varchar(255),
+    status varchar(255) not null check (status in ('REJECTED','CANCELLED','COMPLETED')),
+    archived_at timestamp(6) with time zone not null,
+    primary key (id, created_at)
+) partition by range (created_at);
+
+create index idx_rental_request_archive_customer_created
+   on rental_request_archive (customer_id, created_at, id);
+
+create index idx_rental_request_archive_automobile
+   on rental_request_archive (automobile_id);
@@ -0,0 +1,2 @@
+-- app_user é espelho das tabelas de perfil para buscas e unicidade; a senha fica só no perfil
+alter table app_user drop column if exists password;
@@ -0,0 +1,3 @@
+-- Revogação de todas as sessões de um usuário (revokeAllForUser) filtra por user_id
+create index if not exists idx_refresh_token_user
+   on refresh_token (user_id);
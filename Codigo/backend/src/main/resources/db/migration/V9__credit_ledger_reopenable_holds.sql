@@ -0,0 +1,6 @@
+-- Um pedido pode reservar de novo depois de ter a reserva liberada (ex.: rejeitado e reaprovado).
+-- A unicidade por (pedido, tipo) dá lugar à checagem de reserva aberta, feita sob a trava do contrato.
+alter table credit_ledger_entry drop constraint if exists uk_credit_ledger_entry_request_type;
+
+create index if not exists idx_credit_ledger_entry_request
+   on credit_ledger_entry (rental_request_id, entry_type);
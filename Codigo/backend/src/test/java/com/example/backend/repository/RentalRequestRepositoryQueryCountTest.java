@@ -0,0 +1,142 @@
+package com.example.backend.repository;
+
+import com.example.backend.dto.RentalRequestResponseDTO;
+import com.example.backend.model.Automobile;
+import com.example.backend.model.Customer;
+import com.example.backend.model.RentalRequest;
+import com.example.backend.model.enums.RequestStatus;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cada listagem de pedidos deve sair em uma única consulta, sem carregar entidades.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:rental;MODE=PostgreSQL;NON_KEYWORDS=YEAR,VALUE",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.flyway.enabled=false",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RentalRequestRepositoryQueryCountTest {
+
+	private static final int REQUESTS_PER_CUSTOMER = 5;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private RentalRequestRepository rentalRequestRepository;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		Automobile automobile = new Automobile();
+		automobile.setId(UUID.randomUUID().toString());
+		automobile.setBrand("Fiat");
+		automobile.setModel("Uno");
+		automobile.setYear(2020);
+		automobile.setDailyRate(100.0);
+		automobile.setCreatedAt(LocalDate.now());
+		automobile.setCreatedByAgentUsername("agent");
+		entityManager.persist(automobile);
+
+		for (int c = 0; c < 2; c++) {
+			Customer customer = new Customer();
+			customer.setId(UUID.randomUUID().toString());
+			customer.setUsername("customer" + c);
+			customer.setEmail("customer" + c + "@mail.com");
+			customer.setCreatedAt(LocalDate.now());
+			entityManager.persist(customer);
+
+			for (int i = 0; i < REQUESTS_PER_CUSTOMER; i++) {
+				RentalRequest request = new RentalRequest();
+				request.setId(UUID.randomUUID().toString());
+				request.setCustomer(customer);
+				request.setAutomobile(automobile);
+				request.setPickupDate(LocalDate.now().plusDays(10L * (c * REQUESTS_PER_CUSTOMER + i)));
+				request.setReturnDate(request.getPickupDate().plusDays(3));
+				request.calculateTotalValue();
+				entityManager.persist(request);
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void findAllViewsUsesSingleQuery() {
+		assertSingleQuery(() -> rentalRequestRepository.findAllViews(), 2 * REQUESTS_PER_CUSTOMER);
+	}
+
+	@Test
+	void findViewsByStatusUsesSingleQuery() {
+		assertSingleQuery(() -> rentalRequestRepository.findViewsByStatus(RequestStatus.PENDING),
+				2 * REQUESTS_PER_CUSTOMER);
+	}
+
+	@Test
+	void findViewsByCustomerUsernameUsesSingleQuery() {
+		assertSingleQuery(() -> rentalRequestRepository.findViewsByCustomerUsername("customer0"),
+				REQUESTS_PER_CUSTOMER);
+	}
+
+	@Test
+	void findViewsForAgentAutomobilesUsesSingleQuery() {
+		assertSingleQuery(() -> rentalRequestRepository.findViewsForAgentAutomobiles("agent"),
+				2 * REQUESTS_PER_CUSTOMER);
+	}
+
+	@Test
+	void customerPageUsesSingleQuery() {
+		assertSingleQuery(() -> rentalRequestRepository.findPageByCustomerUsername("customer1", PageRequest.of(0, 3)), 3);
+	}
+
+	@Test
+	void agentPageUsesSingleQuery() {
+		assertSingleQuery(() -> rentalRequestRepository.findPageForAgentAutomobiles("agent", PageRequest.of(0, 4)), 4);
+	}
+
+	@Test
+	void pendingQueueUsesSingleQuery() {
+		assertSingleQuery(() -> rentalRequestRepository.findQueueForAgent("agent", RequestStatus.PENDING,
+				PageRequest.of(0, 4)), 4);
+	}
+
+	private void assertSingleQuery(Supplier<List<RentalRequestResponseDTO>> query, int expectedRows) {
+		List<RentalRequestResponseDTO> rows = query.get();
+
+		assertThat(rows).hasSize(expectedRows);
+		assertThat(rows).allSatisfy(row -> {
+			assertThat(row.getCustomer().getUsername()).isNotNull();
+			assertThat(row.getAutomobile().getBrand()).isEqualTo("Fiat");
+		});
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount())
+				.isZero();
+	}
+}
@@ -0,0 +1,107 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Leitura dos registros da importação: CSV no formato RFC 4180 e linhas NDJSON,
+ * incluindo o descarte de registros acima do limite de tamanho.
+ */
+class AutomobileImportParsingTest {
+
+	private static final int MAX_LENGTH = 64;
+
+	@Test
+	void quotedFieldKeepsCommas() throws IOException {
+		BufferedReader reader = reader("ABC1234,\"Fiat, Uno\",2020\n");
+
+		assertThat(AutomobileImportService.readCsvRecord(reader, MAX_LENGTH))
+				.containsExactly("ABC1234", "Fiat, Uno", "2020");
+	}
+
+	@Test
+	void doubledQuotesBecomeOneQuote() throws IOException {
+		BufferedReader reader = reader("\"Uno \"\"Mille\"\"\",\"\"\"\"\n");
+
+		assertThat(AutomobileImportService.readCsvRecord(reader, MAX_LENGTH))
+				.containsExactly("Uno \"Mille\"", "\"");
+	}
+
+	@Test
+	void quotedFieldSpansLines() throws IOException {
+		BufferedReader reader = reader("\"linha 1\nlinha 2\",x\r\nproximo,y\r\n");
+
+		assertThat(AutomobileImportService.readCsvRecord(reader, MAX_LENGTH))
+				.containsExactly("linha 1\nlinha 2", "x");
+		assertThat(AutomobileImportService.readCsvRecord(reader, MAX_LENGTH))
+				.containsExactly("proximo", "y");
+		assertThat(AutomobileImportService.readCsvRecord(reader, MAX_LENGTH)).isNull();
+	}
+
+	@Test
+	void lastRecordWithoutNewlineIsRead() throws IOException {
+		BufferedReader reader = reader("a,b\nc,\"d\"");
+
+		assertThat(AutomobileImportService.readCsvRecord(reader, MAX_LENGTH)).containsExactly("a", "b");
+		assertThat(AutomobileImportService.readCsvRecord(reader, MAX_LENGTH)).containsExactly("c", "d");
+		assertThat(AutomobileImportService.readCsvRecord(reader, MAX_LENGTH)).isNull();
+	}
+
+	@Test
+	void byteOrderMarkStaysInTheFirstField() throws IOException {
+		// O BOM é removido do nome da coluna pelo csvSource, não pelo leitor
+		BufferedReader reader = reader("\uFEFFlicensePlate,brand\n");
+
+		assertThat(AutomobileImportService.readCsvRecord(reader, MAX_LENGTH))
+				.containsExactly("\uFEFFlicensePlate", "brand");
+	}
+
+	@Test
+	void oversizedCsvRecordIsSkippedUpToItsEnd() throws IOException {
+		String oversized = "\"" + "x".repeat(MAX_LENGTH) + "\nainda no campo, com virgula\",fim\n";
+		BufferedReader reader = reader("antes\n" + oversized + "depois,1\n");
+
+		assertThat(AutomobileImportService.readCsvRecord(reader, MAX_LENGTH)).containsExactly("antes");
+		assertThatThrownBy(() -> AutomobileImportService.readCsvRecord(reader, MAX_LENGTH))
+				.isInstanceOf(AutomobileImportService.RecordTooLongException.class);
+		// A quebra de linha dentro das aspas não encerra o registro descartado
+		assertThat(AutomobileImportService.readCsvRecord(reader, MAX_LENGTH)).containsExactly("depois", "1");
+	}
+
+	@Test
+	void ndjsonLinesDropCarriageReturn() throws IOException {
+		BufferedReader reader = reader("{\"a\":1}\r\n{\"b\":2}");
+
+		assertThat(AutomobileImportService.readLine(reader, MAX_LENGTH)).isEqualTo("{\"a\":1}");
+		assertThat(AutomobileImportService.readLine(reader, MAX_LENGTH)).isEqualTo("{\"b\":2}");
+		assertThat(AutomobileImportService.readLine(reader, MAX_LENGTH)).isNull();
+	}
+
+	@Test
+	void oversizedNdjsonLineIsSkipped() throws IOException {
+		BufferedReader reader = reader("{\"brand\":\"" + "x".repeat(MAX_LENGTH) + "\"}\n{\"ok\":true}\n");
+
+		assertThatThrownBy(() -> AutomobileImportService.readLine(reader, MAX_LENGTH))
+				.isInstanceOf(AutomobileImportService.RecordTooLongException.class);
+		assertThat(AutomobileImportService.readLine(reader, MAX_LENGTH)).isEqualTo("{\"ok\":true}");
+	}
+
+	@Test
+	void recordWithinTheLimitIsAccepted() throws IOException {
+		// O limite do CSV conta também a quebra de linha que encerra o registro
+		String field = "x".repeat(MAX_LENGTH - 1);
+		BufferedReader reader = reader(field + "\n");
+
+		assertThat(AutomobileImportService.readCsvRecord(reader, MAX_LENGTH)).containsExactly(field);
+	}
+
+	private static BufferedReader reader(String content) {
+		return new BufferedReader(new StringReader(content));
+	}
+}
@@ -0,0 +1,139 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.AutomobileImportResultDTO;
+import com.example.backend.model.Automobile;
+import com.example.backend.repository.AutomobileRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Importação de automóveis contra um Postgres embarcado, com lotes de três registros:
+ * um registro que só falha no banco derruba o lote, que é regravado registro a registro.
+ */
+@SpringBootTest(properties = "app.automobile-import.chunk-size=3")
+class AutomobileImportServiceTest {
+
+	private static final String HEADER = "\uFEFFlicensePlate,brand,model,year,dailyRate\n";
+
+	private static EmbeddedPostgres postgres;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) throws IOException {
+		postgres = EmbeddedPostgres.start();
+		registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "");
+	}
+
+	@AfterAll
+	static void stopDatabase() throws IOException {
+		postgres.close();
+	}
+
+	@Autowired
+	private AutomobileImportService importService;
+
+	@Autowired
+	private AutomobileRepository automobileRepository;
+
+	private String agentUsername;
+
+	@BeforeEach
+	void setUp() {
+		agentUsername = "import-" + IdGenerator.newId();
+	}
+
+	@Test
+	void rowRejectedByTheDatabaseIsIsolatedFromItsChunk() throws IOException {
+		// brand passa na validação, mas não cabe no varchar(255) da coluna
+		String csv = HEADER
+				+ "AAA0001,Fiat,Uno,2020,100\n"
+				+ "AAA0002," + "x".repeat(300) + ",Uno,2020,100\n"
+				+ "AAA0003,\"Fiat, \"\"Turbo\"\"\",Mille,2019,90\n"
+				+ "AAA0004,VW,Gol,2021,120\n";
+
+		AutomobileImportResultDTO result = importCsv(csv);
+
+		assertThat(result.getTotalRows()).isEqualTo(4);
+		assertThat(result.getImportedRows()).isEqualTo(3);
+		assertThat(result.getFailedRows()).isEqualTo(1);
+		assertThat(result.getErrors()).singleElement().satisfies(error -> {
+			assertThat(error.getRow()).isEqualTo(2);
+			assertThat(error.getMessage()).startsWith("Erro ao gravar:").doesNotContain("\n");
+		});
+
+		Map<String, Automobile> imported = importedByPlate();
+		assertThat(imported).containsOnlyKeys("AAA0001", "AAA0003", "AAA0004");
+		assertThat(imported.get("AAA0003").getBrand()).isEqualTo("Fiat, \"Turbo\"");
+	}
+
+	@Test
+	void invalidRowsAreReportedWithoutFailingTheChunk() throws IOException {
+		String csv = HEADER
+				+ "BBB0001,Fiat,Uno,2020,100\n"
+				+ "BBB0002,Fiat,Uno,1800,100\n"
+				+ "BBB0003,Fiat,Uno,dois mil,100\n"
+				+ "BBB0004,\"" + "x".repeat(9000) + "\",Uno,2020,100\n"
+				+ "BBB0005,VW,Gol,2021,120\n";
+
+		AutomobileImportResultDTO result = importCsv(csv);
+
+		assertThat(result.getTotalRows()).isEqualTo(5);
+		assertThat(result.getImportedRows()).isEqualTo(2);
+		assertThat(result.getErrors()).extracting(AutomobileImportResultDTO.RowError::getRow)
+				.containsExactly(2L, 3L, 4L);
+		assertThat(result.getErrors()).extracting(AutomobileImportResultDTO.RowError::getMessage)
+				.containsExactly("Ano deve ser maior que 1900",
+						"Valor numérico inválido em year ou dailyRate",
+						"Registro maior que o limite de 8192 caracteres");
+		assertThat(importedByPlate()).containsOnlyKeys("BBB0001", "BBB0005");
+	}
+
+	@Test
+	void ndjsonRowsAreImportedAndBadJsonIsReported() throws IOException {
+		String ndjson = "{\"licensePlate\":\"CCC0001\",\"brand\":\"Fiat\",\"model\":\"Uno\",\"year\":2020,\"dailyRate\":100}\n"
+				+ "\n"
+				+ "{\"licensePlate\":\"CCC0002\",\"brand\":\n"
+				+ "{\"licensePlate\":\"CCC0003\",\"brand\":\"VW\",\"model\":\"Gol\",\"year\":2021,\"dailyRate\":120}\r\n";
+
+		AutomobileImportResultDTO result = importService.importAutomobiles(stream(ndjson), true,
+				IdGenerator.newId(), agentUsername);
+
+		assertThat(result.getTotalRows()).isEqualTo(3);
+		assertThat(result.getImportedRows()).isEqualTo(2);
+		assertThat(result.getErrors()).singleElement().satisfies(error -> {
+			assertThat(error.getRow()).isEqualTo(2);
+			assertThat(error.getMessage()).startsWith("JSON inválido");
+		});
+		assertThat(importedByPlate()).containsOnlyKeys("CCC0001", "CCC0003");
+	}
+
+	private AutomobileImportResultDTO importCsv(String csv) throws IOException {
+		return importService.importAutomobiles(stream(csv), false, IdGenerator.newId(), agentUsername);
+	}
+
+	private Map<String, Automobile> importedByPlate() {
+		return automobileRepository.findByCreatedByAgentUsername(agentUsername).stream()
+				.collect(Collectors.toMap(Automobile::getLicensePlate, Function.identity()));
+	}
+
+	private static InputStream stream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+}
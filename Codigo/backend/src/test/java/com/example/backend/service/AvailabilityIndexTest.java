@@ -0,0 +1,212 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Automobile;
+import com.example.backend.repository.AutomobileRepository;
+import com.example.backend.repository.RentalRequestRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Índice de disponibilidade com repositórios simulados e horizonte curto, para exercitar
+ * o anel de dias, o reaproveitamento de slots e o crescimento dos buffers.
+ */
+class AvailabilityIndexTest {
+
+	private static final int HORIZON_DAYS = 7;
+	private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+	private AutomobileRepository automobileRepository;
+	private RentalRequestRepository rentalRequestRepository;
+	private AvailabilityIndex index;
+
+	private final List<Automobile> automobiles = new ArrayList<>();
+	private final List<Object[]> bookings = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		automobileRepository = mock(AutomobileRepository.class);
+		rentalRequestRepository = mock(RentalRequestRepository.class);
+		when(automobileRepository.findAll()).thenAnswer(invocation -> new ArrayList<>(automobiles));
+		// Mesmo critério da consulta: pickupDate < to AND returnDate > from
+		when(rentalRequestRepository.findBookingPeriods(any(), any(), any())).thenAnswer(invocation -> {
+			LocalDate from = invocation.getArgument(0);
+			LocalDate to = invocation.getArgument(1);
+			return bookings.stream()
+					.filter(b -> ((LocalDate) b[1]).isBefore(to) && ((LocalDate) b[2]).isAfter(from))
+					.toList();
+		});
+		index = new AvailabilityIndex(automobileRepository, rentalRequestRepository, true, HORIZON_DAYS);
+	}
+
+	@Test
+	void freedSlotIsReusedByTheNextAutomobile() {
+		automobiles.add(automobile("a", "Fiat", 2020, 100.0));
+		automobiles.add(automobile("b", "Fiat", 2020, 100.0));
+		index.rebuild(TODAY);
+
+		index.removeAutomobile("a");
+		index.putAutomobile(automobile("c", "Fiat", 2020, 100.0));
+
+		// Os ids saem na ordem dos slots: "c" ocupa o slot liberado por "a"
+		assertThat(free(TODAY, TODAY.plusDays(1))).containsExactly("c", "b");
+	}
+
+	@Test
+	void growingPastTheInitialCapacityKeepsBookingsAndAttributes() {
+		automobiles.add(automobile("booked", "Fiat", 2020, 100.0));
+		bookings.add(booking("booked", TODAY.plusDays(1), TODAY.plusDays(3)));
+		index.rebuild(TODAY);
+
+		for (int i = 0; i < 2000; i++) {
+			index.putAutomobile(automobile("car-" + i, "Fiat", 2020, 100.0));
+		}
+
+		List<String> busyDays = free(TODAY.plusDays(1), TODAY.plusDays(3));
+		assertThat(busyDays).hasSize(2000).doesNotContain("booked");
+		assertThat(free(TODAY.plusDays(3), TODAY.plusDays(4))).hasSize(2001).contains("booked");
+		assertThat(index.findFree(TODAY, TODAY.plusDays(1), "fiat", 2020, 2020, 100.0, 5000).orElseThrow())
+				.hasSize(2001);
+	}
+
+	@Test
+	void rollClearsPastRowsBeforeReusingThemForNewDays() {
+		automobiles.add(automobile("a", "Fiat", 2020, 100.0));
+		// TODAY+1 e TODAY+8 caem na mesma linha do anel
+		bookings.add(booking("a", TODAY.plusDays(1), TODAY.plusDays(2)));
+		bookings.add(booking("a", TODAY.plusDays(9), TODAY.plusDays(10)));
+		index.rebuild(TODAY);
+
+		index.roll(TODAY.plusDays(3));
+
+		assertThat(index.findFree(TODAY.plusDays(2), TODAY.plusDays(3), null, null, null, null, 10)).isEmpty();
+		assertThat(free(TODAY.plusDays(8), TODAY.plusDays(9))).containsExactly("a");
+		assertThat(free(TODAY.plusDays(9), TODAY.plusDays(10))).isEmpty();
+		assertThat(free(TODAY.plusDays(3), TODAY.plusDays(10))).isEmpty();
+		assertThat(index.findFree(TODAY.plusDays(3), TODAY.plusDays(11), null, null, null, null, 10)).isEmpty();
+	}
+
+	@Test
+	void rollPastTheWholeHorizonRebuildsFromTheDatabase() {
+		automobiles.add(automobile("a", "Fiat", 2020, 100.0));
+		bookings.add(booking("a", TODAY.plusDays(1), TODAY.plusDays(2)));
+		index.rebuild(TODAY);
+
+		LocalDate later = TODAY.plusDays(HORIZON_DAYS + 3);
+		bookings.add(booking("a", later.plusDays(1), later.plusDays(2)));
+		index.roll(later);
+
+		assertThat(free(later, later.plusDays(1))).containsExactly("a");
+		assertThat(free(later.plusDays(1), later.plusDays(2))).isEmpty();
+	}
+
+	@Test
+	void bookingsAreClippedToTheHorizon() {
+		automobiles.add(automobile("a", "Fiat", 2020, 100.0));
+		automobiles.add(automobile("b", "Fiat", 2020, 100.0));
+		// Começa antes do índice e termina depois do horizonte: ocupa todos os dias
+		bookings.add(booking("a", TODAY.minusDays(5), TODAY.plusDays(HORIZON_DAYS + 5)));
+		index.rebuild(TODAY);
+
+		assertThat(free(TODAY, TODAY.plusDays(1))).containsExactly("b");
+		assertThat(free(TODAY.plusDays(HORIZON_DAYS - 1), TODAY.plusDays(HORIZON_DAYS))).containsExactly("b");
+
+		index.bookingAdded("b", TODAY.plusDays(HORIZON_DAYS - 1), TODAY.plusDays(HORIZON_DAYS + 30));
+		assertThat(free(TODAY.plusDays(HORIZON_DAYS - 1), TODAY.plusDays(HORIZON_DAYS))).isEmpty();
+		// A reserva não pode vazar para o começo do anel
+		assertThat(free(TODAY, TODAY.plusDays(1))).containsExactly("b");
+
+		index.bookingRemoved("a", TODAY.minusDays(5), TODAY.plusDays(HORIZON_DAYS + 5));
+		assertThat(free(TODAY, TODAY.plusDays(HORIZON_DAYS - 1))).containsExactly("a", "b");
+	}
+
+	@Test
+	void periodsOutsideTheHorizonAreLeftToTheDatabase() {
+		automobiles.add(automobile("a", "Fiat", 2020, 100.0));
+		index.rebuild(TODAY);
+
+		assertThat(index.findFree(TODAY.minusDays(1), TODAY.plusDays(1), null, null, null, null, 10)).isEmpty();
+		assertThat(index.findFree(TODAY, TODAY.plusDays(HORIZON_DAYS + 1), null, null, null, null, 10)).isEmpty();
+		assertThat(index.findFree(TODAY, TODAY.plusDays(HORIZON_DAYS), null, null, null, null, 10))
+				.contains(List.of("a"));
+	}
+
+	@Test
+	void filtersByBrandYearDailyRateAndLimit() {
+		automobiles.add(automobile("fiat-2018", "Fiat", 2018, 80.0));
+		automobiles.add(automobile("fiat-2022", " FIAT ", 2022, 150.0));
+		automobiles.add(automobile("vw-2020", "Volkswagen", 2020, 120.0));
+		automobiles.add(automobile("vw-no-rate", "Volkswagen", 2020, null));
+		index.rebuild(TODAY);
+		LocalDate end = TODAY.plusDays(2);
+
+		assertThat(index.findFree(TODAY, end, "fiat", null, null, null, 10).orElseThrow())
+				.containsExactly("fiat-2018", "fiat-2022");
+		assertThat(index.findFree(TODAY, end, "Ford", null, null, null, 10)).contains(List.of());
+		assertThat(index.findFree(TODAY, end, null, 2019, 2021, null, 10).orElseThrow())
+				.containsExactly("vw-2020", "vw-no-rate");
+		// Sem diária não passa pelo filtro de diária máxima
+		assertThat(index.findFree(TODAY, end, null, null, null, 120.0, 10).orElseThrow())
+				.containsExactly("fiat-2018", "vw-2020");
+		assertThat(index.findFree(TODAY, end, null, null, null, null, 2).orElseThrow())
+				.containsExactly("fiat-2018", "fiat-2022");
+	}
+
+	@Test
+	void automobileSavedDuringRebuildIsNotLost() {
+		automobiles.add(automobile("a", "Fiat", 2020, 100.0));
+		index.rebuild(TODAY);
+		automobiles.add(automobile("gone", "Fiat", 2020, 100.0));
+		// Gravações concluídas entre o findAll e a montagem da nova estrutura
+		when(automobileRepository.findAll()).thenAnswer(invocation -> {
+			List<Automobile> snapshot = new ArrayList<>(automobiles);
+			index.putAutomobile(automobile("late", "Fiat", 2020, 100.0));
+			index.removeAutomobile("gone");
+			return snapshot;
+		});
+
+		index.rebuild(TODAY);
+
+		assertThat(free(TODAY, TODAY.plusDays(1))).containsExactlyInAnyOrder("a", "late");
+	}
+
+	@Test
+	void automobileSavedBeforeTheFirstBuildFinishesIsIndexed() {
+		when(automobileRepository.findAll()).thenAnswer(invocation -> {
+			index.putAutomobile(automobile("late", "Fiat", 2020, 100.0));
+			return List.of(automobile("a", "Fiat", 2020, 100.0));
+		});
+
+		index.rebuild(TODAY);
+
+		assertThat(free(TODAY, TODAY.plusDays(1))).containsExactly("a", "late");
+	}
+
+	private List<String> free(LocalDate start, LocalDate end) {
+		Optional<List<String>> free = index.findFree(start, end, null, null, null, null, 10_000);
+		assertThat(free).isPresent();
+		return free.get();
+	}
+
+	private static Automobile automobile(String id, String brand, int year, Double dailyRate) {
+		Automobile automobile = new Automobile();
+		automobile.setId(id);
+		automobile.setBrand(brand);
+		automobile.setYear(year);
+		automobile.setDailyRate(dailyRate);
+		return automobile;
+	}
+
+	private static Object[] booking(String automobileId, LocalDate pickupDate, LocalDate returnDate) {
+		return new Object[]{automobileId, pickupDate, returnDate};
+	}
+}
@@ -0,0 +1,172 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.RentalRequestCreateDTO;
+import com.example.backend.dto.RentalRequestResponseDTO;
+import com.example.backend.exception.AutomobileUnavailableException;
+import com.example.backend.model.Automobile;
+import com.example.backend.model.Customer;
+import com.example.backend.repository.AutomobileRepository;
+import com.example.backend.repository.CustomerRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Compara a criação de pedidos pelo fluxo JPA com o comando único em CTE, em um Postgres
+ * embarcado (o CTE e a exclusion constraint usam recursos que o H2 não tem).
+ */
+@SpringBootTest
+class BookingCommandBenchmarkTest {
+
+	private static final int WARMUP = 20;
+	private static final int ITERATIONS = 100;
+
+	private static EmbeddedPostgres postgres;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) throws IOException {
+		postgres = EmbeddedPostgres.start();
+		registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "");
+	}
+
+	@AfterAll
+	static void stopDatabase() throws IOException {
+		postgres.close();
+	}
+
+	@Autowired
+	private RentalRequestService rentalRequestService;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private AutomobileRepository automobileRepository;
+
+	private String customerUsername;
+
+	@BeforeEach
+	void setUp() {
+		Customer customer = new Customer();
+		customer.setId(UUID.randomUUID().toString());
+		customer.setUsername("bench-" + customer.getId());
+		customer.setEmail(customer.getUsername() + "@mail.com");
+		customer.setPassword("x");
+		customer.setCreatedAt(LocalDate.now());
+		customerRepository.save(customer);
+		customerUsername = customer.getUsername();
+	}
+
+	@Test
+	void singleStatementCreatesAndRejectsOverlap() {
+		useSingleStatement(true);
+		String automobileId = newAutomobile();
+
+		long versionBefore = automobileVersion(automobileId);
+
+		RentalRequestResponseDTO created = rentalRequestService.createRequest(customerUsername,
+				booking(automobileId, 0));
+
+		assertThat(created.getTotalValue()).isEqualTo(100.0);
+		assertThat(created.getCustomer().getUsername()).isEqualTo(customerUsername);
+		assertThat(created.getCreatedAt()).isEqualTo(LocalDate.now());
+		assertThat(automobileVersion(automobileId)).isEqualTo(versionBefore + 1);
+
+		assertThatThrownBy(() -> rentalRequestService.createRequest(customerUsername, booking(automobileId, 0)))
+				.isInstanceOf(AutomobileUnavailableException.class);
+		// Pedido recusado não mexe na versão do automóvel
+		assertThat(automobileVersion(automobileId)).isEqualTo(versionBefore + 1);
+	}
+
+	@Test
+	void bothFlowsReturnTheSameRequest() {
+		useSingleStatement(false);
+		RentalRequestResponseDTO jpa = rentalRequestService.createRequest(customerUsername,
+				booking(newAutomobile(), 0));
+		useSingleStatement(true);
+		RentalRequestResponseDTO single = rentalRequestService.createRequest(customerUsername,
+				booking(newAutomobile(), 0));
+
+		assertThat(single).usingRecursiveComparison()
+				.comparingOnlyFields("status", "totalValue", "rentalDays", "createdAt", "pickupDate", "returnDate")
+				.isEqualTo(jpa);
+	}
+
+	@Test
+	void singleStatementIsFasterThanJpaFlow() {
+		long[] jpa = measure(false);
+		long[] single = measure(true);
+
+		assertThat(percentile(single, 50)).isLessThan(percentile(jpa, 50));
+	}
+
+	private long[] measure(boolean singleStatement) {
+		useSingleStatement(singleStatement);
+		String automobileId = newAutomobile();
+		for (int i = 0; i < WARMUP; i++) {
+			rentalRequestService.createRequest(customerUsername, booking(automobileId, i));
+		}
+		long[] nanos = new long[ITERATIONS];
+		for (int i = 0; i < ITERATIONS; i++) {
+			RentalRequestCreateDTO dto = booking(automobileId, WARMUP + i);
+			long start = System.nanoTime();
+			rentalRequestService.createRequest(customerUsername, dto);
+			nanos[i] = System.nanoTime() - start;
+		}
+		return nanos;
+	}
+
+	private void useSingleStatement(boolean enabled) {
+		Object target = AopTestUtils.getUltimateTargetObject(rentalRequestService);
+		ReflectionTestUtils.setField(target, "singleStatementBooking", enabled);
+	}
+
+	private long automobileVersion(String automobileId) {
+		return automobileRepository.findById(automobileId).orElseThrow().getVersion();
+	}
+
+	private String newAutomobile() {
+		Automobile automobile = new Automobile();
+		automobile.setId(UUID.randomUUID().toString());
+		automobile.setBrand("Fiat");
+		automobile.setModel("Uno");
+		automobile.setYear(2020);
+		automobile.setDailyRate(100.0);
+		automobile.setAvailable(true);
+		automobile.setCreatedAt(LocalDate.now());
+		return automobileRepository.save(automobile).getId();
+	}
+
+	// Períodos de um dia, sem sobreposição entre índices diferentes
+	private static RentalRequestCreateDTO booking(String automobileId, int index) {
+		RentalRequestCreateDTO dto = new RentalRequestCreateDTO();
+		dto.setAutomobileId(automobileId);
+		dto.setPickupDate(LocalDate.now().plusDays(1 + 2L * index));
+		dto.setReturnDate(dto.getPickupDate().plusDays(1));
+		return dto;
+	}
+
+	private static double percentile(long[] nanos, int percentile) {
+		long[] sorted = nanos.clone();
+		Arrays.sort(sorted);
+		int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile / 100.0 * sorted.length) - 1);
+		return sorted[index] / 1_000_000.0;
+	}
+}
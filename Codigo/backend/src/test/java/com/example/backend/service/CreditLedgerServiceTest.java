@@ -0,0 +1,210 @@
+package com.example.backend.service;
+
+import com.example.backend.model.CreditBalanceSnapshot;
+import com.example.backend.model.enums.LedgerEntryType;
+import com.example.backend.repository.CreditBalanceSnapshotRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Livro de crédito em um Postgres embarcado (trava consultiva, CTE de reserva e INSERT ... ON CONFLICT
+ * dos snapshots não existem no H2). Cada teste usa um contrato novo; o livro não tem chave estrangeira
+ * para o contrato.
+ */
+@SpringBootTest
+class CreditLedgerServiceTest {
+
+	private static EmbeddedPostgres postgres;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) throws IOException {
+		postgres = EmbeddedPostgres.start();
+		registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "");
+	}
+
+	@AfterAll
+	static void stopDatabase() throws IOException {
+		postgres.close();
+	}
+
+	@Autowired
+	private CreditLedgerService creditLedgerService;
+
+	@Autowired
+	private CreditBalanceSnapshotRepository snapshotRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private String contractId;
+
+	@BeforeEach
+	void setUp() {
+		contractId = IdGenerator.newId();
+		creditLedgerService.limitChanged(contractId, 1000.0);
+	}
+
+	@Test
+	void holdIsIdempotentWhileOpen() {
+		String requestId = IdGenerator.newId();
+
+		CreditLedgerService.Hold first = creditLedgerService.hold(contractId, requestId, 300.0);
+		CreditLedgerService.Hold second = creditLedgerService.hold(contractId, requestId, 300.0);
+
+		assertThat(first.isReserved()).isTrue();
+		assertThat(first.getAvailable()).isEqualTo(700.0);
+		assertThat(second.isReserved()).isTrue();
+		assertThat(second.getAvailable()).isEqualTo(700.0);
+		assertThat(entries(requestId, LedgerEntryType.HOLD)).isEqualTo(1);
+		assertThat(creditLedgerService.balance(contractId)).isEqualTo(700.0);
+	}
+
+	@Test
+	void holdAboveTheBalanceIsRefused() {
+		String requestId = IdGenerator.newId();
+
+		CreditLedgerService.Hold hold = creditLedgerService.hold(contractId, requestId, 1000.01);
+
+		assertThat(hold.isReserved()).isFalse();
+		assertThat(hold.getAvailable()).isEqualTo(1000.0);
+		assertThat(entries(requestId, LedgerEntryType.HOLD)).isZero();
+	}
+
+	@Test
+	void requestHoldsAgainAfterRelease() {
+		String requestId = IdGenerator.newId();
+		creditLedgerService.hold(contractId, requestId, 400.0);
+
+		assertThat(creditLedgerService.settle(requestId, LedgerEntryType.RELEASE)).isEqualTo(contractId);
+		assertThat(creditLedgerService.balance(contractId)).isEqualTo(1000.0);
+		// Sem reserva aberta, encerrar de novo não lança nada
+		assertThat(creditLedgerService.settle(requestId, LedgerEntryType.CAPTURE)).isNull();
+
+		CreditLedgerService.Hold again = creditLedgerService.hold(contractId, requestId, 400.0);
+
+		assertThat(again.isReserved()).isTrue();
+		assertThat(again.getAvailable()).isEqualTo(600.0);
+		assertThat(entries(requestId, LedgerEntryType.HOLD)).isEqualTo(2);
+		assertThat(creditLedgerService.settle(requestId, LedgerEntryType.CAPTURE)).isEqualTo(contractId);
+		assertThat(entries(requestId, LedgerEntryType.CAPTURE)).isEqualTo(1);
+	}
+
+	@Test
+	void concurrentHoldsNeverOverspend() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Callable<Boolean>> holds = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				holds.add(() -> creditLedgerService.hold(contractId, IdGenerator.newId(), 200.0).isReserved());
+			}
+			int reserved = 0;
+			for (Future<Boolean> hold : executor.invokeAll(holds)) {
+				if (hold.get()) {
+					reserved++;
+				}
+			}
+
+			assertThat(reserved).isEqualTo(5);
+			assertThat(creditLedgerService.balance(contractId)).isEqualTo(0.0);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void snapshotRollsForwardOnlyEntriesOlderThanTheLag() {
+		String requestId = IdGenerator.newId();
+		creditLedgerService.hold(contractId, requestId, 250.0);
+
+		// Dentro da folga: nada entra no snapshot
+		creditLedgerService.snapshot();
+		assertThat(snapshotRepository.findById(contractId)).isEmpty();
+
+		age(contractId);
+		creditLedgerService.snapshot();
+		CreditBalanceSnapshot snapshot = snapshotRepository.findById(contractId).orElseThrow();
+		assertThat(snapshot.getAvailableLimit()).isEqualTo(750.0);
+		assertThat(snapshot.getLastEntryId()).isEqualTo(lastEntryId(contractId));
+
+		// Lançamento recente fica na cauda, somado ao snapshot
+		creditLedgerService.settle(requestId, LedgerEntryType.RELEASE);
+		creditLedgerService.snapshot();
+		assertThat(snapshotRepository.findById(contractId).orElseThrow().getAvailableLimit()).isEqualTo(750.0);
+		assertThat(creditLedgerService.balance(contractId)).isEqualTo(1000.0);
+
+		CreditLedgerService.Hold hold = creditLedgerService.hold(contractId, IdGenerator.newId(), 1000.0);
+		assertThat(hold.isReserved()).isTrue();
+		assertThat(hold.getAvailable()).isEqualTo(0.0);
+	}
+
+	@Test
+	void reconcileRepairsDivergentSnapshot() {
+		creditLedgerService.hold(contractId, IdGenerator.newId(), 100.0);
+		age(contractId);
+		creditLedgerService.snapshot();
+		corruptSnapshot(contractId, 5.0);
+
+		creditLedgerService.reconcile();
+
+		assertThat(snapshotRepository.findById(contractId).orElseThrow().getAvailableLimit()).isEqualTo(900.0);
+		assertThat(creditLedgerService.balance(contractId)).isEqualTo(900.0);
+	}
+
+	@Test
+	void repairSkipsSnapshotThatMovedOn() {
+		age(contractId);
+		creditLedgerService.snapshot();
+		corruptSnapshot(contractId, 5.0);
+		long staleLastEntryId = lastEntryId(contractId) - 1;
+
+		// Conferência feita contra um snapshot anterior: a correção não pode sobrescrever o atual
+		Object target = AopTestUtils.getUltimateTargetObject(creditLedgerService);
+		ReflectionTestUtils.invokeMethod(target, "repairSnapshot", contractId, 5.0, staleLastEntryId, 1000.0);
+
+		assertThat(snapshotRepository.findById(contractId).orElseThrow().getAvailableLimit()).isEqualTo(5.0);
+	}
+
+	private int entries(String requestId, LedgerEntryType type) {
+		return jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM credit_ledger_entry WHERE rental_request_id = ? AND entry_type = ?",
+				Integer.class, UUID.fromString(requestId), type.name());
+	}
+
+	private long lastEntryId(String contractId) {
+		return jdbcTemplate.queryForObject("SELECT MAX(id) FROM credit_ledger_entry WHERE contract_id = ?",
+				Long.class, UUID.fromString(contractId));
+	}
+
+	// Envelhece os lançamentos do contrato para além da folga do snapshot
+	private void age(String contractId) {
+		jdbcTemplate.update("UPDATE credit_ledger_entry SET created_at = created_at - interval '1 hour'"
+				+ " WHERE contract_id = ?", UUID.fromString(contractId));
+	}
+
+	private void corruptSnapshot(String contractId, double availableLimit) {
+		jdbcTemplate.update("UPDATE credit_balance_snapshot SET available_limit = ? WHERE contract_id = ?",
+				availableLimit, UUID.fromString(contractId));
+	}
+}
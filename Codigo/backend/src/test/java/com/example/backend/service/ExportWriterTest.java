@@ -0,0 +1,76 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.ExportFormat;
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Escrita das linhas exportadas: escape do CSV (RFC 4180 e injeção de fórmula) e NDJSON.
+ */
+class ExportWriterTest {
+
+	private static final String[] COLUMNS = {"id", "value"};
+
+	@Test
+	void formulaPrefixesBecomeLiteralText() throws IOException {
+		assertThat(csvValue("=cmd|' /C calc'!A0")).isEqualTo("'=cmd|' /C calc'!A0");
+		assertThat(csvValue("-1+1")).isEqualTo("'-1+1");
+		assertThat(csvValue("+55 31 9999")).isEqualTo("'+55 31 9999");
+		assertThat(csvValue("@SUM(A1)")).isEqualTo("'@SUM(A1)");
+		assertThat(csvValue("\tcmd")).isEqualTo("'\tcmd");
+	}
+
+	@Test
+	void formulaPrefixIsAddedBeforeQuoting() throws IOException {
+		assertThat(csvValue("=HYPERLINK(\"x\",\"y\")")).isEqualTo("\"'=HYPERLINK(\"\"x\"\",\"\"y\"\")\"");
+	}
+
+	@Test
+	void commasQuotesAndNewlinesAreQuoted() throws IOException {
+		assertThat(csvValue("Fiat, Uno")).isEqualTo("\"Fiat, Uno\"");
+		assertThat(csvValue("Uno \"Mille\"")).isEqualTo("\"Uno \"\"Mille\"\"\"");
+		assertThat(csvValue("linha 1\nlinha 2")).isEqualTo("\"linha 1\nlinha 2\"");
+		assertThat(csvValue("linha 1\r\nlinha 2")).isEqualTo("\"linha 1\r\nlinha 2\"");
+	}
+
+	@Test
+	void plainTextNumbersAndNullsAreWrittenAsIs() throws IOException {
+		assertThat(csv(new Object[]{"a", "Fiat"}, new Object[]{-1.5, null}))
+				.isEqualTo("id,value\r\na,Fiat\r\n-1.5,\r\n");
+	}
+
+	@Test
+	void ndjsonWritesOneObjectPerLine() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ExportWriter writer = ExportWriter.open(ExportFormat.NDJSON, out, COLUMNS, new JsonFactory());
+		writer.writeRow(new Object[]{"a", "=cmd\n\"x\""});
+		writer.writeRow(new Object[]{"b", null});
+		writer.flush();
+
+		assertThat(out.toString(StandardCharsets.UTF_8))
+				.isEqualTo("{\"id\":\"a\",\"value\":\"=cmd\\n\\\"x\\\"\"}\n{\"id\":\"b\",\"value\":null}\n");
+	}
+
+	// Valor da coluna "value" como sai no arquivo, sem o cabeçalho e o id
+	private static String csvValue(String value) throws IOException {
+		String content = csv(new Object[]{"1", value});
+		String row = content.substring("id,value\r\n".length(), content.length() - "\r\n".length());
+		return row.substring("1,".length());
+	}
+
+	private static String csv(Object[]... rows) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ExportWriter writer = ExportWriter.open(ExportFormat.CSV, out, COLUMNS, new JsonFactory());
+		for (Object[] row : rows) {
+			writer.writeRow(row);
+		}
+		writer.flush();
+		return out.toString(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,126 @@
+package com.example.backend.service;
+
+import com.example.backend.exception.InvalidRefreshTokenException;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Emissão e rotação de refresh tokens em um Postgres embarcado: a emissão é um único INSERT,
+ * cada token só pode ser trocado uma vez e reapresentar um token já trocado revoga a família.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class RefreshTokenServiceTest {
+
+	private static EmbeddedPostgres postgres;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) throws IOException {
+		postgres = EmbeddedPostgres.start();
+		registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "");
+	}
+
+	@AfterAll
+	static void stopDatabase() throws IOException {
+		postgres.close();
+	}
+
+	@Autowired
+	private RefreshTokenService refreshTokenService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private String userId;
+
+	@BeforeEach
+	void setUp() {
+		userId = IdGenerator.newId();
+	}
+
+	@Test
+	void issueInsertsWithoutLoadingFirst() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		refreshTokenService.issue(userId);
+
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void rotationHandsOutANewTokenOfTheSameSession() {
+		String first = refreshTokenService.issue(userId);
+
+		RefreshTokenService.Rotation second = refreshTokenService.rotate(first);
+		RefreshTokenService.Rotation third = refreshTokenService.rotate(second.getRefreshToken());
+
+		assertThat(second.getUserId()).isEqualTo(userId);
+		assertThat(second.getRefreshToken()).isNotEqualTo(first);
+		assertThat(third.getRefreshToken()).isNotIn(first, second.getRefreshToken());
+	}
+
+	@Test
+	void reusingARotatedTokenRevokesTheFamily() {
+		String stolen = refreshTokenService.issue(userId);
+		String otherSession = refreshTokenService.issue(userId);
+		String current = refreshTokenService.rotate(stolen).getRefreshToken();
+
+		assertThatThrownBy(() -> refreshTokenService.rotate(stolen))
+				.isInstanceOf(InvalidRefreshTokenException.class)
+				.hasMessage("Refresh token já utilizado");
+		// O token legítimo mais recente da família também deixa de valer
+		assertThatThrownBy(() -> refreshTokenService.rotate(current))
+				.isInstanceOf(InvalidRefreshTokenException.class);
+
+		// Outra sessão do mesmo usuário é outra família
+		assertThat(refreshTokenService.rotate(otherSession).getUserId()).isEqualTo(userId);
+	}
+
+	@Test
+	void revokedSessionCannotRotate() {
+		String token = refreshTokenService.issue(userId);
+
+		refreshTokenService.revokeFamilyOf(token);
+
+		assertThatThrownBy(() -> refreshTokenService.rotate(token))
+				.isInstanceOf(InvalidRefreshTokenException.class);
+	}
+
+	@Test
+	void revokeAllForUserEndsEverySession() {
+		String first = refreshTokenService.issue(userId);
+		String second = refreshTokenService.issue(userId);
+		String otherUser = refreshTokenService.issue(IdGenerator.newId());
+
+		refreshTokenService.revokeAllForUser(userId);
+
+		assertThatThrownBy(() -> refreshTokenService.rotate(first)).isInstanceOf(InvalidRefreshTokenException.class);
+		assertThatThrownBy(() -> refreshTokenService.rotate(second)).isInstanceOf(InvalidRefreshTokenException.class);
+		assertThat(refreshTokenService.rotate(otherUser).getRefreshToken()).isNotBlank();
+	}
+
+	@Test
+	void unknownTokenIsRejected() {
+		assertThatThrownBy(() -> refreshTokenService.rotate("nao-existe"))
+				.isInstanceOf(InvalidRefreshTokenException.class)
+				.hasMessage("Refresh token inválido");
+	}
+}
@@ -0,0 +1,103 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.ExportFormat;
+import com.example.backend.exception.TooManyRequestsException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Vagas de exportação simultânea: a vaga é tomada na requisição e devolvida quando o corpo
+ * termina, inclusive quando a consulta falha, ou quando a requisição assíncrona acaba sem rodá-lo.
+ */
+class StreamingExportServiceTest {
+
+	private StreamingExportService service;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenThrow(new SQLException("banco fora do ar"));
+		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+		service = new StreamingExportService(dataSource, transactionManager, new ObjectMapper(),
+				mock(UserDirectory.class), new SimpleMeterRegistry(), 100, 1);
+	}
+
+	@AfterEach
+	void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void secondExportIsRefusedWhileThePermitIsHeld() {
+		service.automobiles("agente", ExportFormat.CSV, null, null, null);
+
+		assertThatThrownBy(() -> service.automobiles("agente", ExportFormat.CSV, null, null, null))
+				.isInstanceOf(TooManyRequestsException.class);
+	}
+
+	@Test
+	void failedExportReturnsThePermit() {
+		StreamingResponseBody body = service.automobiles("agente", ExportFormat.CSV, null, null, null);
+
+		assertThatThrownBy(() -> body.writeTo(new ByteArrayOutputStream()))
+				.isInstanceOf(DataAccessException.class);
+
+		StreamingResponseBody next = service.automobiles("agente", ExportFormat.CSV, null, null, null);
+		assertThat(next).isNotNull();
+	}
+
+	@Test
+	void asyncRequestEndingBeforeTheBodyRunsReturnsThePermit() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAsyncSupported(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+
+		service.automobiles("agente", ExportFormat.CSV, null, null, null);
+
+		// Executor que nunca roda a tarefa: a requisição assíncrona termina (ex.: timeout) sem o corpo
+		WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+		asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+		asyncManager.setTaskExecutor(new ConcurrentTaskExecutor(task -> { }));
+		asyncManager.startCallableProcessing(() -> null);
+		((MockAsyncContext) request.getAsyncContext()).complete();
+
+		assertThat(service.automobiles("agente", ExportFormat.CSV, null, null, null)).isNotNull();
+	}
+
+	@Test
+	void invalidFiltersDoNotTakeAPermit() {
+		assertThatThrownBy(() -> service.rentalRequests("agente", ExportFormat.CSV, "INEXISTENTE", null, null))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		assertThat(service.automobiles("agente", ExportFormat.CSV, null, null, null)).isNotNull();
+	}
+}
@@ -163,7 +163,7 @@ export const AuthProvider: React.FC<AuthProviderProps> = ({ children }) => {
                 }
 
                 // Salvar token
-                ApiService.auth.setToken(loginResponse.token)
+                ApiService.auth.setSession(loginResponse)
 
                 setUser(loggedUser)
                 saveCurrentUser(loggedUser)
@@ -241,7 +241,7 @@ export const AuthProvider: React.FC<AuthProviderProps> = ({ children }) => {
                 }
 
                 // Salvar token JWT retornado pelo registro
-                ApiService.auth.setToken(loginResponse.token)
+                ApiService.auth.setSession(loginResponse)
 
                 // Se for cliente, criar também o registro específico no Customer
                 if (userType === 'cliente') {
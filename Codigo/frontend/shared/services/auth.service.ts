@@ -32,8 +32,23 @@ export class AuthService extends BaseApiService {
         localStorage.setItem('auth_token', token);
     }
 
+    getRefreshToken(): string | null {
+        return localStorage.getItem('refresh_token');
+    }
+
+    // Guarda o access token e o refresh token devolvidos por login, registro ou refresh
+    setSession(session: LoginResponseDTO): void {
+        this.setToken(session.token);
+        if (session.refreshToken) {
+            localStorage.setItem('refresh_token', session.refreshToken);
+        } else {
+            localStorage.removeItem('refresh_token');
+        }
+    }
+
     removeToken(): void {
         localStorage.removeItem('auth_token');
+        localStorage.removeItem('refresh_token');
     }
 
     isAuthenticated(): boolean {
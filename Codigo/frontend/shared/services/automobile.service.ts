@@ -4,7 +4,7 @@ import type { Automobile, AutomobileCreate, AutomobileResponse } from '@/shared/
 
 export class AutomobileService extends BaseApiService {
     async getAllAutomobiles(): Promise<AutomobileResponse[]> {
-        return this.get<AutomobileResponse[]>(API_CONFIG.ENDPOINTS.AUTOMOBILES);
+        return this.getAllPages<AutomobileResponse>(API_CONFIG.ENDPOINTS.AUTOMOBILES);
     }
 
     async getAutomobileById(id: string): Promise<AutomobileResponse | null> {
@@ -1,8 +1,17 @@
 import {API_CONFIG} from "@/shared/config/api";
 
+const NEXT_CURSOR_HEADER = 'X-Next-Cursor';
+
+// Chamadas que não devem disparar a renovação automática do token
+const SESSION_ENDPOINTS = ['/auth/login', '/auth/register', '/auth/refresh'];
+
 export class BaseApiService {
     protected baseUrl: string;
 
+    // Renovação em andamento, compartilhada: vários 401 simultâneos usam um único refresh,
+    // pois o backend revoga a família inteira se o mesmo refresh token for reapresentado
+    private static refreshing: Promise<string | null> | null = null;
+
     constructor() {
         this.baseUrl = API_CONFIG.BASE_URL;
     }
@@ -11,6 +20,16 @@ export class BaseApiService {
         endpoint: string,
         options: RequestInit = {}
     ): Promise<T> {
+        const { data } = await this.requestWithHeaders<T>(endpoint, options);
+        return data;
+    }
+
+    // Igual a request, mas devolve também os headers da resposta (ex.: X-Next-Cursor)
+    protected async requestWithHeaders<T>(
+        endpoint: string,
+        options: RequestInit = {},
+        retried = false
+    ): Promise<{ data: T; headers: Headers }> {
         const url = `${this.baseUrl}${endpoint}`;
 
         // Verificar se há token de autenticação
@@ -27,6 +46,20 @@ export class BaseApiService {
         try {
             const response = await fetch(url, { ...defaultOptions, ...options });
 
+            // Access token expirado: renovar com o refresh token e repetir a chamada uma vez
+            if (response.status === 401 && !retried && !SESSION_ENDPOINTS.includes(endpoint)) {
+                const renewedToken = await this.refreshAccessToken();
+                if (renewedToken) {
+                    return this.requestWithHeaders<T>(endpoint, {
+                        ...options,
+                        headers: {
+                            ...options.headers,
+                            'Authorization': `Bearer ${renewedToken}`,
+                        },
+                    }, true);
+                }
+            }
+
             // Se não for OK, extrair mensagem de erro do backend
             if (!response.ok) {
                 let errorMessage = `HTTP error! status: ${response.status}`;
@@ -80,20 +113,77 @@ export class BaseApiService {
 
             // Se for 204 ou sem conteúdo, retornar objeto vazio
             if (response.status === 204 || response.headers.get('content-length') === '0') {
-                return {} as T;
+                return { data: {} as T, headers: response.headers };
             }
 
-            return await response.json();
+            return { data: await response.json(), headers: response.headers };
         } catch (error) {
             console.error(`API request failed for ${url}:`, error);
             throw error;
         }
     }
 
+    private refreshAccessToken(): Promise<string | null> {
+        if (!BaseApiService.refreshing) {
+            BaseApiService.refreshing = this.performRefresh().finally(() => {
+                BaseApiService.refreshing = null;
+            });
+        }
+        return BaseApiService.refreshing;
+    }
+
+    private async performRefresh(): Promise<string | null> {
+        const refreshToken = localStorage.getItem('refresh_token');
+        if (!refreshToken) {
+            return null;
+        }
+
+        try {
+            const response = await fetch(`${this.baseUrl}/auth/refresh`, {
+                method: 'POST',
+                headers: { 'Content-Type': 'application/json' },
+                body: JSON.stringify({ refreshToken }),
+            });
+
+            if (!response.ok) {
+                // Refresh expirado ou revogado: a sessão terminou
+                localStorage.removeItem('auth_token');
+                localStorage.removeItem('refresh_token');
+                return null;
+            }
+
+            const session = await response.json();
+            localStorage.setItem('auth_token', session.token);
+            if (session.refreshToken) {
+                localStorage.setItem('refresh_token', session.refreshToken);
+            }
+            return session.token;
+        } catch (error) {
+            console.error('Token refresh failed:', error);
+            return null;
+        }
+    }
+
     protected async get<T>(endpoint: string): Promise<T> {
         return this.request<T>(endpoint, { method: 'GET' });
     }
 
+    // Percorre todas as páginas de uma listagem seguindo o header X-Next-Cursor
+    protected async getAllPages<T>(endpoint: string): Promise<T[]> {
+        const items: T[] = [];
+        let cursor: string | null = null;
+        do {
+            const separator = endpoint.includes('?') ? '&' : '?';
+            const pageEndpoint: string = cursor
+                ? `${endpoint}${separator}cursor=${encodeURIComponent(cursor)}`
+                : endpoint;
+            const { data, headers } = await this.requestWithHeaders<T[]>(pageEndpoint, { method: 'GET' });
+            items.push(...data);
+            cursor = headers.get(NEXT_CURSOR_HEADER);
+        } while (cursor);
+        return items;
+    }
+
     protected async post<T>(endpoint: string, data: unknown): Promise<T> {
         return this.request<T>(endpoint, {
             method: 'POST',
@@ -11,7 +11,7 @@ export class CreditContractService extends BaseApiService {
     }
 
     async getAllCreditContracts(): Promise<CreditContractResponseDTO[]> {
-        return this.get<CreditContractResponseDTO[]>('/credit-contracts');
+        return this.getAllPages<CreditContractResponseDTO>('/credit-contracts');
     }
 
     async getCreditContractById(id: string): Promise<CreditContractResponseDTO> {
@@ -4,7 +4,7 @@ import type { CustomerCreateDTO, CustomerResponseDTO } from '@/shared/types/cust
 
 export class CustomerService extends BaseApiService {
     async getAllCustomers(): Promise<CustomerResponseDTO[]> {
-        return this.get<CustomerResponseDTO[]>(API_CONFIG.ENDPOINTS.CUSTOMERS);
+        return this.getAllPages<CustomerResponseDTO>(API_CONFIG.ENDPOINTS.CUSTOMERS);
     }
 
     async getCustomerById(id: string): Promise<CustomerResponseDTO | null> {
@@ -12,7 +12,7 @@ export class RentalRequestService extends BaseApiService {
     }
 
     async getMyRequests(): Promise<RentalRequestResponseDTO[]> {
-        return this.get<RentalRequestResponseDTO[]>('/rental-requests/my-requests');
+        return this.getAllPages<RentalRequestResponseDTO>('/rental-requests/my-requests');
     }
 
     async getRentalRequestById(id: string): Promise<RentalRequestResponseDTO> {
@@ -34,15 +34,15 @@ export class RentalRequestService extends BaseApiService {
     // ========== ENDPOINTS PARA AGENTES ==========
 
     async getAllRentalRequests(): Promise<RentalRequestResponseDTO[]> {
-        return this.get<RentalRequestResponseDTO[]>('/rental-requests/all');
+        return this.getAllPages<RentalRequestResponseDTO>('/rental-requests/all');
     }
 
     async getPendingRequests(): Promise<RentalRequestResponseDTO[]> {
-        return this.get<RentalRequestResponseDTO[]>('/rental-requests/pending');
+        return this.getAllPages<RentalRequestResponseDTO>('/rental-requests/pending');
     }
 
     async getRequestsForMyAutomobiles(): Promise<RentalRequestResponseDTO[]> {
-        return this.get<RentalRequestResponseDTO[]>('/rental-requests/agent/my-automobiles');
+        return this.getAllPages<RentalRequestResponseDTO>('/rental-requests/agent/my-automobiles');
     }
 
     async updateRequestStatus(id: string, statusUpdate: RentalRequestStatusUpdateDTO): Promise<RentalRequestResponseDTO> {
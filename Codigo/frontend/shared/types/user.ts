@@ -22,6 +22,7 @@ export interface LoginRequestDTO {
 
 export interface LoginResponseDTO {
     token: string;
+    refreshToken?: string;
     type: string;
     username: string;
     email: string;